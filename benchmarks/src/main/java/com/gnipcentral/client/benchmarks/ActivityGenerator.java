@@ -0,0 +1,446 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.bind.JAXBException;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Actor;
+import com.gnipcentral.client.resource.GnipUrl;
+import com.gnipcentral.client.resource.GnipValue;
+import com.gnipcentral.client.resource.MediaUrl;
+import com.gnipcentral.client.resource.Payload;
+import com.gnipcentral.client.resource.Place;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Generates a stream of synthetic {@link Activity activities} shaped like firehose traffic, for benchmarks and
+ * load tests.  Where {@link BenchmarkData} sets every field of every activity the same way, this generator draws
+ * each part of an activity from a distribution:
+ * <ul>
+ * <li>actors, keywords and tags are chosen with Zipfian popularity, so a few are very common and most are rare</li>
+ * <li>the number of keywords, tags and media URLs per activity is Poisson distributed around a mean</li>
+ * <li>a fraction of the activities have a place, and a fraction have a payload</li>
+ * <li>payload sizes are log-normal around a median, with a long tail up to a maximum</li>
+ * <li>a fraction of the activities are duplicates, the same object as a recent activity delivered again</li>
+ * </ul>
+ * The activities are spaced evenly in time from a start time.  The output is the same for the same seed and
+ * settings, so runs can be compared.  It is available as model objects, as XML bytes that validate against the
+ * Gnip schema, or as bucket files on disk.
+ * <br/>
+ * <br/>
+ * The settings should be changed before the first activity is generated.  This class is not thread-safe.
+ */
+public class ActivityGenerator {
+
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormat.forPattern("yyyyMMddHHmm").withZone(DateTimeZone.UTC);
+    private static final String[] ACTIONS = {"post", "comment", "share", "like", "follow", "upload"};
+    private static final String[] SOURCES = {"web", "mobile", "api", "sms", "im", "email"};
+    private static final String[] MEDIA_TYPES = {"image/jpeg", "image/png", "video/mp4", "image/gif"};
+    private static final int RECENT_COUNT = 1024;
+
+    private final Random random;
+    private DateTime start = new DateTime(2009, 3, 1, 10, 0, 0, 0, DateTimeZone.UTC);
+    private int activitiesPerMinute = 6000;
+    private int actorCount = 100000;
+    private double actorSkew = 1.1;
+    private int keywordCount = 5000;
+    private double keywordSkew = 1.0;
+    private double keywordsPerActivity = 2;
+    private int tagCount = 1000;
+    private double tagSkew = 1.2;
+    private double tagsPerActivity = 1;
+    private double placeRate = 0.1;
+    private double mediaUrlsPerActivity = 0.3;
+    private double payloadRate = 1;
+    private int payloadMedianBytes = 700;
+    private double payloadSpread = 0.8;
+    private int payloadMaxBytes = 1 << 20;
+    private double duplicateRate = 0.02;
+
+    private Zipf actors;
+    private Zipf keywords;
+    private Zipf tags;
+    private final Zipf actions = new Zipf(ACTIONS.length, 1.0);
+    private final Zipf sources = new Zipf(SOURCES.length, 1.5);
+    private final Activity[] recent = new Activity[RECENT_COUNT];
+    private long index;
+
+    /**
+     * Create a generator.
+     * @param seed the seed of the random numbers
+     */
+    public ActivityGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Set the time of the first activity.  The default is 10:00 UTC on 1 March 2009.
+     * @param start the time
+     */
+    public void setStart(DateTime start) {
+        if (start == null) {
+            throw new IllegalArgumentException("Invalid start specified '"+start+"'");
+        }
+        this.start = start;
+    }
+
+    /**
+     * Set the rate of activities, which spaces them in time and so sets how many fall in each bucket written by
+     * {@link #writeBuckets(File, int)}.  The default is <code>6000</code>.
+     * @param activitiesPerMinute the number of activities per minute
+     */
+    public void setActivitiesPerMinute(int activitiesPerMinute) {
+        if (activitiesPerMinute <= 0 || activitiesPerMinute > 60000) {
+            throw new IllegalArgumentException("Invalid activities per minute specified '"+activitiesPerMinute+"'");
+        }
+        this.activitiesPerMinute = activitiesPerMinute;
+    }
+
+    /**
+     * Set the number of distinct actors and the exponent of their Zipfian popularity.  The default is
+     * <code>100000</code> actors with an exponent of <code>1.1</code>.
+     * @param count the number of actors
+     * @param skew the exponent; <code>0</code> makes every actor equally likely
+     */
+    public void setActors(int count, double skew) {
+        checkDistribution(count, skew);
+        this.actorCount = count;
+        this.actorSkew = skew;
+        this.actors = null;
+    }
+
+    /**
+     * Set the number of distinct keywords, the exponent of their Zipfian popularity and the mean number per
+     * activity.  The default is <code>5000</code> keywords with an exponent of <code>1.0</code> and a mean of
+     * <code>2</code>.
+     * @param count the number of keywords
+     * @param skew the exponent; <code>0</code> makes every keyword equally likely
+     * @param perActivity the mean number of keywords per activity
+     */
+    public void setKeywords(int count, double skew, double perActivity) {
+        checkDistribution(count, skew);
+        checkMean(perActivity);
+        this.keywordCount = count;
+        this.keywordSkew = skew;
+        this.keywordsPerActivity = perActivity;
+        this.keywords = null;
+    }
+
+    /**
+     * Set the number of distinct tags, the exponent of their Zipfian popularity and the mean number per activity.
+     * The default is <code>1000</code> tags with an exponent of <code>1.2</code> and a mean of <code>1</code>.
+     * @param count the number of tags
+     * @param skew the exponent; <code>0</code> makes every tag equally likely
+     * @param perActivity the mean number of tags per activity
+     */
+    public void setTags(int count, double skew, double perActivity) {
+        checkDistribution(count, skew);
+        checkMean(perActivity);
+        this.tagCount = count;
+        this.tagSkew = skew;
+        this.tagsPerActivity = perActivity;
+        this.tags = null;
+    }
+
+    /**
+     * Set the fraction of activities that have a place.  The default is <code>0.1</code>.
+     * @param placeRate the fraction, from <code>0</code> to <code>1</code>
+     */
+    public void setPlaceRate(double placeRate) {
+        checkRate(placeRate);
+        this.placeRate = placeRate;
+    }
+
+    /**
+     * Set the mean number of media URLs in a payload.  The default is <code>0.3</code>.
+     * @param perActivity the mean number of media URLs
+     */
+    public void setMediaUrlsPerActivity(double perActivity) {
+        checkMean(perActivity);
+        this.mediaUrlsPerActivity = perActivity;
+    }
+
+    /**
+     * Set the fraction of activities that have a payload.  The default is <code>1</code>.
+     * @param payloadRate the fraction, from <code>0</code> to <code>1</code>
+     */
+    public void setPayloadRate(double payloadRate) {
+        checkRate(payloadRate);
+        this.payloadRate = payloadRate;
+    }
+
+    /**
+     * Set the distribution of the size of a payload's raw data, which is log-normal.  The default is a median of
+     * <code>700</code> bytes with a spread of <code>0.8</code>, up to 1 MB.
+     * @param medianBytes the median size
+     * @param spread the standard deviation of the size's natural logarithm; <code>0</code> makes every payload
+     * the median size
+     * @param maxBytes the largest size
+     */
+    public void setPayloadSize(int medianBytes, double spread, int maxBytes) {
+        if (medianBytes <= 0) {
+            throw new IllegalArgumentException("Invalid median payload size specified '"+medianBytes+"'");
+        }
+        if (spread < 0) {
+            throw new IllegalArgumentException("Invalid payload size spread specified '"+spread+"'");
+        }
+        if (maxBytes < medianBytes) {
+            throw new IllegalArgumentException("Invalid maximum payload size specified '"+maxBytes+"'");
+        }
+        this.payloadMedianBytes = medianBytes;
+        this.payloadSpread = spread;
+        this.payloadMaxBytes = maxBytes;
+    }
+
+    /**
+     * Set the fraction of activities that are duplicates of one of the last 1024 activities.
+     * The default is <code>0.02</code>.
+     * @param duplicateRate the fraction, from <code>0</code> to <code>1</code>
+     */
+    public void setDuplicateRate(double duplicateRate) {
+        checkRate(duplicateRate);
+        this.duplicateRate = duplicateRate;
+    }
+
+    /**
+     * Generate the next activity.  A duplicate is the same object as the activity it duplicates.
+     * @return the activity
+     */
+    public Activity nextActivity() {
+        Activity activity;
+        if (index > 0 && duplicateRate > 0 && random.nextDouble() < duplicateRate) {
+            int back = random.nextInt((int) Math.min(index, RECENT_COUNT));
+            activity = recent[(int) ((index - 1 - back) % RECENT_COUNT)];
+        } else {
+            activity = createActivity(index);
+        }
+        recent[(int) (index % RECENT_COUNT)] = activity;
+        index++;
+        return activity;
+    }
+
+    /**
+     * Generate a bucket of activities.
+     * @param count the number of activities
+     * @return the bucket
+     */
+    public Results nextResults(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count specified '"+count+"'");
+        }
+        Results results = new Results();
+        for (int i = 0; i < count; i++) {
+            results.add(nextActivity());
+        }
+        return results;
+    }
+
+    /**
+     * Generate a bucket of activities as XML.
+     * @param count the number of activities
+     * @return the document
+     * @throws JAXBException if the bucket cannot be marshalled
+     */
+    public byte[] nextXml(int count) throws JAXBException {
+        return toXml(nextResults(count));
+    }
+
+    /**
+     * Write the activities of the next minutes to a directory, one file per minute named after the minute as Gnip
+     * names its buckets, for example <code>200903011000.xml</code>.  Each file holds the activities whose time
+     * falls in its minute, so the first file may hold fewer than {@link #setActivitiesPerMinute(int)}.
+     * @param directory the directory, which is created if it does not exist
+     * @param minutes the number of files
+     * @return the files, in time order
+     * @throws IOException if a file cannot be written
+     * @throws JAXBException if a bucket cannot be marshalled
+     */
+    public List<File> writeBuckets(File directory, int minutes) throws IOException, JAXBException {
+        if (minutes < 0) {
+            throw new IllegalArgumentException("Invalid minutes specified '"+minutes+"'");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < minutes; i++) {
+            DateTime minute = timeOf(index).withSecondOfMinute(0).withMillisOfSecond(0);
+            DateTime next = minute.plusMinutes(1);
+            Results results = new Results();
+            while (timeOf(index).isBefore(next)) {
+                results.add(nextActivity());
+            }
+            File file = new File(directory, BUCKET_FORMAT.print(minute) + ".xml");
+            OutputStream output = new FileOutputStream(file);
+            try {
+                Translator.marshall(results, output);
+            } finally {
+                output.close();
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Marshall a bucket into XML.
+     * @param results the bucket
+     * @return the document
+     * @throws JAXBException if the bucket cannot be marshalled
+     */
+    public static byte[] toXml(Results results) throws JAXBException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(results, output);
+        return output.toByteArray();
+    }
+
+    private Activity createActivity(long id) {
+        int actor = actors().next(random);
+        String action = ACTIONS[actions.next(random)];
+        Activity activity = new Activity(timeOf(id), action);
+        activity.setActivityID("tag:example.com,2009:" + id);
+        activity.setUrl("http://example.com/user" + actor + "/status/" + id);
+        // no meta URL: an actor marshals it as a metaUrl attribute as well, which the schema does not allow
+        Actor author = new Actor("user" + actor);
+        author.setUid(String.valueOf(actor));
+        activity.addActor(author);
+        activity.addSource(SOURCES[sources.next(random)]);
+        for (int i = poisson(keywordsPerActivity); i > 0; i--) {
+            activity.addKeyword("keyword" + keywords().next(random));
+        }
+        for (int i = poisson(tagsPerActivity); i > 0; i--) {
+            activity.addTag(new GnipValue("tag" + tags().next(random)));
+        }
+        if ("comment".equals(action) || "share".equals(action)) {
+            int to = actors().next(random);
+            activity.addTo(new GnipValue("user" + to, "http://example.com/user" + to));
+            activity.addRegardingUrl(new GnipUrl("http://example.com/user" + to + "/status/" + random.nextInt((int) Math.min(id + 1, Integer.MAX_VALUE))));
+        }
+        if (random.nextBoolean()) {
+            activity.addDestinationUrl(new GnipUrl("http://example.com/link/" + Integer.toHexString(random.nextInt())));
+        }
+        if (placeRate > 0 && random.nextDouble() < placeRate) {
+            double latitude = 40 + random.nextGaussian() * 5;
+            double longitude = -100 + random.nextGaussian() * 15;
+            activity.addPlace(new Place(new double[] {latitude, longitude}, null, null, null, "place" + random.nextInt(1000), null));
+        }
+        if (payloadRate > 0 && random.nextDouble() < payloadRate) {
+            activity.setPayload(createPayload(id));
+        }
+        return activity;
+    }
+
+    private Payload createPayload(long id) {
+        List<MediaUrl> mediaUrls = null;
+        for (int i = poisson(mediaUrlsPerActivity); i > 0; i--) {
+            if (mediaUrls == null) {
+                mediaUrls = new ArrayList<MediaUrl>();
+            }
+            String type = MEDIA_TYPES[random.nextInt(MEDIA_TYPES.length)];
+            mediaUrls.add(new MediaUrl("http://example.com/media/" + id + "-" + i, "640", "480", null, type,
+                    type.startsWith("video") ? "video" : "image"));
+        }
+
+        int size = (int) Math.min(payloadMaxBytes, Math.max(16, Math.round(payloadMedianBytes * Math.exp(random.nextGaussian() * payloadSpread))));
+        StringBuilder raw = new StringBuilder(size + 32);
+        raw.append("{\"id\":").append(id).append(",\"text\":\"");
+        while (raw.length() < size - 2) {
+            raw.append("keyword").append(keywords().next(random)).append(' ');
+        }
+        raw.setLength(Math.max(0, size - 2));
+        raw.append("\"}");
+        String body = raw.length() > 160 ? raw.substring(0, 160) : raw.toString();
+        return new Payload(null, body, mediaUrls, raw.toString(), false);
+    }
+
+    private DateTime timeOf(long id) {
+        return start.plus(id * 60000 / activitiesPerMinute);
+    }
+
+    private int poisson(double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private Zipf actors() {
+        return actors != null ? actors : (actors = new Zipf(actorCount, actorSkew));
+    }
+
+    private Zipf keywords() {
+        return keywords != null ? keywords : (keywords = new Zipf(keywordCount, keywordSkew));
+    }
+
+    private Zipf tags() {
+        return tags != null ? tags : (tags = new Zipf(tagCount, tagSkew));
+    }
+
+    private static void checkDistribution(int count, double skew) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Invalid count specified '"+count+"'");
+        }
+        if (skew < 0) {
+            throw new IllegalArgumentException("Invalid skew specified '"+skew+"'");
+        }
+    }
+
+    private static void checkMean(double mean) {
+        if (mean < 0 || mean > 100) {
+            throw new IllegalArgumentException("Invalid mean specified '"+mean+"'");
+        }
+    }
+
+    private static void checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Invalid rate specified '"+rate+"'");
+        }
+    }
+
+    /**
+     * Draws ranks from <code>0</code> to <code>n - 1</code> with probability proportional to
+     * <code>1 / (rank + 1)^skew</code>, by a binary search of the cumulative distribution.
+     */
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+        }
+
+        int next(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+}
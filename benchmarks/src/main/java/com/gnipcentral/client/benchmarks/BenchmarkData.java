@@ -0,0 +1,64 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Actor;
+import com.gnipcentral.client.resource.GnipUrl;
+import com.gnipcentral.client.resource.GnipValue;
+import com.gnipcentral.client.resource.MediaUrl;
+import com.gnipcentral.client.resource.Payload;
+import com.gnipcentral.client.resource.Place;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Builds the {@link Results} buckets used as benchmark input.  The data is generated from a fixed seed so that
+ * every run measures the same documents.  The header fields are left unset so the buckets can be marshalled.
+ */
+public final class BenchmarkData {
+
+    private static final String[] ACTIONS = {"post", "comment", "like", "share", "follow"};
+    private static final String[] SOURCES = {"web", "mobile", "api", "sms"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Create a bucket of activities with every field set.
+     * @param count the number of activities
+     * @param payloads whether the activities have payloads
+     * @return the bucket
+     */
+    public static Results results(int count, boolean payloads) {
+        Random random = new Random(42);
+        DateTime start = new DateTime(2009, 3, 1, 10, 0, 0, 0, DateTimeZone.UTC);
+        Results results = new Results();
+        for (int i = 0; i < count; i++) {
+            int actor = random.nextInt(500);
+            Activity activity = new Activity(start.plusMillis(i * 250), ACTIONS[random.nextInt(ACTIONS.length)]);
+            activity.setActivityID("tag:example.com,2009:" + i);
+            activity.setUrl("http://example.com/status/" + i);
+            activity.addSource(SOURCES[random.nextInt(SOURCES.length)]);
+            activity.addKeyword("keyword" + random.nextInt(50));
+            activity.addPlace(new Place(new double[] {40 + random.nextDouble(), -105 + random.nextDouble()}, null, null, null, "Boulder", null));
+            Actor author = new Actor("actor" + actor);
+            author.setUid("uid" + actor);
+            activity.addActor(author);
+            activity.addDestinationUrl(new GnipUrl("http://example.com/" + random.nextInt(1000)));
+            activity.addTag(new GnipValue("tag" + random.nextInt(20)));
+            activity.addTo(new GnipValue("to" + random.nextInt(100)));
+            activity.addRegardingUrl(new GnipUrl("http://example.com/regarding/" + random.nextInt(1000)));
+            if (payloads) {
+                Payload payload = new Payload("Title " + i, "Body of activity " + i + " with some text",
+                        "{\"id\":" + i + ",\"text\":\"raw payload text for activity " + i + "\"}");
+                payload.addMediaUrl(new MediaUrl("http://example.com/media/" + i + ".png", "640", "480", null, "image/png", "image"));
+                activity.setPayload(payload);
+            }
+            results.add(activity);
+        }
+        return results;
+    }
+}
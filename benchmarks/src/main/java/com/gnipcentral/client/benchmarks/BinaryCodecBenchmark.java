@@ -0,0 +1,79 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.resource.BinaryCodec;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Compares {@link BinaryCodec} with the JAXB XML path of {@link Translator} for encoding and decoding a bucket.
+ * The encoded sizes are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+
+    @Param({"10", "1000"})
+    public int activities;
+
+    @Param({"true", "false"})
+    public boolean payloads;
+
+    private Results results;
+    private byte[] binary;
+    private byte[] xml;
+
+    @Setup
+    public void setup() throws JAXBException {
+        results = BenchmarkData.results(activities, payloads);
+        binary = BinaryCodec.encode(results);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(results, output);
+        xml = output.toByteArray();
+        System.out.printf("%n%d activities: binary %d bytes, xml %d bytes%n", activities, binary.length, xml.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryCodec.encode(results);
+    }
+
+    @Benchmark
+    public Results decodeBinary() throws IOException {
+        return BinaryCodec.decodeResults(binary);
+    }
+
+    @Benchmark
+    public byte[] encodeXml() throws JAXBException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(xml.length);
+        Translator.marshall(results, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public Results decodeXml() throws JAXBException {
+        return Translator.parseResults(new ByteArrayInputStream(xml));
+    }
+}
@@ -0,0 +1,75 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.resource.ActivityField;
+import com.gnipcentral.client.resource.ParseOptions;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Measures parse throughput of a bucket as the {@link ParseOptions#setFields(java.util.Set) field mask} narrows,
+ * from every field down to <code>at</code> and <code>action</code> only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldProjectionBenchmark {
+
+    /**
+     * <code>all</code> parses every field, <code>noPayload</code> every field but the payload, <code>core</code>
+     * the activity ID and actors, and <code>minimal</code> only the required <code>at</code> and
+     * <code>action</code>.
+     */
+    @Param({"all", "noPayload", "core", "minimal"})
+    public String mask;
+
+    @Param({"1000"})
+    public int activities;
+
+    private byte[] xml;
+    private ParseOptions options;
+
+    @Setup
+    public void setup() throws JAXBException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(BenchmarkData.results(activities, true), output);
+        xml = output.toByteArray();
+
+        options = new ParseOptions();
+        if ("noPayload".equals(mask)) {
+            options.setFields(EnumSet.complementOf(EnumSet.of(ActivityField.PAYLOAD)));
+        } else if ("core".equals(mask)) {
+            options.setFields(EnumSet.of(ActivityField.ACTIVITY_ID, ActivityField.ACTOR));
+        } else if ("minimal".equals(mask)) {
+            options.setFields(EnumSet.noneOf(ActivityField.class));
+        } else if (!"all".equals(mask)) {
+            throw new IllegalArgumentException("Invalid mask specified '"+mask+"'");
+        }
+    }
+
+    @Benchmark
+    public Results parse() throws JAXBException {
+        return Translator.parseResults(new ByteArrayInputStream(xml), options);
+    }
+}
@@ -0,0 +1,64 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.metrics.Histogram;
+
+/**
+ * Measures the cost of recording a latency in a shared {@link Histogram}, alone and from four threads at once,
+ * which is the overhead the metrics add to each stage of a poll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistogramBenchmark {
+
+    private final Histogram histogram = new Histogram();
+    private long[] latencies;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        latencies = new long[1024];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = (long) Math.exp(random.nextDouble() * 20);
+        }
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        histogram.record(latencies[cursor.next++ & 1023]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Cursor cursor) {
+        histogram.record(latencies[cursor.next++ & 1023]);
+    }
+
+    @Benchmark
+    public long p99() {
+        return histogram.getP99();
+    }
+}
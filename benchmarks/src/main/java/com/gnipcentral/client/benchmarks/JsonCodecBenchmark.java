@@ -0,0 +1,70 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.JsonCodec;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Measures writing a bucket as newline-delimited JSON with {@link JsonCodec} and reading it back one activity
+ * at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    @Param({"10", "1000"})
+    public int activities;
+
+    @Param({"true", "false"})
+    public boolean payloads;
+
+    private final JsonCodec codec = new JsonCodec();
+    private Results results;
+    private String lines;
+
+    @Setup
+    public void setup() throws IOException {
+        results = BenchmarkData.results(activities, payloads);
+        StringWriter writer = new StringWriter();
+        codec.writeLines(results, writer);
+        lines = writer.toString();
+    }
+
+    @Benchmark
+    public String writeLines() throws IOException {
+        StringWriter writer = new StringWriter(lines.length());
+        codec.writeLines(results, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public void readLines(Blackhole blackhole) throws IOException {
+        StringReader reader = new StringReader(lines);
+        Activity activity;
+        while ((activity = codec.readActivity(reader)) != null) {
+            blackhole.consume(activity);
+        }
+    }
+}
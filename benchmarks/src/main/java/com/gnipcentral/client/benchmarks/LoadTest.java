@@ -0,0 +1,258 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gnipcentral.client.Config;
+import com.gnipcentral.client.GnipConnection;
+import com.gnipcentral.client.GnipException;
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.Histogram;
+import com.gnipcentral.client.metrics.MetricsRegistry;
+import com.gnipcentral.client.metrics.Stage;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * An end-to-end load test that runs {@link GnipConnection} pollers against a {@link StubGnipServer} in the same
+ * process and reports the poll throughput, the latency percentiles of a poll and of each of its stages, and the
+ * memory the pollers allocated and retained.  Each poller polls its own chain of buckets in a loop without pausing.
+ * <br/>
+ * <br/>
+ * The test is configured with <code>name=value</code> arguments, for example:
+ * <pre>
+ *   java -cp target/benchmarks.jar com.gnipcentral.client.benchmarks.LoadTest pollers=32 seconds=60 latency=5
+ * </pre>
+ * <ul>
+ * <li><code>pollers</code>, the number of polling threads, default <code>16</code></li>
+ * <li><code>seconds</code>, how long to measure for after a warm-up of a fifth as long, default <code>30</code></li>
+ * <li><code>activities</code>, the number of activities in a bucket, made by an {@link ActivityGenerator},
+ * default <code>100</code></li>
+ * <li><code>payloads</code>, whether the activities have payloads, default <code>true</code></li>
+ * <li><code>gzip</code>, whether the pollers ask for compressed responses, default <code>true</code></li>
+ * <li><code>latency</code>, the server's latency in milliseconds, default <code>0</code></li>
+ * <li><code>errors</code>, the fraction of requests the server fails, default <code>0</code></li>
+ * <li><code>validate</code>, whether the pollers validate the buckets against the Gnip schema, default
+ * <code>false</code>; the stub server's buckets end with the <code>refreshURL</code> element the pollers follow,
+ * which the schema does not allow</li>
+ * <li><code>replay</code>, an archive recorded by an {@link com.gnipcentral.client.store.ExchangeRecorder} to
+ * serve from a {@link ReplayServer} instead, which ignores the settings of the stub server; each poller follows the
+ * recorded chain of buckets until it leaves the archive or has failed on a bucket as often as it was recorded, so
+ * the test ends early when the recording is used up</li>
+ * <li><code>timing</code>, <code>original</code> or <code>fast</code>, how fast a recording is replayed, default
+ * <code>fast</code></li>
+ * </ul>
+ * The server shares the machine with the pollers, so the results are comparable between runs on the same machine
+ * rather than a prediction of production throughput.
+ */
+public final class LoadTest {
+
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "loadtest";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int pollers = Integer.parseInt(option(options, "pollers", "16"));
+        long seconds = Long.parseLong(option(options, "seconds", "30"));
+        int activities = Integer.parseInt(option(options, "activities", "100"));
+        boolean payloads = Boolean.parseBoolean(option(options, "payloads", "true"));
+        boolean gzip = Boolean.parseBoolean(option(options, "gzip", "true"));
+        Translator.setValidate(Boolean.parseBoolean(option(options, "validate", "false")));
+
+        String replay = options.get("replay");
+        if (replay != null) {
+            ReplayServer server = new ReplayServer(new File(replay),
+                    ReplayServer.Timing.valueOf(option(options, "timing", "fast").toUpperCase()));
+            server.start();
+            try {
+                System.out.printf("Replaying %d exchanges to %d pollers for up to %d seconds%n",
+                        server.getExchangeCount(), pollers, seconds);
+                long start = System.nanoTime();
+                Run run = run(server.getUrl(), server, pollers, seconds, gzip);
+                run.report((System.nanoTime() - start) / 1e9, true);
+            } finally {
+                server.stop();
+            }
+            return;
+        }
+
+        StubGnipServer server = new StubGnipServer(USERNAME, PASSWORD);
+        ActivityGenerator generator = new ActivityGenerator(42);
+        if (!payloads) {
+            generator.setPayloadRate(0);
+        }
+        server.setResults(generator.nextResults(activities));
+        server.setLatencyMillis(Long.parseLong(option(options, "latency", "0")));
+        server.setErrorRate(Double.parseDouble(option(options, "errors", "0")));
+        server.start();
+        try {
+            System.out.printf("Warming up %d pollers for %d seconds%n", pollers, Math.max(1, seconds / 5));
+            run(server.getUrl(), null, pollers, Math.max(1, seconds / 5), gzip).report(Math.max(1, seconds / 5), false);
+            System.gc();
+            System.out.printf("Measuring %d pollers for %d seconds%n", pollers, seconds);
+            run(server.getUrl(), null, pollers, seconds, gzip).report(seconds, true);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Run run(String url, final ReplayServer replay, int pollers, long seconds, boolean gzip) throws Exception {
+        final Run run = new Run();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final CountDownLatch done = new CountDownLatch(pollers);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < pollers; i++) {
+            final Config config = new Config(USERNAME, PASSWORD, new URL(url));
+            config.setUseGzip(gzip);
+            config.setMetrics(run.metrics);
+            final GnipConnection connection = new GnipConnection(config);
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    long allocated = Run.allocatedBytes();
+                    int failures = 0;
+                    try {
+                        while (System.nanoTime() < deadline
+                                && (replay == null || failures < replay.getResponseCount(config.getCurrentGnipUrl()))) {
+                            long start = System.nanoTime();
+                            try {
+                                Results results = connection.getActivities();
+                                run.latency.record(System.nanoTime() - start);
+                                run.activities.addAndGet(results.getActivities() != null ? results.getActivities().size() : 0);
+                                failures = 0;
+                            } catch (GnipException e) {
+                                run.errors.incrementAndGet();
+                                failures++;
+                            }
+                        }
+                    } finally {
+                        run.allocated.addAndGet(Run.allocatedBytes() - allocated);
+                        done.countDown();
+                    }
+                }
+            }, "gnip-load-poller-" + i));
+        }
+
+        run.begin();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        done.await();
+        run.end();
+        return run;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid argument specified '"+arg+"'");
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * The measurements of one run of the pollers.
+     */
+    private static final class Run {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final boolean ALLOCATION_SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean;
+
+        final MetricsRegistry metrics = new MetricsRegistry();
+        final Histogram latency = new Histogram();
+        final AtomicLong activities = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong allocated = new AtomicLong();
+        private long gcCount;
+        private long gcMillis;
+
+        void begin() {
+            gcCount = -gcCount();
+            gcMillis = -gcMillis();
+        }
+
+        void end() {
+            gcCount += gcCount();
+            gcMillis += gcMillis();
+        }
+
+        void report(double seconds, boolean detail) {
+            long polls = latency.getCount();
+            System.out.printf("  polls       %d (%.1f/s), %d errors%n", polls, polls / seconds, errors.get());
+            System.out.printf("  activities  %d (%.1f/s)%n", activities.get(), activities.get() / seconds);
+            System.out.printf("  poll ms     %s%n", millis(latency));
+            if (!detail) {
+                return;
+            }
+
+            for (EndpointMetrics endpoint : metrics.getEndpoints().values()) {
+                for (Stage stage : Stage.values()) {
+                    Histogram histogram = endpoint.getLatency(stage);
+                    if (histogram.getCount() > 0) {
+                        System.out.printf("  %-12s%s%n", stage.getName() + " ms ", millis(histogram));
+                    }
+                }
+            }
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            if (ALLOCATION_SUPPORTED) {
+                long bytes = allocated.get();
+                System.out.printf("  allocated   %d MB, %d KB per poll%n", bytes >> 20, polls > 0 ? (bytes / polls) >> 10 : 0);
+            }
+            System.out.printf("  gc          %d collections, %d ms%n", gcCount, gcMillis);
+            System.out.printf("  heap used   %d MB after a full collection%n", memory.getHeapMemoryUsage().getUsed() >> 20);
+        }
+
+        /**
+         * Retrieves the bytes the calling thread has allocated, where the JVM counts them.
+         */
+        static long allocatedBytes() {
+            return ALLOCATION_SUPPORTED
+                    ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                    : 0;
+        }
+
+        private static String millis(Histogram histogram) {
+            return String.format("p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f", histogram.getP50() / 1e6,
+                    histogram.getP90() / 1e6, histogram.getP99() / 1e6, histogram.getP999() / 1e6, histogram.getMax() / 1e6);
+        }
+
+        private static long gcCount() {
+            long count = 0;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, bean.getCollectionCount());
+            }
+            return count;
+        }
+
+        private static long gcMillis() {
+            long millis = 0;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                millis += Math.max(0, bean.getCollectionTime());
+            }
+            return millis;
+        }
+    }
+}
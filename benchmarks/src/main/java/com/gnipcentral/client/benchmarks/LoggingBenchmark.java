@@ -0,0 +1,79 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.util.AsyncLogger;
+import com.gnipcentral.client.util.Logger;
+import com.gnipcentral.client.util.LoggerFactory;
+
+/**
+ * Measures the cost of a log call on the request path: a disabled message through the fixed-arity and varargs
+ * overloads, and an enabled message handed to an {@link AsyncLogger} whose appender discards it.  Run with
+ * <code>-prof gc</code> to see the allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private final String url = "https://api-v21.gnip.com/publishers/twitter/notification/current.xml";
+    private Logger disabled;
+    private AsyncLogger async;
+
+    @Setup
+    public void setup() {
+        disabled = LoggerFactory.getInstance();
+        async = new AsyncLogger(new DiscardingLogger());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        async.close(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void disabledFixedArity() {
+        disabled.log(Logger.Level.DEBUG, "HTTP GET to %s\n", url);
+    }
+
+    @Benchmark
+    public void disabledVarargs() {
+        disabled.log("HTTP GET to %s\n", url);
+    }
+
+    @Benchmark
+    public void asyncEnabled() {
+        async.log(Logger.Level.INFO, "HTTP GET to %s\n", url);
+    }
+
+    /**
+     * Enables every level and drops the messages, so the benchmark measures the hand-off alone.
+     */
+    public static final class DiscardingLogger extends Logger {
+
+        @Override
+        public boolean isEnabled(Level level) {
+            return true;
+        }
+
+        @Override
+        protected void write(Level level, Object message, Object[] args) {
+            // discard
+        }
+    }
+}
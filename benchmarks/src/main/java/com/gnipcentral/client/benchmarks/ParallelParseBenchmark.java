@@ -0,0 +1,70 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Compares parsing a large bucket on one thread with splitting it between its activities and parsing the parts on
+ * a pool of <code>threads</code> threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    @Param({"20000"})
+    public int activities;
+
+    @Param({"2", "4", "8", "16", "32"})
+    public int threads;
+
+    private byte[] xml;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() throws JAXBException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(BenchmarkData.results(activities, true), output);
+        xml = output.toByteArray();
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Results sequential() throws JAXBException {
+        return Translator.parseResults(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Results parallel() throws JAXBException {
+        return Translator.parseResults(xml, null, executor);
+    }
+}
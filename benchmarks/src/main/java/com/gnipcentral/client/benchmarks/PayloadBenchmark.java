@@ -0,0 +1,88 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.resource.Payload;
+
+/**
+ * Measures the gzip and Base64 encoding of a {@link Payload}'s raw data when the payload is created, and the
+ * decoding in {@link Payload#getDecodedRaw()}, for raw data of <code>size</code> characters.  <code>content</code>
+ * selects JSON-like text built from a small vocabulary, which compresses well, or random printable characters,
+ * which gzip can barely shrink.  The encoded sizes are printed during setup.  Run with <code>-prof gc</code> to
+ * see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "gnip",
+            "activity", "status", "update", "posted", "from", "boulder", "colorado"};
+
+    @Param({"200", "4096", "65536", "1048576"})
+    public int size;
+
+    @Param({"compressible", "incompressible"})
+    public String content;
+
+    private String raw;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        raw = "compressible".equals(content) ? compressible(size) : incompressible(size);
+        encoded = new Payload(null, null, raw).getRaw();
+        System.out.printf("%n%d characters of %s content: %d characters encoded%n", size, content, encoded.length());
+    }
+
+    @Benchmark
+    public Payload encode() {
+        return new Payload(null, null, raw);
+    }
+
+    @Benchmark
+    public String decode() {
+        // a new payload each time, as the decoded value is cached
+        return new Payload(null, null, encoded, true).getDecodedRaw();
+    }
+
+    private static String compressible(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 64);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"id\":").append(i).append(",\"text\":\"");
+            for (int j = random.nextInt(8) + 4; j > 0; j--) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            sb.append("\"},");
+        }
+        sb.setLength(size);
+        return sb.toString();
+    }
+
+    private static String incompressible(int size) {
+        // printable ASCII only, so the raw data survives the library's platform-charset round trip unchanged
+        Random random = new Random(42);
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) (' ' + random.nextInt('~' - ' ' + 1));
+        }
+        return new String(chars);
+    }
+}
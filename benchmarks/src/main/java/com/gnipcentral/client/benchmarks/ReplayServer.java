@@ -0,0 +1,331 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import com.gnipcentral.client.store.Exchange;
+import com.gnipcentral.client.store.ExchangeReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the exchanges of an archive written by an {@link com.gnipcentral.client.store.ExchangeRecorder} to
+ * clients in the same or another process, so recorded production traffic can be replayed against a new build of
+ * the client.  A request is answered with the recorded response for the same path and query, including its status,
+ * its headers and its body as it was sent; a path recorded several times is answered with each of its responses in
+ * turn.  Paths that were not recorded are answered with <code>404</code>.
+ * <br/>
+ * <br/>
+ * The recorded server's address is replaced by the replay server's in the response bodies when the archive is
+ * loaded, so a client that follows <code>refreshURL</code>s stays on the replay server.  With
+ * {@link Timing#ORIGINAL} timing, a response is sent no sooner than its recorded duration after the request
+ * arrives, and no sooner after the first request than it was completed after the first recorded request, so the
+ * client sees the recorded latencies and cannot run ahead of the recorded traffic.  With {@link Timing#FAST}
+ * timing, responses are sent as soon as possible.
+ * <br/>
+ * <br/>
+ * The server can also be run on its own:
+ * <pre>
+ *   java -cp target/benchmarks.jar com.gnipcentral.client.benchmarks.ReplayServer incident.gnipx original
+ * </pre>
+ * This class is thread-safe.
+ */
+public class ReplayServer {
+
+    /**
+     * How fast the recorded responses are served.
+     */
+    public enum Timing {
+        ORIGINAL, FAST
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Set<String> SKIPPED_HEADERS = new LinkedHashSet<String>();
+
+    static {
+        // framing headers describe the recorded connection and are set again by the server
+        for (String name : new String[] {"Content-Length", "Transfer-Encoding", "Connection", "Keep-Alive"}) {
+            SKIPPED_HEADERS.add(name.toLowerCase());
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Timing timing;
+    private final Map<String, Responses> responses = new HashMap<String, Responses>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong firstRequestNanos = new AtomicLong();
+    private final String firstPath;
+    private final int exchangeCount;
+
+    /**
+     * Load an archive into a server on an ephemeral port of the loopback interface.  The server must be
+     * {@link #start() started}.
+     * @param archive the archive file
+     * @param timing how fast the responses are served
+     * @throws IOException if the archive cannot be read or the server cannot be bound
+     */
+    public ReplayServer(File archive, Timing timing) throws IOException {
+        if (timing == null) {
+            throw new IllegalArgumentException("Invalid timing specified '"+timing+"'");
+        }
+
+        this.timing = timing;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", new ReplayHandler());
+
+        List<Exchange> exchanges = new ArrayList<Exchange>();
+        ExchangeReader reader = new ExchangeReader(archive);
+        try {
+            while (reader.next()) {
+                exchanges.add(reader.getExchange());
+            }
+        } finally {
+            reader.close();
+        }
+        if (exchanges.isEmpty()) {
+            throw new IOException("No exchanges in archive " + archive);
+        }
+
+        Set<String> origins = new LinkedHashSet<String>();
+        for (Exchange exchange : exchanges) {
+            origins.add(originOf(exchange.getUrl()));
+        }
+        long firstStart = exchanges.get(0).getStartMillis();
+        for (Exchange exchange : exchanges) {
+            String path = pathOf(exchange.getUrl());
+            Responses list = responses.get(path);
+            if (list == null) {
+                responses.put(path, list = new Responses());
+            }
+            long completed = TimeUnit.MILLISECONDS.toNanos(exchange.getStartMillis() - firstStart) + exchange.getDurationNanos();
+            list.add(new Response(exchange, completed, rewrite(exchange, origins, getBaseUrl())));
+        }
+        this.firstPath = pathOf(exchanges.get(0).getUrl());
+        this.exchangeCount = exchanges.size();
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop serving requests, waiting up to a second for requests in progress.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retrieves the URL of the first recorded request on this server, which a
+     * {@link com.gnipcentral.client.Config} should use as its server URL.
+     * @return the URL
+     */
+    public String getUrl() {
+        return getBaseUrl() + firstPath;
+    }
+
+    /**
+     * Retrieves the number of responses the archive holds for a URL on this server.
+     * @param url the URL
+     * @return the number of responses recorded for the URL's path and query, which is <code>0</code> if there are none
+     */
+    public int getResponseCount(String url) {
+        Responses list = responses.get(pathOf(url));
+        return list != null ? list.size() : 0;
+    }
+
+    /**
+     * Retrieves the number of exchanges loaded from the archive.
+     * @return the exchange count
+     */
+    public int getExchangeCount() {
+        return exchangeCount;
+    }
+
+    /**
+     * Retrieves the number of requests received.
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static String originOf(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    private static String pathOf(String url) {
+        URI uri = URI.create(url);
+        String path = uri.getRawPath() != null && uri.getRawPath().length() > 0 ? uri.getRawPath() : "/";
+        return uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path;
+    }
+
+    /**
+     * Replace the recorded origins in a body with the replay server's, inflating and compressing it again if it
+     * was sent compressed.
+     */
+    private static byte[] rewrite(Exchange exchange, Set<String> origins, String baseUrl) throws IOException {
+        byte[] body = exchange.getBody();
+        if (body.length == 0) {
+            return body;
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(header(exchange.getResponseHeaders(), "Content-Encoding"));
+        String text = new String(gzip ? IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(body))) : body, UTF_8);
+        String rewritten = text;
+        for (String origin : origins) {
+            rewritten = rewritten.replace(origin, baseUrl);
+        }
+        if (rewritten.equals(text)) {
+            return body;
+        }
+        byte[] bytes = rewritten.getBytes(UTF_8);
+        if (!gzip) {
+            return bytes;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(body.length + 64);
+        GZIPOutputStream compressed = new GZIPOutputStream(output);
+        compressed.write(bytes);
+        compressed.close();
+        return output.toByteArray();
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ReplayServer <archive> [original|fast]");
+            System.exit(1);
+        }
+        Timing timing = args.length > 1 ? Timing.valueOf(args[1].toUpperCase()) : Timing.ORIGINAL;
+        ReplayServer server = new ReplayServer(new File(args[0]), timing);
+        server.start();
+        System.out.printf("Replaying %d exchanges with %s timing at %s%n", server.getExchangeCount(),
+                timing.name().toLowerCase(), server.getUrl());
+    }
+
+    /**
+     * A recorded response prepared for serving.
+     */
+    private static final class Response {
+
+        final int status;
+        final Map<String, String> headers;
+        final byte[] body;
+        final long durationNanos;
+        final long completedNanos;
+
+        Response(Exchange exchange, long completedNanos, byte[] body) {
+            this.status = exchange.getStatus();
+            this.headers = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, String> header : exchange.getResponseHeaders().entrySet()) {
+                if (!SKIPPED_HEADERS.contains(header.getKey().toLowerCase())) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+            this.body = body;
+            this.durationNanos = exchange.getDurationNanos();
+            this.completedNanos = completedNanos;
+        }
+    }
+
+    /**
+     * The responses recorded for one path, served in turn.
+     */
+    private static final class Responses {
+
+        private final List<Response> list = new ArrayList<Response>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        void add(Response response) {
+            list.add(response);
+        }
+
+        int size() {
+            return list.size();
+        }
+
+        Response next() {
+            return list.get((next.getAndIncrement() & Integer.MAX_VALUE) % list.size());
+        }
+    }
+
+    private final class ReplayHandler implements HttpHandler {
+
+        public void handle(HttpExchange exchange) throws IOException {
+            long arrived = System.nanoTime();
+            try {
+                requestCount.incrementAndGet();
+                firstRequestNanos.compareAndSet(0, arrived);
+                Responses list = responses.get(pathOf(exchange.getRequestURI().toString()));
+                if (list == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+
+                Response response = list.next();
+                if (timing == Timing.ORIGINAL) {
+                    long sendAt = Math.max(firstRequestNanos.get() + response.completedNanos, arrived + response.durationNanos);
+                    long wait = sendAt - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+
+                for (Map.Entry<String, String> header : response.headers.entrySet()) {
+                    exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+                }
+                exchange.sendResponseHeaders(response.status, response.body.length > 0 ? response.body.length : -1);
+                if (response.body.length > 0) {
+                    OutputStream body = exchange.getResponseBody();
+                    body.write(response.body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
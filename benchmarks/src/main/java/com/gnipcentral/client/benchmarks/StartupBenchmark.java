@@ -0,0 +1,60 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Measures the time from a fresh JVM to the first parsed {@link Results}, including loading the
+ * {@link Translator} and building whatever it needs.  Each fork takes a single measurement, so the score is the
+ * cold-start cost averaged over the forks.  The document is built by hand so that setup does not touch the
+ * {@link Translator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private static final String RESULTS =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<results>"
+            + "<activity><at>2009-03-01T10:00:00.000Z</at><action>post</action><activityID>1</activityID>"
+            + "<actor uid=\"1\">actor</actor><tag>tag</tag></activity>"
+            + "</results>";
+
+    @Param({"generated", "jaxb"})
+    public String codec;
+
+    private byte[] xml;
+
+    @Setup
+    public void setup() throws UnsupportedEncodingException {
+        xml = RESULTS.getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public Results firstResults() throws JAXBException {
+        Translator.setUseJaxb("jaxb".equals(codec));
+        return Translator.parseResults(new ByteArrayInputStream(xml));
+    }
+}
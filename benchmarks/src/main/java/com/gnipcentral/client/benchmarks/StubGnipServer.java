@@ -0,0 +1,271 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.commons.codec.binary.Base64;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stand-in for a Gnip server, for end-to-end tests that need no network access or Gnip account.  It
+ * serves the notification stream of one publisher at {@link #getUrl()}: every bucket holds the same synthetic
+ * {@link Results} and names the next minute's bucket as its <code>refreshURL</code>, so a
+ * {@link com.gnipcentral.client.GnipConnection} polls an endless chain of buckets.
+ * <br/>
+ * <br/>
+ * Requests must carry the configured basic authentication credentials and are answered with <code>401</code>
+ * otherwise.  Responses are gzip compressed when the request accepts it.  Each response can be delayed by a fixed
+ * latency, and a fraction of requests can be failed with <code>503</code>.  The document is encoded and compressed
+ * once, so the server uses little of the CPU it shares with the client under test.  The settings can be changed
+ * while the server is running.  This class is thread-safe.
+ */
+public class StubGnipServer {
+
+    public static final String PUBLISHER = "stub";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormat.forPattern("yyyyMMddHHmm").withZone(DateTimeZone.UTC);
+
+    private final String authorization;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private volatile Document document;
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+
+    /**
+     * Create a server on an ephemeral port of the loopback interface that serves buckets of
+     * {@link BenchmarkData#results(int, boolean) 100 activities with payloads}.  The server must be
+     * {@link #start() started}.
+     * @param username the username requests must authenticate with
+     * @param password the password requests must authenticate with
+     * @throws IOException if the server cannot be bound
+     */
+    public StubGnipServer(String username, String password) throws IOException {
+        this.authorization = "Basic " + new String(Base64.encodeBase64((username + ":" + password).getBytes(UTF_8)), UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/publishers/" + PUBLISHER + "/notification/", new BucketHandler());
+        setResults(BenchmarkData.results(100, true));
+    }
+
+    /**
+     * Set the activities every bucket holds.
+     * @param results the bucket; its <code>refreshURL</code> is replaced by the next bucket's
+     */
+    public void setResults(Results results) {
+        if (results == null) {
+            throw new IllegalArgumentException("Invalid results specified '"+results+"'");
+        }
+        document = new Document(results);
+    }
+
+    /**
+     * Set the time every response is delayed by.
+     * @param latencyMillis the latency in milliseconds
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        if (latencyMillis < 0) {
+            throw new IllegalArgumentException("Invalid latency specified '"+latencyMillis+"'");
+        }
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Set the fraction of requests that fail with <code>503 Service Unavailable</code>.
+     * @param errorRate the fraction, from <code>0</code> to <code>1</code>
+     */
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Invalid error rate specified '"+errorRate+"'");
+        }
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop serving requests, waiting up to a second for requests in progress.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retrieves the URL of the current bucket, which a {@link com.gnipcentral.client.Config} should use as its
+     * server URL.
+     * @return the URL
+     */
+    public String getUrl() {
+        return getBaseUrl() + "current.xml";
+    }
+
+    /**
+     * Retrieves the number of requests received, including failed ones.
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Retrieves the number of requests failed on purpose or for bad credentials.
+     * @return the error count
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    private String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/publishers/" + PUBLISHER + "/notification/";
+    }
+
+    private final class BucketHandler implements HttpHandler {
+
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                requestCount.incrementAndGet();
+                if (!authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                    errorCount.incrementAndGet();
+                    exchange.sendResponseHeaders(401, -1);
+                    return;
+                }
+                String bucket = bucketOf(exchange.getRequestURI().getPath());
+                if (bucket == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+
+                long latency = latencyMillis;
+                if (latency > 0) {
+                    TimeUnit.MILLISECONDS.sleep(latency);
+                }
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    errorCount.incrementAndGet();
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+
+                DateTime time = "current".equals(bucket)
+                        ? new DateTime(DateTimeZone.UTC).withSecondOfMinute(0).withMillisOfSecond(0)
+                        : BUCKET_FORMAT.parseDateTime(bucket);
+                String refreshUrl = getBaseUrl() + BUCKET_FORMAT.print(time.plusMinutes(1)) + ".xml";
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+                byte[][] parts = document.render(refreshUrl, gzip);
+
+                int length = 0;
+                for (byte[] part : parts) {
+                    length += part.length;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/xml");
+                if (gzip) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, length);
+                OutputStream body = exchange.getResponseBody();
+                for (byte[] part : parts) {
+                    body.write(part);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IllegalArgumentException e) {
+                exchange.sendResponseHeaders(404, -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private String bucketOf(String path) {
+            int start = path.lastIndexOf('/') + 1;
+            if (!path.endsWith(".xml") || start >= path.length() - 4) {
+                return null;
+            }
+            return path.substring(start, path.length() - 4);
+        }
+    }
+
+    /**
+     * A marshalled bucket split around its <code>refreshURL</code>, kept both plain and as gzip members.  The Gnip
+     * schema has no <code>refreshURL</code> element, so the bucket is marshalled without it and the element is
+     * added after its activities, where the client reads it.  A gzip
+     * stream may hold several members one after the other, so a compressed response is the compressed prefix, the
+     * compressed URL and the compressed suffix, and only the URL is compressed per request.
+     */
+    private static final class Document {
+
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final byte[] gzipPrefix;
+        private final byte[] gzipSuffix;
+
+        Document(Results results) {
+            Results bucket = new Results();
+            bucket.setActivities(results.getActivities());
+            String xml;
+            try {
+                xml = Translator.marshall(bucket);
+            } catch (JAXBException e) {
+                throw new IllegalArgumentException("Unable to marshall results", e);
+            }
+            int index = xml.lastIndexOf("</results>");
+            if (index < 0) {
+                // an empty bucket marshalled as <results/>
+                index = xml.lastIndexOf("/>");
+                xml = xml.substring(0, index) + "></results>";
+            }
+            prefix = (xml.substring(0, index) + "<refreshURL>").getBytes(UTF_8);
+            suffix = ("</refreshURL>" + xml.substring(index)).getBytes(UTF_8);
+            gzipPrefix = gzip(prefix);
+            gzipSuffix = gzip(suffix);
+        }
+
+        byte[][] render(String refreshUrl, boolean gzip) {
+            byte[] url = refreshUrl.getBytes(UTF_8);
+            return gzip
+                    ? new byte[][] {gzipPrefix, gzip(url), gzipSuffix}
+                    : new byte[][] {prefix, url, suffix};
+        }
+
+        private static byte[] gzip(byte[] data) {
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4 + 32);
+                GZIPOutputStream gzip = new GZIPOutputStream(output);
+                gzip.write(data);
+                gzip.close();
+                return output.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to compress the bucket", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.gnipcentral.client.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Measures {@link Translator#parseResults(java.io.InputStream)} and
+ * {@link Translator#marshall(Object, java.io.OutputStream)} on buckets of several sizes, with and without payloads.
+ * <code>codec</code> selects the implementation:
+ * <ul>
+ * <li><code>generated</code>, the dedicated readers and writers with Gnip schema validation, the default</li>
+ * <li><code>generated-unvalidated</code>, the same readers and writers with {@link Translator#setValidate(boolean)
+ * validation turned off}</li>
+ * <li><code>jaxb</code>, the reflective JAXB binding with Gnip schema validation that the {@link Translator} falls
+ * back to</li>
+ * <li><code>jaxb-unvalidated</code>, the same binding without a schema</li>
+ * </ul>
+ * Comparing each implementation with and without validation tells the cost of validation apart from the cost of
+ * the binding.  Run with <code>-prof gc</code>, or through {@link #main(String[])}, to report the allocation per operation
+ * alongside the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlCodecBenchmark {
+
+    @Param({"generated", "generated-unvalidated", "jaxb", "jaxb-unvalidated"})
+    public String codec;
+
+    @Param({"1", "100", "10000"})
+    public int activities;
+
+    @Param({"true", "false"})
+    public boolean payloads;
+
+    private Results results;
+    private byte[] xml;
+    private JAXBContext unvalidated;
+
+    @Setup
+    public void setup() throws JAXBException {
+        Translator.setUseJaxb("jaxb".equals(codec));
+        Translator.setValidate(!"generated-unvalidated".equals(codec));
+        if ("jaxb-unvalidated".equals(codec)) {
+            unvalidated = JAXBContext.newInstance(Results.class);
+        }
+        results = BenchmarkData.results(activities, payloads);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(results, output);
+        xml = output.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Translator.setUseJaxb(false);
+        Translator.setValidate(true);
+    }
+
+    @Benchmark
+    public Results parse() throws JAXBException {
+        if (unvalidated != null) {
+            Unmarshaller unmarshaller = unvalidated.createUnmarshaller();
+            return (Results) unmarshaller.unmarshal(new ByteArrayInputStream(xml));
+        }
+        return Translator.parseResults(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public byte[] marshall() throws JAXBException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(xml.length);
+        if (unvalidated != null) {
+            Marshaller marshaller = unvalidated.createMarshaller();
+            marshaller.marshal(results, output);
+        } else {
+            Translator.marshall(results, output);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Run this benchmark with the GC profiler.
+     * @param args not used
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
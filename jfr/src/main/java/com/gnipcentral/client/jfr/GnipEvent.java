@@ -0,0 +1,29 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+
+/**
+ * Base class of the client library's Flight Recorder events.  A {@link JfrSpan} passes every field the library
+ * sets on its {@link com.gnipcentral.client.util.TraceSpan} to the event, and each event keeps the fields that
+ * apply to it.
+ */
+@Category({"Gnip Client"})
+abstract class GnipEvent extends Event {
+
+    void setUrl(String url) {
+        // not recorded
+    }
+
+    void setByteCount(long byteCount) {
+        // not recorded
+    }
+
+    void setActivityCount(int activityCount) {
+        // not recorded
+    }
+
+    void setGzip(boolean gzip) {
+        // not recorded
+    }
+}
@@ -0,0 +1,42 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An HTTP GET with {@link com.gnipcentral.client.util.HTTPConnection#doGet(String)}.
+ */
+@Name("com.gnipcentral.client.HttpGet")
+@Label("HTTP GET")
+@Description("Connecting, reading and inflating a response")
+final class HttpGetEvent extends GnipEvent {
+
+    @Label("URL")
+    String url;
+
+    @Label("Bytes")
+    @Description("Size of the response body as it was sent, before it was inflated")
+    @DataAmount
+    long byteCount;
+
+    @Label("Gzip")
+    @Description("Whether the response was gzip compressed")
+    boolean gzip;
+
+    @Override
+    void setUrl(String url) {
+        this.url = url;
+    }
+
+    @Override
+    void setByteCount(long byteCount) {
+        this.byteCount = byteCount;
+    }
+
+    @Override
+    void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+}
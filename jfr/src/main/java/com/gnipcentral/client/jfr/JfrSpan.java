@@ -0,0 +1,45 @@
+package com.gnipcentral.client.jfr;
+
+import com.gnipcentral.client.util.TraceSpan;
+
+/**
+ * A {@link TraceSpan} backed by a Flight Recorder event, which begins when the span is created.  This class is
+ * not intended for external use.
+ */
+final class JfrSpan extends TraceSpan {
+
+    private final GnipEvent event;
+
+    JfrSpan(GnipEvent event) {
+        this.event = event;
+        event.begin();
+    }
+
+    @Override
+    public void setUrl(String url) {
+        event.setUrl(url);
+    }
+
+    @Override
+    public void setByteCount(long byteCount) {
+        event.setByteCount(byteCount);
+    }
+
+    @Override
+    public void setActivityCount(int activityCount) {
+        event.setActivityCount(activityCount);
+    }
+
+    @Override
+    public void setGzip(boolean gzip) {
+        event.setGzip(gzip);
+    }
+
+    @Override
+    public void end() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.EventType;
+
+import com.gnipcentral.client.util.TraceEvent;
+import com.gnipcentral.client.util.TraceSpan;
+import com.gnipcentral.client.util.Tracer;
+
+/**
+ * A {@link Tracer} that records each {@link TraceEvent} as a Java Flight Recorder event.  It is registered with
+ * <code>META-INF/services</code> and is found by {@link com.gnipcentral.client.util.TracerFactory} when this
+ * module's JAR is on the classpath.
+ * <br/>
+ * <br/>
+ * When no running recording enables an event, {@link #begin(TraceEvent)} reads the event type's enabled flag and
+ * returns <code>null</code>, so the library neither creates an event nor reads the clock.  This class is
+ * thread-safe.
+ */
+public class JfrTracer extends Tracer {
+
+    private static final EventType POLL = EventType.getEventType(PollEvent.class);
+    private static final EventType HTTP_GET = EventType.getEventType(HttpGetEvent.class);
+    private static final EventType PARSE = EventType.getEventType(ParseEvent.class);
+    private static final EventType PAYLOAD_ENCODE = EventType.getEventType(PayloadEncodeEvent.class);
+    private static final EventType PAYLOAD_DECODE = EventType.getEventType(PayloadDecodeEvent.class);
+
+    @Override
+    public TraceSpan begin(TraceEvent event) {
+        switch (event) {
+            case POLL:
+                return POLL.isEnabled() ? new JfrSpan(new PollEvent()) : null;
+            case HTTP_GET:
+                return HTTP_GET.isEnabled() ? new JfrSpan(new HttpGetEvent()) : null;
+            case PARSE:
+                return PARSE.isEnabled() ? new JfrSpan(new ParseEvent()) : null;
+            case PAYLOAD_ENCODE:
+                return PAYLOAD_ENCODE.isEnabled() ? new JfrSpan(new PayloadEncodeEvent()) : null;
+            case PAYLOAD_DECODE:
+                return PAYLOAD_DECODE.isEnabled() ? new JfrSpan(new PayloadDecodeEvent()) : null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Parsing a document with {@link com.gnipcentral.client.resource.Translator}.
+ */
+@Name("com.gnipcentral.client.Parse")
+@Label("Parse")
+@Description("Parsing a document of activities")
+final class ParseEvent extends GnipEvent {
+
+    @Label("Bytes")
+    @Description("Size of the document, when it was parsed from a byte array")
+    @DataAmount
+    long byteCount;
+
+    @Label("Activities")
+    int activityCount;
+
+    @Override
+    void setByteCount(long byteCount) {
+        this.byteCount = byteCount;
+    }
+
+    @Override
+    void setActivityCount(int activityCount) {
+        this.activityCount = activityCount;
+    }
+}
@@ -0,0 +1,25 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Base64 decoding and inflating the raw data of a {@link com.gnipcentral.client.resource.Payload}.
+ */
+@Name("com.gnipcentral.client.PayloadDecode")
+@Label("Payload Decode")
+@Description("Base64 decoding and inflating a payload's raw data")
+final class PayloadDecodeEvent extends GnipEvent {
+
+    @Label("Bytes")
+    @Description("Length of the Base64 encoded raw data")
+    @DataAmount
+    long byteCount;
+
+    @Override
+    void setByteCount(long byteCount) {
+        this.byteCount = byteCount;
+    }
+}
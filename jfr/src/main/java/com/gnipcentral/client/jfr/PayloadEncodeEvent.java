@@ -0,0 +1,25 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Compressing and Base64 encoding the raw data of a {@link com.gnipcentral.client.resource.Payload}.
+ */
+@Name("com.gnipcentral.client.PayloadEncode")
+@Label("Payload Encode")
+@Description("Compressing and Base64 encoding a payload's raw data")
+final class PayloadEncodeEvent extends GnipEvent {
+
+    @Label("Bytes")
+    @Description("Length of the Base64 encoded raw data")
+    @DataAmount
+    long byteCount;
+
+    @Override
+    void setByteCount(long byteCount) {
+        this.byteCount = byteCount;
+    }
+}
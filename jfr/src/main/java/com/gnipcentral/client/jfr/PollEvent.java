@@ -0,0 +1,50 @@
+package com.gnipcentral.client.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A poll of a Gnip endpoint with {@link com.gnipcentral.client.GnipConnection#getActivities()}.
+ */
+@Name("com.gnipcentral.client.Poll")
+@Label("Poll")
+@Description("Fetching and parsing a bucket of activities")
+final class PollEvent extends GnipEvent {
+
+    @Label("URL")
+    String url;
+
+    @Label("Bytes")
+    @Description("Size of the response body, when it was buffered for an activity log or a parallel parse")
+    @DataAmount
+    long byteCount;
+
+    @Label("Activities")
+    int activityCount;
+
+    @Label("Gzip")
+    @Description("Whether the connection asked for a gzip response")
+    boolean gzip;
+
+    @Override
+    void setUrl(String url) {
+        this.url = url;
+    }
+
+    @Override
+    void setByteCount(long byteCount) {
+        this.byteCount = byteCount;
+    }
+
+    @Override
+    void setActivityCount(int activityCount) {
+        this.activityCount = activityCount;
+    }
+
+    @Override
+    void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+}
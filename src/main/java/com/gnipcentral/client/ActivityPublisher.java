@@ -0,0 +1,268 @@
+package com.gnipcentral.client;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.Lag;
+import com.gnipcentral.client.metrics.Stage;
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * A Reactive Streams {@link Publisher} that streams {@link Activity activities} read from a {@link GnipConnection}.
+ * Buckets are fetched with {@link GnipConnection#getActivities()} only when a subscriber has outstanding demand, so
+ * a subscriber's {@link Subscription#request(long)} calls directly control how fast buckets are fetched and parsed.
+ * At most one bucket of {@link Results} is held in memory at a time.
+ * <br/>
+ * <br/>
+ * Because each fetch advances the connection's {@link Config#getCurrentGnipUrl() current URL} to the bucket's
+ * <code>refreshURL</code>, a publisher supports only one active subscriber at a time.  A second subscriber is
+ * rejected with an {@link IllegalStateException} until the first cancels or terminates and any fetch it has in
+ * progress has finished.
+ * <br/>
+ * <br/>
+ * Fetching and delivery happen on the provided {@link Executor}.  When a fetch returns an empty bucket, the
+ * publisher waits for the poll interval on the executor's thread before fetching again, so the executor should
+ * not be one that is shared with latency sensitive work.
+ * <br/>
+ * <br/>
+ * A subscriber that throws from <code>onNext</code> has its subscription cancelled and is sent the exception with
+ * <code>onError</code>, and the publisher accepts a new subscriber.
+ */
+public class ActivityPublisher implements Publisher<Activity> {
+
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 10 * 1000;
+
+    private final GnipConnection connection;
+    private final Executor executor;
+    private final long pollIntervalMillis;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * Create an {@link ActivityPublisher} that reads activities from the given connection.
+     * @param connection the connection used to fetch activity buckets
+     * @param executor the executor on which buckets are fetched and activities are delivered
+     * @param pollIntervalMillis how long to wait before fetching again after an empty bucket
+     */
+    public ActivityPublisher(GnipConnection connection, Executor executor, long pollIntervalMillis) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Invalid connection specified '"+connection+"'");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Invalid executor specified '"+executor+"'");
+        }
+        if (pollIntervalMillis < 0) {
+            throw new IllegalArgumentException("Invalid poll interval specified '"+pollIntervalMillis+"'");
+        }
+
+        this.connection = connection;
+        this.executor = executor;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Retrieves the time waited before fetching again after an empty bucket.
+     * @return the poll interval in milliseconds
+     */
+    public long getPollInterval() {
+        return pollIntervalMillis;
+    }
+
+    public void subscribe(Subscriber<? super Activity> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                public void request(long n) {
+                    // Noop; the subscriber has already been terminated
+                }
+                public void cancel() {
+                    // Noop; the subscriber has already been terminated
+                }
+            });
+            subscriber.onError(new IllegalStateException("An ActivityPublisher supports only one subscriber at a time"));
+            return;
+        }
+
+        subscriber.onSubscribe(new ActivitySubscription(subscriber));
+    }
+
+    private final class ActivitySubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super Activity> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean terminated = new AtomicBoolean(false);
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        // only accessed from the drain loop, which never runs concurrently with itself
+        private Iterator<Activity> bucket;
+        private boolean idle;
+        private EndpointMetrics metrics;
+
+        ActivitySubscription(Subscriber<? super Activity> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        public void request(long n) {
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("Invalid request count specified '"+n+"'"));
+                schedule();
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE) {
+                    return;
+                }
+                next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+            } while (!requested.compareAndSet(current, next));
+
+            schedule();
+        }
+
+        public void cancel() {
+            terminate(null);
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // no drain loop is running and none can start while wip is above zero, so this thread may
+                    // signal the error itself
+                    terminate(e);
+                    checkTerminated();
+                }
+            }
+        }
+
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                if (checkTerminated()) {
+                    return;
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand) {
+                    Activity activity;
+                    try {
+                        activity = nextActivity();
+                    } catch (GnipException e) {
+                        terminate(e);
+                        activity = null;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        terminate(e);
+                        activity = null;
+                    } catch (RuntimeException e) {
+                        terminate(e);
+                        activity = null;
+                    }
+
+                    if (activity == null) {
+                        checkTerminated();
+                        return;
+                    }
+                    try {
+                        if (metrics != null) {
+                            metrics.recordLag(Lag.ACTIVITY, System.currentTimeMillis() - activity.getAtMillis());
+                            long start = System.nanoTime();
+                            subscriber.onNext(activity);
+                            metrics.record(Stage.DISPATCH, System.nanoTime() - start);
+                        } else {
+                            subscriber.onNext(activity);
+                        }
+                    } catch (Throwable e) {
+                        // a subscriber that throws from onNext has broken rule 2.13, so the subscription is
+                        // treated as cancelled; the publisher is released for a new subscriber either way
+                        terminate(e);
+                        checkTerminated();
+                        return;
+                    }
+                    emitted++;
+                }
+
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private Activity nextActivity() throws GnipException, InterruptedException {
+            while (bucket == null || !bucket.hasNext()) {
+                if (cancelled) {
+                    return null;
+                }
+                if (idle && pollIntervalMillis > 0) {
+                    Thread.sleep(pollIntervalMillis);
+                    if (cancelled) {
+                        return null;
+                    }
+                }
+
+                Config config = connection.getConfig();
+                metrics = config.getMetrics() != null ? config.getMetrics().getEndpointForUrl(config.getCurrentGnipUrl()) : null;
+                Results results = connection.getActivities();
+                idle = (results == null || results.isEmpty());
+                bucket = idle ? null : results.getActivities().iterator();
+            }
+            return cancelled ? null : bucket.next();
+        }
+
+        /**
+         * Mark the subscription as terminated, with the error to signal or <code>null</code> when it was cancelled.
+         * Only the first call has an effect.  The error is signalled and the publisher released by the drain loop.
+         */
+        private void terminate(Throwable e) {
+            if (terminated.compareAndSet(false, true)) {
+                error = e;
+                cancelled = true;
+            }
+        }
+
+        /**
+         * Called only by the thread that owns the drain loop.  Once terminated, the pending error is signalled, so
+         * it is serialized with <code>onNext</code>, and the publisher accepts a new subscriber only now that this
+         * subscription has stopped fetching.  <code>wip</code> is left above zero so the drain loop never runs again.
+         */
+        private boolean checkTerminated() {
+            if (!cancelled) {
+                return false;
+            }
+            bucket = null;
+            Throwable e = error;
+            subscribed.set(false);
+            if (e != null) {
+                subscriber.onError(e);
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.gnipcentral.client;
 
 import java.net.URL;
+import java.util.concurrent.ExecutorService;
+
+import com.gnipcentral.client.metrics.MetricsRegistry;
+import com.gnipcentral.client.resource.ParseOptions;
+import com.gnipcentral.client.store.ActivityLog;
+import com.gnipcentral.client.store.ExchangeRecorder;
 
 /**
  * Configuration information for a {@link GnipConnection}.
@@ -25,6 +31,11 @@ public class Config {
     private String gnipServer;
     private String currentGnipUrl;
     private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_SECONDS * 1000;
+    private ParseOptions parseOptions;
+    private ActivityLog activityLog;
+    private ExchangeRecorder exchangeRecorder;
+    private ExecutorService parseExecutor;
+    private MetricsRegistry metrics;
 
     /**
      * Create a {@link Config} object with the specified username and password
@@ -122,6 +133,96 @@ public class Config {
         return useGzip;
     }
 
+    /**
+     * Configure the {@link ParseOptions} applied when parsing activities read with this configuration, for example
+     * to {@link ParseOptions#setSampler(com.gnipcentral.client.resource.ActivitySampler) sample} activities.
+     * @param parseOptions the parse options or <code>null</code> to parse every activity completely
+     */
+    public void setParseOptions(ParseOptions parseOptions) {
+        this.parseOptions = parseOptions;
+    }
+
+    /**
+     * Retrieves the parse options.  The default value is <code>null</code>.
+     * @return the parse options
+     */
+    public ParseOptions getParseOptions() {
+        return parseOptions;
+    }
+
+    /**
+     * Configure an {@link ActivityLog} that records the raw data of every activity bucket read with this
+     * configuration so that it can be replayed later.
+     * @param activityLog the activity log or <code>null</code> to not record buckets
+     */
+    public void setActivityLog(ActivityLog activityLog) {
+        this.activityLog = activityLog;
+    }
+
+    /**
+     * Retrieves the activity log.  The default value is <code>null</code>.
+     * @return the activity log
+     */
+    public ActivityLog getActivityLog() {
+        return activityLog;
+    }
+
+    /**
+     * Configure an {@link ExchangeRecorder} that records every HTTP request sent with this configuration and its
+     * response, with the body as it was sent, so the traffic can be served again by a replay server.  Exchanges
+     * that cannot be recorded, including those completed after the recorder was closed, are logged and do not
+     * fail their requests.
+     * @param exchangeRecorder the recorder or <code>null</code> to not record exchanges
+     */
+    public void setExchangeRecorder(ExchangeRecorder exchangeRecorder) {
+        this.exchangeRecorder = exchangeRecorder;
+    }
+
+    /**
+     * Retrieves the exchange recorder.  The default value is <code>null</code>.
+     * @return the exchange recorder
+     */
+    public ExchangeRecorder getExchangeRecorder() {
+        return exchangeRecorder;
+    }
+
+    /**
+     * Configure an executor used to parse large activity buckets read with this configuration on several threads.
+     * See {@link com.gnipcentral.client.resource.Translator#parseResults(byte[], ParseOptions, ExecutorService)}.
+     * @param parseExecutor the executor or <code>null</code> to parse buckets on the reading thread
+     */
+    public void setParseExecutor(ExecutorService parseExecutor) {
+        this.parseExecutor = parseExecutor;
+    }
+
+    /**
+     * Retrieves the parse executor.  The default value is <code>null</code>.
+     * @return the parse executor
+     */
+    public ExecutorService getParseExecutor() {
+        return parseExecutor;
+    }
+
+    /**
+     * Configure a {@link MetricsRegistry} that records the latency of each stage of a poll, and counts of polls,
+     * errors, bytes and activities, for every endpoint read with this configuration.  To time the transfer and
+     * the inflation of a response separately, the compressed body is buffered before it is inflated; without
+     * metrics or an {@link #setExchangeRecorder(ExchangeRecorder) exchange recorder}, the body is inflated as it
+     * is read.
+     * @param metrics the registry or <code>null</code> to not record metrics
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retrieves the metrics registry.  The default value is <code>null</code>.
+     * @return the metrics registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     /**
      * Gets the current url to ping for activities
      * @return a string url
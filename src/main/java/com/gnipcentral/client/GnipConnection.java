@@ -1,16 +1,29 @@
 package com.gnipcentral.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import javax.xml.bind.JAXBException;
 
+import org.apache.commons.io.IOUtils;
 import org.xml.sax.InputSource;
 
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.Lag;
+import com.gnipcentral.client.metrics.MetricsRegistry;
+import com.gnipcentral.client.metrics.Stage;
 import com.gnipcentral.client.resource.Activity;
 import com.gnipcentral.client.resource.Results;
 import com.gnipcentral.client.resource.Translator;
+import com.gnipcentral.client.store.ActivityLog;
 import com.gnipcentral.client.util.HTTPConnection;
+import com.gnipcentral.client.util.TraceEvent;
+import com.gnipcentral.client.util.TraceSpan;
+import com.gnipcentral.client.util.Tracer;
+import com.gnipcentral.client.util.TracerFactory;
 
 /**
  * Represents a client connection to a Gnip service. This class encapsulates all read protocol level interactions with a
@@ -20,6 +33,8 @@ public class GnipConnection {
 
     public static final long BUCKET_SIZE_MILLIS = 60 * 1000;
 
+    private static final Tracer TRACER = TracerFactory.getInstance();
+
     private final HTTPConnection connection;
     private final Config config;
 
@@ -57,9 +72,46 @@ public class GnipConnection {
      *             authenticating with the Gnip server, or if another error occurred.
      */
     public Results getActivities() throws GnipException {
+        String url = getActivityUrl();
+        MetricsRegistry registry = config.getMetrics();
+        EndpointMetrics metrics = registry != null ? registry.getEndpointForUrl(url) : null;
+        TraceSpan span = TRACER.begin(TraceEvent.POLL);
         try {
-            InputStream inputStream = connection.doGet(getActivityUrl());
-            Results results = Translator.parseResults(new InputSource(inputStream));
+            InputStream inputStream = connection.doGet(url);
+            ActivityLog activityLog = config.getActivityLog();
+            ExecutorService parseExecutor = config.getParseExecutor();
+            Results results;
+            long start;
+            if (activityLog != null || parseExecutor != null) {
+                byte[] data = IOUtils.toByteArray(inputStream);
+                if (span != null) {
+                    span.setByteCount(data.length);
+                }
+                if (activityLog != null) {
+                    activityLog.append(url, data);
+                }
+                start = System.nanoTime();
+                results = parseExecutor != null
+                        ? Translator.parseResults(data, config.getParseOptions(), parseExecutor)
+                        : Translator.parseResults(new ByteArrayInputStream(data), config.getParseOptions());
+            } else {
+                start = System.nanoTime();
+                results = Translator.parseResults(new InputSource(inputStream), config.getParseOptions());
+            }
+            if (span != null && results != null && results.getActivities() != null) {
+                span.setActivityCount(results.getActivities().size());
+            }
+            if (metrics != null) {
+                metrics.record(Stage.PARSE, System.nanoTime() - start);
+                metrics.incrementPollCount();
+                if (results != null && results.getActivities() != null) {
+                    metrics.addActivityCount(results.getActivities().size());
+                }
+                long bucketTime = MetricsRegistry.bucketTimeOf(url);
+                if (bucketTime >= 0) {
+                    metrics.recordLag(Lag.BUCKET, System.currentTimeMillis() - bucketTime - BUCKET_SIZE_MILLIS);
+                }
+            }
 
             if (results != null && results.getRefreshUrl() != null && results.getRefreshUrl().length() != 0) {
                 config.setCurrentGnipUrl(results.getRefreshUrl());
@@ -67,9 +119,39 @@ public class GnipConnection {
             
             return results;
         } catch (IOException e) {
+            failed(metrics);
             throw new GnipException("Exception occurred getting activities", e);
         } catch (JAXBException e) {
+            failed(metrics);
             throw new GnipException("Exception occurred getting activities", e);
+        } catch (RuntimeException e) {
+            failed(metrics);
+            throw e;
+        } finally {
+            if (span != null) {
+                span.setUrl(url);
+                span.setGzip(config.isUseGzip());
+                span.end();
+            }
+        }
+    }
+
+    /**
+     * Creates an {@link ActivityPublisher} that streams {@link Activity activities} from this connection.  Buckets
+     * are fetched only as the subscriber requests more activities and are fetched and delivered on the given
+     * {@link Executor}.
+     *
+     * @param executor the executor used to fetch buckets and deliver activities
+     * @return the publisher
+     */
+    public ActivityPublisher getActivityPublisher(Executor executor) {
+        return new ActivityPublisher(this, executor, ActivityPublisher.DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    private static void failed(EndpointMetrics metrics) {
+        if (metrics != null) {
+            metrics.incrementPollCount();
+            metrics.incrementErrorCount();
         }
     }
 
@@ -0,0 +1,134 @@
+package com.gnipcentral.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The metrics of the polls of a single Gnip endpoint: a latency {@link Histogram} for each {@link Stage}, in
+ * nanoseconds, {@link LagMetrics lag} histograms in milliseconds, and counts of polls, failed polls, bytes read
+ * from the network and activities parsed.  Lags are also recorded in the metrics of the endpoint's publisher.
+ * Instances are created by a {@link MetricsRegistry}.  This class is thread-safe.
+ */
+public class EndpointMetrics implements EndpointMetricsMBean {
+
+    private final MetricsRegistry registry;
+    private final String endpoint;
+    private final Histogram[] latencies;
+    private final LagMetrics lags;
+    private final LagMetrics publisherLag;
+    private final AtomicLongArray lastAlerts = new AtomicLongArray(Lag.values().length);
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong activities = new AtomicLong();
+
+    EndpointMetrics(MetricsRegistry registry, String endpoint, LagMetrics publisherLag) {
+        this.registry = registry;
+        this.endpoint = endpoint;
+        this.lags = new LagMetrics(endpoint);
+        this.publisherLag = publisherLag;
+        Stage[] stages = Stage.values();
+        this.latencies = new Histogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            latencies[i] = new Histogram();
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Retrieves the latency histogram of a stage.
+     * @param stage the stage
+     * @return the histogram, in nanoseconds
+     */
+    public Histogram getLatency(Stage stage) {
+        return latencies[stage.ordinal()];
+    }
+
+    /**
+     * Record the time a stage took.
+     * @param stage the stage
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void record(Stage stage, long nanos) {
+        latencies[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Retrieves the lag histograms of this endpoint.
+     * @return the lag metrics
+     */
+    public LagMetrics getLag() {
+        return lags;
+    }
+
+    /**
+     * Record a lag of this endpoint and of its publisher, and notify the registry's {@link LagListener listeners}
+     * if it exceeds the registry's threshold.
+     * @param lag the kind of lag
+     * @param millis the lag in milliseconds
+     */
+    public void recordLag(Lag lag, long millis) {
+        lags.record(lag, millis);
+        if (publisherLag != null) {
+            publisherLag.record(lag, millis);
+        }
+
+        long threshold = registry.getLagThreshold(lag);
+        if (threshold > 0 && millis > threshold) {
+            long now = System.currentTimeMillis();
+            long last = lastAlerts.get(lag.ordinal());
+            if ((last == 0 || now - last >= registry.getLagAlertInterval()) && lastAlerts.compareAndSet(lag.ordinal(), last, now)) {
+                registry.lagExceeded(endpoint, lag, millis, threshold);
+            }
+        }
+    }
+
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    public void incrementPollCount() {
+        polls.incrementAndGet();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    public void incrementErrorCount() {
+        errors.incrementAndGet();
+    }
+
+    public long getByteCount() {
+        return bytes.get();
+    }
+
+    public void addByteCount(long count) {
+        bytes.addAndGet(count);
+    }
+
+    public long getActivityCount() {
+        return activities.get();
+    }
+
+    public void addActivityCount(long count) {
+        activities.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(endpoint);
+        builder.append(" polls=").append(getPollCount()).append(" errors=").append(getErrorCount())
+                .append(" bytes=").append(getByteCount()).append(" activities=").append(getActivityCount());
+        for (Stage stage : Stage.values()) {
+            builder.append("\n  ").append(stage.getName()).append(": ").append(getLatency(stage));
+        }
+        for (Lag value : Lag.values()) {
+            builder.append("\n  ").append(value.getName()).append(" lag: ").append(lags.getHistogram(value));
+        }
+        return builder.toString();
+    }
+}
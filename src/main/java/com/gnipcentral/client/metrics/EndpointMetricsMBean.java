@@ -0,0 +1,18 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * The management interface of an {@link EndpointMetrics}, through which its counters are exposed as JMX
+ * attributes.  The stage latencies are exposed as separate {@link HistogramMBean histograms}.
+ */
+public interface EndpointMetricsMBean {
+
+    String getEndpoint();
+
+    long getPollCount();
+
+    long getErrorCount();
+
+    long getByteCount();
+
+    long getActivityCount();
+}
@@ -0,0 +1,190 @@
+package com.gnipcentral.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative <code>long</code> values, such as latencies in nanoseconds, with a fixed relative
+ * precision in the style of HdrHistogram.  Values below {@value #SUB_BUCKET_COUNT} are counted exactly; larger
+ * values fall into buckets whose width is a power of two that grows with the value, so each bucket is less than
+ * 1.6% of its values wide.  The bucket array is allocated once, covers values up to {@link #MAX_VALUE}, and larger
+ * values are counted in the last bucket.
+ * <br/>
+ * <br/>
+ * Recording a value is a few arithmetic operations and atomic increments and never allocates or blocks, so it can
+ * be done on every request from any number of threads.  Percentiles are computed from the bucket counts when they
+ * are read and are reported as the highest value of the bucket they fall in.  A read that overlaps with recording
+ * or with {@link #reset()} may see some of the overlapping values and not others.  This class is thread-safe.
+ */
+public class Histogram implements HistogramMBean {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = 36;
+
+    /**
+     * The largest value that is counted in its own bucket, a little over two hours in nanoseconds.
+     */
+    public static final long MAX_VALUE = (1L << (MAX_SHIFT + SUB_BUCKET_BITS)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value.  Negative values are recorded as <code>0</code>.
+     * @param value the value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of recorded values.
+     * @return the count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Retrieves the sum of the recorded values.
+     * @return the sum
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Retrieves the largest recorded value.
+     * @return the maximum, or <code>0</code> if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Retrieves the mean of the recorded values.
+     * @return the mean, or <code>0</code> if no values have been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Retrieves the value below which a percentage of the recorded values fall.
+     * @param percentile the percentage, from <code>0</code> to <code>100</code>
+     * @return the highest value of the bucket that contains the percentile, or <code>0</code> if no values have
+     * been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile specified '"+percentile+"'");
+        }
+
+        int length = counts.length();
+        long[] snapshot = new long[length];
+        long total = 0;
+        for (int i = 0; i < length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Retrieves the median.
+     * @return the value at the percentile
+     */
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    /**
+     * Retrieves the 90th percentile.
+     * @return the value at the percentile
+     */
+    public long getP90() {
+        return getValueAtPercentile(90);
+    }
+
+    /**
+     * Retrieves the 99th percentile.
+     * @return the value at the percentile
+     */
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    /**
+     * Retrieves the 99.9th percentile.
+     * @return the value at the percentile
+     */
+    public long getP999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Remove all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " mean=" + (long) getMean() + " p50=" + getP50() + " p90=" + getP90()
+                + " p99=" + getP99() + " p99.9=" + getP999() + " max=" + getMax();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        if (shift > MAX_SHIFT) {
+            return SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF - 1;
+        }
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (int) (value >>> shift) - SUB_BUCKET_HALF;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * The management interface of a {@link Histogram}, through which its summary statistics are exposed as JMX
+ * attributes.  Values are in the histogram's unit, which is nanoseconds for the stage latencies recorded by the
+ * client and milliseconds for its lags.
+ */
+public interface HistogramMBean {
+
+    long getCount();
+
+    long getMax();
+
+    double getMean();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+
+    void reset();
+}
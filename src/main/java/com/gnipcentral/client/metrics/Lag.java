@@ -0,0 +1,34 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * The delays between Gnip seeing an activity and the client delivering it that are recorded in
+ * {@link LagMetrics}.
+ */
+public enum Lag {
+
+    /**
+     * From an activity's {@link com.gnipcentral.client.resource.Activity#getAt() time} to the activity being
+     * handed to its subscriber or handler.
+     */
+    ACTIVITY("activity"),
+
+    /**
+     * From the close of a bucket, {@link com.gnipcentral.client.GnipConnection#BUCKET_SIZE_MILLIS} after its start,
+     * to the bucket having been fetched and parsed.
+     */
+    BUCKET("bucket");
+
+    private final String name;
+
+    Lag(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Retrieves the name the lag is exposed under.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+}
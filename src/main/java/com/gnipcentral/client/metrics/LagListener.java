@@ -0,0 +1,19 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * Notified by a {@link MetricsRegistry} when a recorded {@link Lag} exceeds the registry's threshold for it.  While
+ * an endpoint's lag stays above the threshold, the listener is notified at most once per
+ * {@link MetricsRegistry#getLagAlertInterval() alert interval}.  Listeners are called on the thread that recorded
+ * the lag, usually the polling thread, and should return quickly.
+ */
+public interface LagListener {
+
+    /**
+     * Called when a lag exceeds its threshold.
+     * @param endpoint the endpoint the activity or bucket was read from
+     * @param lag the kind of lag
+     * @param lagMillis the recorded lag in milliseconds
+     * @param thresholdMillis the threshold in milliseconds
+     */
+    void onLagExceeded(String endpoint, Lag lag, long lagMillis, long thresholdMillis);
+}
@@ -0,0 +1,50 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * The {@link Lag lag} histograms of an endpoint or of a publisher, in milliseconds.  Instances are created by a
+ * {@link MetricsRegistry}.  This class is thread-safe.
+ */
+public class LagMetrics {
+
+    private final String name;
+    private final Histogram[] lags;
+
+    LagMetrics(String name) {
+        this.name = name;
+        Lag[] values = Lag.values();
+        this.lags = new Histogram[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lags[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Retrieves the endpoint or publisher name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the histogram of a lag.
+     * @param lag the lag
+     * @return the histogram, in milliseconds
+     */
+    public Histogram getHistogram(Lag lag) {
+        return lags[lag.ordinal()];
+    }
+
+    void record(Lag lag, long millis) {
+        lags[lag.ordinal()].record(millis);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name);
+        for (Lag lag : Lag.values()) {
+            builder.append("\n  ").append(lag.getName()).append(" lag: ").append(getHistogram(lag));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,401 @@
+package com.gnipcentral.client.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import com.gnipcentral.client.util.Logger;
+import com.gnipcentral.client.util.LoggerFactory;
+
+/**
+ * The metrics recorded by the client, keyed by endpoint.  An endpoint is a Gnip URL without its final path segment,
+ * so that every bucket of a publisher's activity stream is counted together; see {@link #endpointOf(String)}.
+ * Latencies of activity handlers that are not tied to an endpoint, such as those of a
+ * {@link com.gnipcentral.client.stream.PartitionedDispatcher}, are kept by handler name.
+ * <br/>
+ * <br/>
+ * {@link Lag Lags} are kept per endpoint and, for endpoints under <code>/publishers/<i>name</i></code>, per
+ * publisher.  A {@link LagListener} is notified when a lag exceeds the threshold set with
+ * {@link #setLagThreshold(Lag, long)}.
+ * <br/>
+ * <br/>
+ * The metrics can be read with {@link #getEndpoints()}, {@link #getPublisherLags()} and
+ * {@link #getHandlerLatencies()}.  After {@link #registerMBeans(MBeanServer)}, every endpoint and every latency
+ * and lag histogram, including those created later, is also registered as an MBean in the {@value #DOMAIN}
+ * domain:
+ * <pre>
+ *   com.gnipcentral.client:type=Endpoint,name="api-v21.gnip.com/publishers/twitter/notification"
+ *   com.gnipcentral.client:type=Latency,name="api-v21.gnip.com/publishers/twitter/notification",stage=parse
+ *   com.gnipcentral.client:type=Lag,name="api-v21.gnip.com/publishers/twitter/notification",lag=activity
+ *   com.gnipcentral.client:type=PublisherLag,name="twitter",lag=activity
+ *   com.gnipcentral.client:type=Handler,name="indexer"
+ * </pre>
+ * This class is thread-safe.
+ */
+public class MetricsRegistry {
+
+    public static final String DOMAIN = "com.gnipcentral.client";
+    public static final long DEFAULT_LAG_ALERT_INTERVAL_MILLIS = 60 * 1000;
+
+    private static final Logger LOG = LoggerFactory.getInstance();
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormat.forPattern("yyyyMMddHHmm").withZone(DateTimeZone.UTC);
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<String, EndpointMetrics>();
+    private final ConcurrentMap<String, Histogram> handlers = new ConcurrentHashMap<String, Histogram>();
+    private final ConcurrentMap<String, LagMetrics> publishers = new ConcurrentHashMap<String, LagMetrics>();
+    private final AtomicLongArray lagThresholds = new AtomicLongArray(Lag.values().length);
+    private final List<LagListener> lagListeners = new CopyOnWriteArrayList<LagListener>();
+    private volatile long lagAlertInterval = DEFAULT_LAG_ALERT_INTERVAL_MILLIS;
+    private final List<ObjectName> registered = new ArrayList<ObjectName>();
+    private MBeanServer server;
+
+    /**
+     * Retrieves the metrics of an endpoint, creating them if they do not exist.
+     * @param endpoint the endpoint
+     * @return the metrics
+     */
+    public EndpointMetrics getEndpoint(String endpoint) {
+        if (endpoint == null) {
+            throw new IllegalArgumentException("Invalid endpoint specified '"+endpoint+"'");
+        }
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics != null) {
+            return metrics;
+        }
+
+        synchronized (this) {
+            metrics = endpoints.get(endpoint);
+            if (metrics == null) {
+                String publisher = publisherOf(endpoint);
+                metrics = new EndpointMetrics(this, endpoint, publisher != null ? getPublisherLag(publisher) : null);
+                endpoints.put(endpoint, metrics);
+                if (server != null) {
+                    register(metrics);
+                }
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Retrieves the metrics of the endpoint of a URL.
+     * @param url the URL that was polled
+     * @return the metrics
+     */
+    public EndpointMetrics getEndpointForUrl(String url) {
+        return getEndpoint(endpointOf(url));
+    }
+
+    /**
+     * Retrieves the metrics of every endpoint that has been polled.
+     * @return the metrics by endpoint, sorted by endpoint
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<String, EndpointMetrics>(endpoints));
+    }
+
+    /**
+     * Retrieves the latency histogram of a named activity handler, creating it if it does not exist.
+     * @param handler the handler name
+     * @return the histogram, in nanoseconds
+     */
+    public Histogram getHandlerLatency(String handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid handler specified '"+handler+"'");
+        }
+        Histogram histogram = handlers.get(handler);
+        if (histogram != null) {
+            return histogram;
+        }
+
+        synchronized (this) {
+            histogram = handlers.get(handler);
+            if (histogram == null) {
+                histogram = new Histogram();
+                handlers.put(handler, histogram);
+                if (server != null) {
+                    register(handlerName(handler), histogram);
+                }
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * Retrieves the latency histograms of every named activity handler.
+     * @return the histograms by handler name, sorted by name
+     */
+    public Map<String, Histogram> getHandlerLatencies() {
+        return Collections.unmodifiableMap(new TreeMap<String, Histogram>(handlers));
+    }
+
+    /**
+     * Retrieves the lag histograms of a publisher, creating them if they do not exist.
+     * @param publisher the publisher name
+     * @return the lag metrics
+     */
+    public LagMetrics getPublisherLag(String publisher) {
+        if (publisher == null) {
+            throw new IllegalArgumentException("Invalid publisher specified '"+publisher+"'");
+        }
+        LagMetrics lag = publishers.get(publisher);
+        if (lag != null) {
+            return lag;
+        }
+
+        synchronized (this) {
+            lag = publishers.get(publisher);
+            if (lag == null) {
+                lag = new LagMetrics(publisher);
+                publishers.put(publisher, lag);
+                if (server != null) {
+                    register("PublisherLag", lag);
+                }
+            }
+            return lag;
+        }
+    }
+
+    /**
+     * Retrieves the lag histograms of every publisher that has been polled.
+     * @return the lag metrics by publisher, sorted by publisher
+     */
+    public Map<String, LagMetrics> getPublisherLags() {
+        return Collections.unmodifiableMap(new TreeMap<String, LagMetrics>(publishers));
+    }
+
+    /**
+     * Configure the lag above which {@link LagListener listeners} are notified.
+     * @param lag the kind of lag
+     * @param thresholdMillis the threshold in milliseconds, or <code>0</code> to not alert on the lag
+     */
+    public void setLagThreshold(Lag lag, long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Invalid threshold specified '"+thresholdMillis+"'");
+        }
+        lagThresholds.set(lag.ordinal(), thresholdMillis);
+    }
+
+    /**
+     * Retrieves the lag threshold.  The default value is <code>0</code>, which disables alerts.
+     * @param lag the kind of lag
+     * @return the threshold in milliseconds
+     */
+    public long getLagThreshold(Lag lag) {
+        return lagThresholds.get(lag.ordinal());
+    }
+
+    /**
+     * Configure the minimum time between two notifications of the same lag of the same endpoint.
+     * @param intervalMillis the interval in milliseconds
+     */
+    public void setLagAlertInterval(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Invalid interval specified '"+intervalMillis+"'");
+        }
+        this.lagAlertInterval = intervalMillis;
+    }
+
+    /**
+     * Retrieves the lag alert interval.  The default value is {@value #DEFAULT_LAG_ALERT_INTERVAL_MILLIS}.
+     * @return the interval in milliseconds
+     */
+    public long getLagAlertInterval() {
+        return lagAlertInterval;
+    }
+
+    /**
+     * Add a listener that is notified when a lag exceeds its threshold.
+     * @param listener the listener
+     */
+    public void addLagListener(LagListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Invalid listener specified '"+listener+"'");
+        }
+        lagListeners.add(listener);
+    }
+
+    /**
+     * Remove a lag listener.
+     * @param listener the listener
+     */
+    public void removeLagListener(LagListener listener) {
+        lagListeners.remove(listener);
+    }
+
+    void lagExceeded(String endpoint, Lag lag, long lagMillis, long thresholdMillis) {
+        LOG.log(Logger.Level.WARN, "The %s lag of %s is %s ms\n", lag.getName(), endpoint, lagMillis);
+        for (LagListener listener : lagListeners) {
+            try {
+                listener.onLagExceeded(endpoint, lag, lagMillis, thresholdMillis);
+            } catch (RuntimeException e) {
+                LOG.log(Logger.Level.ERROR, "Exception notifying lag listener %s: %s\n", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Register the metrics as MBeans with a server, for example
+     * {@link java.lang.management.ManagementFactory#getPlatformMBeanServer()}.  Metrics created later are
+     * registered as they are created.
+     * @param server the MBean server
+     * @throws IllegalStateException if the metrics are already registered
+     */
+    public synchronized void registerMBeans(MBeanServer server) {
+        if (server == null) {
+            throw new IllegalArgumentException("Invalid MBean server specified '"+server+"'");
+        }
+        if (this.server != null) {
+            throw new IllegalStateException("Metrics are already registered with an MBean server");
+        }
+
+        this.server = server;
+        for (EndpointMetrics metrics : endpoints.values()) {
+            register(metrics);
+        }
+        for (Map.Entry<String, Histogram> entry : handlers.entrySet()) {
+            register(handlerName(entry.getKey()), entry.getValue());
+        }
+        for (LagMetrics lag : publishers.values()) {
+            register("PublisherLag", lag);
+        }
+    }
+
+    /**
+     * Unregister the MBeans registered by {@link #registerMBeans(MBeanServer)}.  The metrics themselves are kept.
+     */
+    public synchronized void unregisterMBeans() {
+        if (server == null) {
+            return;
+        }
+
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                LOG.log(Logger.Level.WARN, "Unable to unregister MBean %s: %s\n", name, e);
+            }
+        }
+        registered.clear();
+        server = null;
+    }
+
+    /**
+     * Retrieves the endpoint of a URL: its host, port and path without the scheme, query or final path segment.
+     * <pre>
+     *   https://api-v21.gnip.com/publishers/twitter/notification/200903011000.xml
+     *   api-v21.gnip.com/publishers/twitter/notification
+     * </pre>
+     * @param url the URL
+     * @return the endpoint
+     */
+    public static String endpointOf(String url) {
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid URL specified '"+url+"'");
+        }
+
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = url.indexOf('?', start);
+        if (end < 0) {
+            end = url.length();
+        }
+        int slash = url.lastIndexOf('/', end - 1);
+        if (slash >= start) {
+            end = slash;
+        }
+        return url.substring(start, end);
+    }
+
+    /**
+     * Retrieves the publisher of a URL or endpoint: the path segment after <code>/publishers/</code>.
+     * @param url the URL or endpoint
+     * @return the publisher name, or <code>null</code> if the URL is not under a publisher
+     */
+    public static String publisherOf(String url) {
+        int start = url.indexOf("/publishers/");
+        if (start < 0) {
+            return null;
+        }
+        start += "/publishers/".length();
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+            end++;
+        }
+        return end > start ? url.substring(start, end) : null;
+    }
+
+    /**
+     * Retrieves the start time of the bucket a URL names, for URLs whose final path segment is a bucket name of the
+     * form <code>yyyyMMddHHmm</code> in UTC, such as <code>.../notification/200903011000.xml</code>.
+     * @param url the URL
+     * @return the bucket start in milliseconds since the epoch, or <code>-1</code> if the URL does not name a bucket
+     */
+    public static long bucketTimeOf(String url) {
+        int end = url.indexOf('?');
+        if (end < 0) {
+            end = url.length();
+        }
+        int start = url.lastIndexOf('/', end - 1) + 1;
+        int dot = url.indexOf('.', start);
+        if (dot >= 0 && dot < end) {
+            end = dot;
+        }
+        if (end - start != 12) {
+            return -1;
+        }
+        for (int i = start; i < end; i++) {
+            if (url.charAt(i) < '0' || url.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        try {
+            return BUCKET_FORMAT.parseMillis(url.substring(start, end));
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private void register(EndpointMetrics metrics) {
+        String quoted = ObjectName.quote(metrics.getEndpoint());
+        register(DOMAIN + ":type=Endpoint,name=" + quoted, metrics);
+        for (Stage stage : Stage.values()) {
+            register(DOMAIN + ":type=Latency,name=" + quoted + ",stage=" + stage.getName(), metrics.getLatency(stage));
+        }
+        register("Lag", metrics.getLag());
+    }
+
+    private void register(String type, LagMetrics lags) {
+        for (Lag lag : Lag.values()) {
+            register(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(lags.getName()) + ",lag=" + lag.getName(), lags.getHistogram(lag));
+        }
+    }
+
+    private static String handlerName(String handler) {
+        return DOMAIN + ":type=Handler,name=" + ObjectName.quote(handler);
+    }
+
+    private void register(String name, Object mbean) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            server.registerMBean(mbean, objectName);
+            registered.add(objectName);
+        } catch (JMException e) {
+            LOG.log(Logger.Level.WARN, "Unable to register MBean %s: %s\n", name, e);
+        }
+    }
+}
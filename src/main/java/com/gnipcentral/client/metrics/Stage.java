@@ -0,0 +1,51 @@
+package com.gnipcentral.client.metrics;
+
+/**
+ * The stages of a poll whose latencies are recorded in {@link EndpointMetrics}.
+ */
+public enum Stage {
+
+    /**
+     * Opening the connection to the server.
+     */
+    CONNECT("connect"),
+
+    /**
+     * From the connection being open to the response headers arriving, which includes the server's processing.
+     */
+    FIRST_BYTE("firstByte"),
+
+    /**
+     * Reading the response body from the network.
+     */
+    TRANSFER("transfer"),
+
+    /**
+     * Decompressing a gzip encoded response body.
+     */
+    INFLATE("inflate"),
+
+    /**
+     * Parsing the response into {@link com.gnipcentral.client.resource.Results}.
+     */
+    PARSE("parse"),
+
+    /**
+     * Handing a single activity to a subscriber or handler.
+     */
+    DISPATCH("dispatch");
+
+    private final String name;
+
+    Stage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Retrieves the name the stage is exposed under.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+}
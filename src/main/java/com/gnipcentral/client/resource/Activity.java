@@ -8,11 +8,15 @@ import java.util.List;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.*;
 import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Model object that represents a Gnip activity.  An activity is approximately equivalent to an event
  * that occurs on a Publisher; for example, on Twitter a tweet is an activity and digging an article is an activity
@@ -67,11 +71,12 @@ public class Activity implements Resource {
     @XmlElement(name = "regardingURL", type = GnipUrl.class)
     private List<GnipUrl> regardingUrls;
     @XmlElement(type = Payload.class)
-    private Payload payload;
+    private volatile Payload payload;
+    @XmlTransient
+    private byte[] payloadXml;
 
-    @SuppressWarnings("unused")
-    private Activity() {
-        // empty constructor for jaxb
+    Activity() {
+        // empty constructor for jaxb and BinaryCodec
     }
 
     /**
@@ -139,6 +144,40 @@ public class Activity implements Resource {
         return fromXMLGregorianCalendar(at);
     }
 
+    /**
+     * Retrieves the time at which this Activity's action occurred without building a {@link DateTime}.  The time is
+     * computed from the fields of the parsed time, so no calendar or time zone is created for it.
+     * @return the Activity time in milliseconds since the epoch.
+     */
+    public long getAtMillis() {
+        XMLGregorianCalendar at = this.at;
+        int timezone = at.getTimezone();
+        int year = at.getYear();
+        if (timezone == DatatypeConstants.FIELD_UNDEFINED || year == DatatypeConstants.FIELD_UNDEFINED
+                || at.getXMLSchemaType() != DatatypeConstants.DATETIME) {
+            // a time in the default time zone, or one that is not a full date and time, is left to the calendar
+            return at.toGregorianCalendar().getTimeInMillis();
+        }
+        int millis = at.getMillisecond();
+        return daysFromCivil(year, at.getMonth(), at.getDay()) * 86400000L
+                + at.getHour() * 3600000L + at.getMinute() * 60000L + at.getSecond() * 1000L
+                + (millis != DatatypeConstants.FIELD_UNDEFINED ? millis : 0)
+                - timezone * 60000L;
+    }
+
+    /**
+     * Compute the number of days from the epoch to a date in the proleptic Gregorian calendar, which is the
+     * calendar of <code>xs:dateTime</code>.
+     */
+    static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
     /**
      * Sets the time at which this Activity's action occurred.
      * @param at the required Activity time or null to specify now.
@@ -147,6 +186,14 @@ public class Activity implements Resource {
         this.at = toXMLGregorianCalendar(at);
     }
 
+    XMLGregorianCalendar getAtCalendar() {
+        return at;
+    }
+
+    void setAtCalendar(XMLGregorianCalendar at) {
+        this.at = at;
+    }
+
     /**
      * Retrieves this Activity's action.
      * @return the Activity action.
@@ -552,10 +599,23 @@ public class Activity implements Resource {
     }
 
     /**
-     * Retrieves this Activity's payload.
+     * Retrieves this Activity's payload.  If the activity was parsed with
+     * {@link ParseOptions#setLazyPayload(boolean) lazy payloads}, the payload is built on the first call.  This
+     * method may be called from several threads at once; the payload is built once and every thread sees the same
+     * instance.
      * @return the Activity payload.
      */
     public Payload getPayload() {
+        Payload result = payload;
+        return result != null ? result : buildPayload();
+    }
+
+    private synchronized Payload buildPayload() {
+        byte[] xml = payloadXml;
+        if (payload == null && xml != null) {
+            payload = Translator.parsePayload(xml);
+            payloadXml = null;
+        }
         return payload;
     }
 
@@ -563,8 +623,19 @@ public class Activity implements Resource {
      * Sets this Activity's payload.
      * @param payload the optional Activity payload to set
      */
-    public void setPayload(Payload payload) {
+    public synchronized void setPayload(Payload payload) {
         this.payload = payload;
+        this.payloadXml = null;
+    }
+
+    synchronized void setPayloadXml(byte[] payloadXml) {
+        this.payloadXml = payloadXml;
+    }
+
+    @SuppressWarnings("unused")
+    private void beforeMarshal(Marshaller marshaller) {
+        // build a lazy payload so that it is marshalled with the activity
+        getPayload();
     }
 
     /**
@@ -589,6 +660,30 @@ public class Activity implements Resource {
         return null;
     }
 
+    /**
+     * Replace the low-cardinality values of this Activity with their pooled instances.  Actors and tos are left
+     * alone: their values, uids and meta URLs are mostly distinct and would only push repeating values out of the
+     * pool.
+     */
+    void intern(StringPool pool) {
+        action = pool.intern(action);
+        internAll(sources, pool);
+        internAll(keywords, pool);
+        if (tags != null) {
+            for (int i = 0, size = tags.size(); i < size; i++) {
+                tags.get(i).intern(pool);
+            }
+        }
+    }
+
+    private static void internAll(List<String> values, StringPool pool) {
+        if (values != null) {
+            for (int i = 0, size = values.size(); i < size; i++) {
+                values.set(i, pool.intern(values.get(i)));
+            }
+        }
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
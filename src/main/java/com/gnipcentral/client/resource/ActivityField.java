@@ -0,0 +1,107 @@
+package com.gnipcentral.client.resource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enumeration of the elements of an {@link Activity} that can be selected with
+ * {@link ParseOptions#setFields(java.util.Set)}.
+ */
+public enum ActivityField {
+
+    /**
+     * The activity's <i>at</i> time.  Always parsed.
+     */
+    AT("at"),
+
+    /**
+     * The activity's <i>action</i>.  Always parsed.
+     */
+    ACTION("action"),
+
+    /**
+     * The activity's <i>activityID</i>.
+     */
+    ACTIVITY_ID("activityID"),
+
+    /**
+     * The activity's <i>URL</i>.
+     */
+    URL("URL"),
+
+    /**
+     * The activity's <i>source</i>s.
+     */
+    SOURCE("source"),
+
+    /**
+     * The activity's <i>keyword</i>s.
+     */
+    KEYWORD("keyword"),
+
+    /**
+     * The activity's <i>place</i>s.
+     */
+    PLACE("place"),
+
+    /**
+     * The activity's <i>actor</i>s.
+     */
+    ACTOR("actor"),
+
+    /**
+     * The activity's <i>destinationURL</i>s.
+     */
+    DESTINATION_URL("destinationURL"),
+
+    /**
+     * The activity's <i>tag</i>s.
+     */
+    TAG("tag"),
+
+    /**
+     * The activity's <i>to</i>s.
+     */
+    TO("to"),
+
+    /**
+     * The activity's <i>regardingURL</i>s.
+     */
+    REGARDING_URL("regardingURL"),
+
+    /**
+     * The activity's <i>payload</i>.
+     */
+    PAYLOAD("payload");
+
+    private static final Map<String, ActivityField> BY_ELEMENT = new HashMap<String, ActivityField>();
+
+    static {
+        for (ActivityField field : values()) {
+            BY_ELEMENT.put(field.elementName, field);
+        }
+    }
+
+    private final String elementName;
+
+    private ActivityField(String elementName) {
+        this.elementName = elementName;
+    }
+
+    /**
+     * Retrieves the name of the XML element that holds this field.
+     * @return the element name
+     */
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Find the field held by an XML element of an activity.
+     * @param elementName the element name
+     * @return the field, or <code>null</code> if the element is not a field of an activity
+     */
+    static ActivityField fromElementName(String elementName) {
+        return BY_ELEMENT.get(elementName);
+    }
+}
@@ -0,0 +1,534 @@
+package com.gnipcentral.client.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * Package-protected {@link XMLStreamReader} that sits between the XML parser and the reader that builds the
+ * objects while a {@link Results} document is parsed, and removes the events of activities that the
+ * {@link ParseOptions} filter out, so that they are never built.  The consumer is a {@link ResourceXmlReader},
+ * or the JAXB unmarshaller when {@link Translator#setUseJaxb(boolean) JAXB is enabled}.
+ * <br/>
+ * <br/>
+ * When a {@link ActivitySampler sampler} is configured, the reader looks ahead at the leading child elements of
+ * each <code>&lt;activity&gt;</code> until the sampling key has been read.  A rejected activity is skipped in the
+ * underlying parser up to its end element; a kept activity's buffered events are replayed to the consumer before
+ * the rest of the activity is passed through.  The payload and other trailing elements of rejected activities are
+ * therefore never built.  Activities are removed as whole elements, so the filtered document is still valid
+ * against the Gnip schema.
+ * <br/>
+ * <br/>
+ * When only some {@link ParseOptions#setFields(Set) fields} are selected, the child elements of each activity
+ * that hold other fields are skipped in the underlying parser.  The sampling key is still read during look-ahead,
+ * and its events are dropped from the buffer afterwards if its field is not selected.  Only optional elements
+ * are skipped, so the document remains valid.
+ * <br/>
+ * <br/>
+ * When {@link ParseOptions#isLazyPayload() lazy payloads} are enabled, each <code>&lt;payload&gt;</code> element
+ * of a passed-through activity is copied by an {@link XmlFragmentWriter} instead of being passed to the consumer,
+ * and can be collected with {@link #takePayload()} once the activity has been built.  The payload is optional in
+ * the schema, so the document is still valid without it.  This class is not intended for external use.
+ */
+class ActivityFilterReader extends StreamReaderDelegate {
+
+    private final ActivitySampler sampler;
+    private final Set<ActivityField> fields;
+    private final XmlFragmentWriter payloadWriter;
+    private byte[] payload;
+
+    private int depth;
+
+    private final List<Snapshot> buffer = new ArrayList<Snapshot>();
+    private int buffered;
+    private int replayIndex = -1;
+    private Snapshot current;
+
+    private final StringBuilder keyText = new StringBuilder();
+    private long rejectedCount;
+
+    ActivityFilterReader(XMLStreamReader reader, ParseOptions options) {
+        super(reader);
+        this.sampler = options.getSampler();
+        this.fields = options.getFields();
+        this.payloadWriter = options.isLazyPayload() ? new XmlFragmentWriter() : null;
+        if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+            depth = 1;
+        }
+    }
+
+    /**
+     * Retrieves the number of activities removed from the document so far.
+     */
+    long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Retrieves and clears the payload copied from the most recent activity.
+     * @return the payload as UTF-8 encoded XML, or <code>null</code> if the activity had no payload
+     */
+    byte[] takePayload() {
+        byte[] taken = payload;
+        payload = null;
+        return taken;
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = nextEvent();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+            depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+            depth--;
+        }
+        return event;
+    }
+
+    private int nextEvent() throws XMLStreamException {
+        if (current != null) {
+            if (++replayIndex < buffered) {
+                current = buffer.get(replayIndex);
+                return current.type;
+            }
+            current = null;
+            replayIndex = -1;
+        }
+
+        int event = super.next();
+        while (event == XMLStreamConstants.START_ELEMENT) {
+            if (sampler != null && depth == 1 && "activity".equals(super.getLocalName())) {
+                if (lookAhead()) {
+                    replayIndex = 0;
+                    current = buffer.get(0);
+                    return current.type;
+                }
+                rejectedCount++;
+            } else if (depth == 2 && isSkipped(super.getLocalName())) {
+                skipToEnd(1);
+            } else if (payloadWriter != null && depth == 2 && "payload".equals(super.getLocalName())) {
+                payload = payloadWriter.write(getParent());
+            } else {
+                break;
+            }
+            event = super.next();
+        }
+        return event;
+    }
+
+    /**
+     * Buffer the events of the activity the underlying reader is positioned on until its sampling key has been
+     * read.  If the activity is rejected, the underlying reader is left on the activity's end element.
+     * @return <code>true</code> if the activity is kept and the buffered events should be replayed
+     */
+    private boolean lookAhead() throws XMLStreamException {
+        buffered = 0;
+        snapshot(XMLStreamConstants.START_ELEMENT);
+
+        int activityDepth = 1;
+        boolean capturing = false;
+        int keyStart = -1;
+        String actorUid = null;
+        for (;;) {
+            int event = super.next();
+            snapshot(event);
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (++activityDepth == 2) {
+                        String name = super.getLocalName();
+                        boolean skipped = isSkipped(name);
+                        if (sampler.getKey() == ActivitySampler.Key.ACTIVITY_ID && "activityID".equals(name)) {
+                            capturing = true;
+                        } else if (sampler.getKey() == ActivitySampler.Key.ACTOR_UID && "actor".equals(name)) {
+                            actorUid = super.getAttributeValue(null, "uid");
+                            capturing = true;
+                        } else if (skipped) {
+                            buffered--;
+                            skipToEnd(1);
+                            activityDepth--;
+                            break;
+                        }
+                        if (skipped) {
+                            // the key is read but its events are not replayed
+                            keyStart = buffered - 1;
+                        }
+                        keyText.setLength(0);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (capturing) {
+                        keyText.append(super.getTextCharacters(), super.getTextStart(), super.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (--activityDepth == 0) {
+                        // the activity has no sampling key
+                        return true;
+                    }
+                    if (activityDepth == 1 && capturing) {
+                        if (sampler.isSampled(actorUid != null ? actorUid : keyText.toString())) {
+                            if (keyStart >= 0) {
+                                buffered = keyStart;
+                            }
+                            return true;
+                        }
+                        skipToEnd(activityDepth);
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private boolean isSkipped(String localName) {
+        if (fields == null) {
+            return false;
+        }
+        ActivityField field = ActivityField.fromElementName(localName);
+        return field != null && !fields.contains(field);
+    }
+
+    private void skipToEnd(int activityDepth) throws XMLStreamException {
+        while (activityDepth > 0) {
+            int event = super.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                activityDepth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                activityDepth--;
+            }
+        }
+    }
+
+    private void snapshot(int event) {
+        Snapshot snapshot;
+        if (buffered < buffer.size()) {
+            snapshot = buffer.get(buffered);
+        } else {
+            snapshot = new Snapshot();
+            buffer.add(snapshot);
+        }
+        buffered++;
+        snapshot.copy(getParent(), event);
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+                || (event == XMLStreamConstants.CDATA && isWhiteSpace())
+                || event == XMLStreamConstants.SPACE
+                || event == XMLStreamConstants.PROCESSING_INSTRUCTION
+                || event == XMLStreamConstants.COMMENT) {
+            event = next();
+        }
+        if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            throw new XMLStreamException("Expected a start or end element", getLocation());
+        }
+        return event;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+            throw new XMLStreamException("Expected a start element", getLocation());
+        }
+        StringBuilder text = new StringBuilder();
+        int event = next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE) {
+                text.append(getText());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("Unexpected element in text only element", getLocation());
+            } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                throw new XMLStreamException("Unexpected end of document", getLocation());
+            }
+            event = next();
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void require(int type, String namespaceURI, String localName) throws XMLStreamException {
+        if (current == null) {
+            super.require(type, namespaceURI, localName);
+            return;
+        }
+        if (type != current.type
+                || (namespaceURI != null && !namespaceURI.equals(current.namespaceURI))
+                || (localName != null && !localName.equals(current.localName))) {
+            throw new XMLStreamException("Required event does not match", getLocation());
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws XMLStreamException {
+        return current != null || super.hasNext();
+    }
+
+    @Override
+    public int getEventType() {
+        return current != null ? current.type : super.getEventType();
+    }
+
+    @Override
+    public QName getName() {
+        return current != null ? new QName(nonNull(current.namespaceURI), current.localName, nonNull(current.prefix)) : super.getName();
+    }
+
+    @Override
+    public String getLocalName() {
+        return current != null ? current.localName : super.getLocalName();
+    }
+
+    @Override
+    public String getNamespaceURI() {
+        return current != null ? current.namespaceURI : super.getNamespaceURI();
+    }
+
+    @Override
+    public String getPrefix() {
+        return current != null ? current.prefix : super.getPrefix();
+    }
+
+    @Override
+    public boolean hasName() {
+        return current != null ? current.isElement() : super.hasName();
+    }
+
+    @Override
+    public boolean isStartElement() {
+        return current != null ? current.type == XMLStreamConstants.START_ELEMENT : super.isStartElement();
+    }
+
+    @Override
+    public boolean isEndElement() {
+        return current != null ? current.type == XMLStreamConstants.END_ELEMENT : super.isEndElement();
+    }
+
+    @Override
+    public boolean isCharacters() {
+        return current != null ? current.type == XMLStreamConstants.CHARACTERS : super.isCharacters();
+    }
+
+    @Override
+    public boolean isWhiteSpace() {
+        return current != null ? current.isWhiteSpace() : super.isWhiteSpace();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return current != null ? current.attributeCount : super.getAttributeCount();
+    }
+
+    @Override
+    public QName getAttributeName(int index) {
+        return current != null
+                ? new QName(nonNull(current.attributes[index * 5]), current.attributes[index * 5 + 1], nonNull(current.attributes[index * 5 + 2]))
+                : super.getAttributeName(index);
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+        return current != null ? current.attributes[index * 5] : super.getAttributeNamespace(index);
+    }
+
+    @Override
+    public String getAttributeLocalName(int index) {
+        return current != null ? current.attributes[index * 5 + 1] : super.getAttributeLocalName(index);
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+        return current != null ? current.attributes[index * 5 + 2] : super.getAttributePrefix(index);
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        return current != null ? current.attributes[index * 5 + 3] : super.getAttributeValue(index);
+    }
+
+    @Override
+    public String getAttributeType(int index) {
+        return current != null ? current.attributes[index * 5 + 4] : super.getAttributeType(index);
+    }
+
+    @Override
+    public boolean isAttributeSpecified(int index) {
+        return current != null || super.isAttributeSpecified(index);
+    }
+
+    @Override
+    public String getAttributeValue(String namespaceURI, String localName) {
+        if (current == null) {
+            return super.getAttributeValue(namespaceURI, localName);
+        }
+        for (int i = 0; i < current.attributeCount; i++) {
+            if (localName.equals(current.attributes[i * 5 + 1])
+                    && (namespaceURI == null || namespaceURI.equals(nonNull(current.attributes[i * 5])))) {
+                return current.attributes[i * 5 + 3];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getNamespaceCount() {
+        return current != null ? current.namespaceCount : super.getNamespaceCount();
+    }
+
+    @Override
+    public String getNamespacePrefix(int index) {
+        return current != null ? current.namespaces[index * 2] : super.getNamespacePrefix(index);
+    }
+
+    @Override
+    public String getNamespaceURI(int index) {
+        return current != null ? current.namespaces[index * 2 + 1] : super.getNamespaceURI(index);
+    }
+
+    @Override
+    public boolean hasText() {
+        return current != null ? current.isText() : super.hasText();
+    }
+
+    @Override
+    public String getText() {
+        return current != null ? new String(current.text, 0, current.textLength) : super.getText();
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        return current != null ? current.text : super.getTextCharacters();
+    }
+
+    @Override
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
+        if (current == null) {
+            return super.getTextCharacters(sourceStart, target, targetStart, length);
+        }
+        int count = Math.min(length, current.textLength - sourceStart);
+        if (count <= 0) {
+            return 0;
+        }
+        System.arraycopy(current.text, sourceStart, target, targetStart, count);
+        return count;
+    }
+
+    @Override
+    public int getTextStart() {
+        return current != null ? 0 : super.getTextStart();
+    }
+
+    @Override
+    public int getTextLength() {
+        return current != null ? current.textLength : super.getTextLength();
+    }
+
+    @Override
+    public String getPITarget() {
+        return current != null ? null : super.getPITarget();
+    }
+
+    @Override
+    public String getPIData() {
+        return current != null ? null : super.getPIData();
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * A copy of the state of a single parser event, reused across activities.
+     */
+    private static final class Snapshot {
+
+        private static final char[] NO_TEXT = new char[0];
+
+        int type;
+        String namespaceURI;
+        String localName;
+        String prefix;
+        int attributeCount;
+        String[] attributes = new String[0];
+        int namespaceCount;
+        String[] namespaces = new String[0];
+        char[] text = NO_TEXT;
+        int textLength;
+
+        void copy(XMLStreamReader reader, int event) {
+            type = event;
+            namespaceURI = null;
+            localName = null;
+            prefix = null;
+            attributeCount = 0;
+            namespaceCount = 0;
+            textLength = 0;
+
+            if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                namespaceURI = reader.getNamespaceURI();
+                localName = reader.getLocalName();
+                prefix = reader.getPrefix();
+                namespaceCount = reader.getNamespaceCount();
+                if (namespaces.length < namespaceCount * 2) {
+                    namespaces = new String[namespaceCount * 2];
+                }
+                for (int i = 0; i < namespaceCount; i++) {
+                    namespaces[i * 2] = reader.getNamespacePrefix(i);
+                    namespaces[i * 2 + 1] = reader.getNamespaceURI(i);
+                }
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                attributeCount = reader.getAttributeCount();
+                if (attributes.length < attributeCount * 5) {
+                    attributes = new String[attributeCount * 5];
+                }
+                for (int i = 0; i < attributeCount; i++) {
+                    attributes[i * 5] = reader.getAttributeNamespace(i);
+                    attributes[i * 5 + 1] = reader.getAttributeLocalName(i);
+                    attributes[i * 5 + 2] = reader.getAttributePrefix(i);
+                    attributes[i * 5 + 3] = reader.getAttributeValue(i);
+                    attributes[i * 5 + 4] = reader.getAttributeType(i);
+                }
+            } else if (isText()) {
+                textLength = reader.getTextLength();
+                if (text.length < textLength) {
+                    text = new char[Math.max(textLength, 64)];
+                }
+                System.arraycopy(reader.getTextCharacters(), reader.getTextStart(), text, 0, textLength);
+            }
+        }
+
+        boolean isElement() {
+            return type == XMLStreamConstants.START_ELEMENT || type == XMLStreamConstants.END_ELEMENT;
+        }
+
+        boolean isText() {
+            return type == XMLStreamConstants.CHARACTERS || type == XMLStreamConstants.CDATA
+                    || type == XMLStreamConstants.SPACE || type == XMLStreamConstants.COMMENT;
+        }
+
+        boolean isWhiteSpace() {
+            if (!isText() || type == XMLStreamConstants.COMMENT) {
+                return false;
+            }
+            for (int i = 0; i < textLength; i++) {
+                if (!Character.isWhitespace(text[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
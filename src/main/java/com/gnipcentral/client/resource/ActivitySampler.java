@@ -0,0 +1,118 @@
+package com.gnipcentral.client.resource;
+
+import java.util.List;
+
+import com.gnipcentral.client.util.Hashing;
+
+/**
+ * Keeps a deterministic fraction of {@link Activity activities} by hashing a key of each activity.  An activity is
+ * kept when the 64-bit {@link Hashing#hash64(String, long) hash} of its key falls below the sample rate, so the
+ * same key always gets the same decision on every node and across restarts.  Sampling by
+ * {@link Key#ACTOR_UID actor} keeps or drops all of an actor's activities together.
+ * <br/>
+ * <br/>
+ * Activities that do not have the sampled key are always kept.  Samplers with the same rate and different seeds
+ * select independent subsets.  A sampler is configured on a connection through
+ * {@link ParseOptions#setSampler(ActivitySampler)}; activities that are sampled out are dropped while the
+ * response is being parsed, before their payload is read.
+ */
+public class ActivitySampler {
+
+    /**
+     * The activity key that sampling decisions are based on.
+     */
+    public enum Key {
+        /**
+         * The {@link Activity#getActivityID() activity ID}.
+         */
+        ACTIVITY_ID,
+
+        /**
+         * The <code>uid</code> of the activity's first {@link Actor}, or the actor's value if it has no
+         * <code>uid</code>.
+         */
+        ACTOR_UID
+    }
+
+    private static final double HASH_RANGE = (double) (1L << 53);
+
+    private final double rate;
+    private final Key key;
+    private final long seed;
+    private final long threshold;
+
+    /**
+     * Create a sampler with a seed of <code>0</code>.
+     * @param rate the fraction of activities to keep, greater than <code>0</code> and at most <code>1</code>
+     * @param key the key that sampling decisions are based on
+     */
+    public ActivitySampler(double rate, Key key) {
+        this(rate, key, 0L);
+    }
+
+    /**
+     * Create a sampler.
+     * @param rate the fraction of activities to keep, greater than <code>0</code> and at most <code>1</code>
+     * @param key the key that sampling decisions are based on
+     * @param seed the seed of the hash
+     */
+    public ActivitySampler(double rate, Key key, long seed) {
+        if (!(rate > 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Invalid sample rate specified '"+rate+"'");
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("Invalid sample key specified '"+key+"'");
+        }
+
+        this.rate = rate;
+        this.key = key;
+        this.seed = seed;
+        this.threshold = (long) (rate * HASH_RANGE);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Decide whether an activity with the given key value is kept.
+     * @param keyValue the value of the activity's key; <code>null</code> if the activity has no key
+     * @return <code>true</code> if the activity is kept; <code>false</code> if it is sampled out
+     */
+    public boolean isSampled(String keyValue) {
+        if (keyValue == null || threshold >= (1L << 53)) {
+            return true;
+        }
+        return (Hashing.hash64(keyValue, seed) >>> 11) < threshold;
+    }
+
+    /**
+     * Decide whether an activity is kept.
+     * @param activity the activity
+     * @return <code>true</code> if the activity is kept; <code>false</code> if it is sampled out
+     */
+    public boolean isSampled(Activity activity) {
+        return isSampled(keyOf(activity));
+    }
+
+    private String keyOf(Activity activity) {
+        if (key == Key.ACTIVITY_ID) {
+            return activity.getActivityID();
+        }
+
+        List<Actor> actors = activity.getActors();
+        if (actors == null || actors.isEmpty()) {
+            return null;
+        }
+        Actor actor = actors.get(0);
+        return actor.getUid() != null ? actor.getUid() : actor.getValue();
+    }
+}
@@ -0,0 +1,763 @@
+package com.gnipcentral.client.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A compact binary alternative to {@link Translator#marshall(Object, OutputStream)} for {@link Activity} and
+ * {@link Results} objects, intended for caches, queues and local storage rather than for exchanging data with a
+ * Gnip server.  Every field is encoded, so an object decoded from its binary form is identical to the original,
+ * including the time zone and fractional seconds of {@link Activity#getAt()}.
+ * <br/>
+ * <br/>
+ * The encoding starts with a four byte header: the bytes <code>'G'</code> and <code>'B'</code>, the format
+ * {@link #VERSION version} and a byte identifying the encoded type.  Counts and lengths are written as unsigned
+ * variable-length integers and <code>at</code> is written as milliseconds since the epoch plus its time zone
+ * offset.  Values that tend to repeat, such as actions, sources, tags and actors, are written once per encoded
+ * object and referenced by index after that.  Strings are encoded as CESU-8, which round-trips any Java string.
+ * <br/>
+ * <br/>
+ * Data written by one version of this class can be read by the same or any later version.
+ */
+public class BinaryCodec {
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC_0 = 'G';
+    private static final int MAGIC_1 = 'B';
+    private static final int TYPE_ACTIVITY = 'A';
+    private static final int TYPE_RESULTS = 'R';
+
+    private static final int MAX_DICTIONARY_SIZE = 1 << 14;
+    private static final int TIME_ZONE = 1;
+    private static final int MILLIS = 2;
+    private static final int FRACTION = 4;
+    private static final BigDecimal THOUSAND = BigDecimal.valueOf(1000);
+
+    private static DatatypeFactory datatypeFactory;
+
+    static {
+        try {
+            datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BinaryCodec() {
+        // static methods only
+    }
+
+    /**
+     * Encode an {@link Activity}.
+     * @param activity the activity
+     * @return the binary form of the activity
+     */
+    public static byte[] encode(Activity activity) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader(TYPE_ACTIVITY);
+        encoder.writeActivity(activity);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encode a {@link Results} object and its activities.
+     * @param results the results
+     * @return the binary form of the results
+     */
+    public static byte[] encode(Results results) {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader(TYPE_RESULTS);
+        encoder.writeResults(results);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encode an {@link Activity} to an {@link OutputStream}.
+     * @param activity the activity
+     * @param output the output stream
+     * @throws IOException if an error occurs writing to the stream
+     */
+    public static void encode(Activity activity, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader(TYPE_ACTIVITY);
+        encoder.writeActivity(activity);
+        encoder.writeTo(output);
+    }
+
+    /**
+     * Encode a {@link Results} object and its activities to an {@link OutputStream}.
+     * @param results the results
+     * @param output the output stream
+     * @throws IOException if an error occurs writing to the stream
+     */
+    public static void encode(Results results, OutputStream output) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeHeader(TYPE_RESULTS);
+        encoder.writeResults(results);
+        encoder.writeTo(output);
+    }
+
+    /**
+     * Decode an {@link Activity}.
+     * @param data the binary form of the activity
+     * @return the activity
+     * @throws IOException if the data is not an encoded activity or was written by a later version
+     */
+    public static Activity decodeActivity(byte[] data) throws IOException {
+        Decoder decoder = new Decoder(data);
+        decoder.readHeader(TYPE_ACTIVITY);
+        Activity activity = decoder.readActivity();
+        decoder.checkEnd();
+        return activity;
+    }
+
+    /**
+     * Decode a {@link Results} object.
+     * @param data the binary form of the results
+     * @return the results
+     * @throws IOException if the data is not an encoded results object or was written by a later version
+     */
+    public static Results decodeResults(byte[] data) throws IOException {
+        Decoder decoder = new Decoder(data);
+        decoder.readHeader(TYPE_RESULTS);
+        Results results = decoder.readResults();
+        decoder.checkEnd();
+        return results;
+    }
+
+    /**
+     * Decode an {@link Activity} from an {@link InputStream}, which is read to its end.
+     * @param input the input stream
+     * @return the activity
+     * @throws IOException if an error occurs reading the stream or the data is not an encoded activity
+     */
+    public static Activity decodeActivity(InputStream input) throws IOException {
+        return decodeActivity(IOUtils.toByteArray(input));
+    }
+
+    /**
+     * Decode a {@link Results} object from an {@link InputStream}, which is read to its end.
+     * @param input the input stream
+     * @return the results
+     * @throws IOException if an error occurs reading the stream or the data is not an encoded results object
+     */
+    public static Results decodeResults(InputStream input) throws IOException {
+        return decodeResults(IOUtils.toByteArray(input));
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        return (value % divisor != 0 && ((value ^ divisor) < 0)) ? quotient - 1 : quotient;
+    }
+
+    private static final class Encoder {
+
+        private byte[] buffer = new byte[512];
+        private int size;
+        private final HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+
+        void writeHeader(int type) {
+            ensure(4);
+            buffer[size++] = (byte) MAGIC_0;
+            buffer[size++] = (byte) MAGIC_1;
+            buffer[size++] = (byte) VERSION;
+            buffer[size++] = (byte) type;
+        }
+
+        void writeResults(Results results) {
+            writeString(results.getPollResponseCode());
+            writeString(results.getPollResponseMessage());
+            writeString(results.getCount());
+            writeString(results.getUniqueCount());
+            writeShared(results.getDataCollectorId());
+            writeShared(results.getPublisher());
+            writeShared(results.getEndPoint());
+            writeString(results.getRefreshUrl());
+
+            List<Activity> activities = results.getActivities();
+            writeCount(activities);
+            if (activities != null) {
+                for (int i = 0, count = activities.size(); i < count; i++) {
+                    writeActivity(activities.get(i));
+                }
+            }
+        }
+
+        void writeActivity(Activity activity) {
+            writeAt(activity.getAtCalendar());
+            writeShared(activity.getAction());
+            writeString(activity.getActivityID());
+            writeString(activity.getUrl());
+            writeSharedList(activity.getSources());
+            writeSharedList(activity.getKeywords());
+
+            List<Place> places = activity.getPlaces();
+            writeCount(places);
+            if (places != null) {
+                for (int i = 0, count = places.size(); i < count; i++) {
+                    writePlace(places.get(i));
+                }
+            }
+
+            List<Actor> actors = activity.getActors();
+            writeCount(actors);
+            if (actors != null) {
+                for (int i = 0, count = actors.size(); i < count; i++) {
+                    Actor actor = actors.get(i);
+                    writeShared(actor.getValue());
+                    writeShared(actor.getUid());
+                    writeShared(actor.getValueMetaUrl());
+                    writeShared(actor.getMetaUrl());
+                }
+            }
+
+            writeUrls(activity.getDestinationUrls());
+            writeValues(activity.getTags());
+            writeValues(activity.getTos());
+            writeUrls(activity.getRegardingUrls());
+
+            Payload payload = activity.getPayload();
+            writeVarint(payload != null ? 1 : 0);
+            if (payload != null) {
+                writeString(payload.getTitle());
+                writeString(payload.getBody());
+                List<MediaUrl> mediaUrls = payload.getMediaUrls();
+                writeCount(mediaUrls);
+                if (mediaUrls != null) {
+                    for (int i = 0, count = mediaUrls.size(); i < count; i++) {
+                        MediaUrl mediaUrl = mediaUrls.get(i);
+                        writeString(mediaUrl.getUrl());
+                        writeShared(mediaUrl.getWidth());
+                        writeShared(mediaUrl.getHeight());
+                        writeShared(mediaUrl.getDuration());
+                        writeShared(mediaUrl.getMimeType());
+                        writeShared(mediaUrl.getType());
+                    }
+                }
+                writeString(payload.getRaw());
+            }
+        }
+
+        private void writeAt(XMLGregorianCalendar at) {
+            int timezone = at.getTimezone();
+            BigDecimal fraction = at.getFractionalSecond();
+            int millis = 0;
+            int flags = timezone != DatatypeConstants.FIELD_UNDEFINED ? TIME_ZONE : 0;
+            if (fraction != null) {
+                BigDecimal scaled = fraction.multiply(THOUSAND);
+                millis = scaled.intValue();
+                flags |= (fraction.scale() == 3 ? MILLIS : FRACTION);
+            }
+
+            long seconds = Activity.daysFromCivil(at.getEonAndYear().longValue(), at.getMonth(), at.getDay()) * 86400L
+                    + at.getHour() * 3600L + at.getMinute() * 60L + at.getSecond();
+            if ((flags & TIME_ZONE) != 0) {
+                seconds -= timezone * 60L;
+            }
+
+            writeVarint(flags);
+            writeSignedVarlong(seconds * 1000L + millis);
+            if ((flags & TIME_ZONE) != 0) {
+                writeSignedVarlong(timezone);
+            }
+            if ((flags & FRACTION) != 0) {
+                writeVarint(fraction.scale());
+                writeSignedVarlong(fraction.unscaledValue().longValue());
+            }
+        }
+
+        private void writePlace(Place place) {
+            List<Double> point = place.getPointList();
+            writeCount(point);
+            if (point != null) {
+                for (int i = 0, count = point.size(); i < count; i++) {
+                    writeDouble(point.get(i));
+                }
+            }
+
+            Double elevation = place.getElevation();
+            writeVarint(elevation != null ? 1 : 0);
+            if (elevation != null) {
+                writeDouble(elevation);
+            }
+            Integer floor = place.getFloor();
+            writeVarint(floor != null ? 1 : 0);
+            if (floor != null) {
+                writeSignedVarlong(floor);
+            }
+            writeShared(place.getFeatureTypeTag());
+            writeShared(place.getFeatureName());
+            writeShared(place.getRelationshipTag());
+        }
+
+        private void writeUrls(List<GnipUrl> urls) {
+            writeCount(urls);
+            if (urls != null) {
+                for (int i = 0, count = urls.size(); i < count; i++) {
+                    GnipUrl url = urls.get(i);
+                    writeString(url.getUrl());
+                    writeShared(url.getMetaUrl());
+                }
+            }
+        }
+
+        private void writeValues(List<GnipValue> values) {
+            writeCount(values);
+            if (values != null) {
+                for (int i = 0, count = values.size(); i < count; i++) {
+                    GnipValue value = values.get(i);
+                    writeShared(value.getValue());
+                    writeShared(value.getMetaUrl());
+                }
+            }
+        }
+
+        private void writeSharedList(List<String> values) {
+            writeCount(values);
+            if (values != null) {
+                for (int i = 0, count = values.size(); i < count; i++) {
+                    writeShared(values.get(i));
+                }
+            }
+        }
+
+        private void writeCount(List<?> list) {
+            writeVarint(list != null ? list.size() + 1 : 0);
+        }
+
+        /**
+         * Write a string that is likely to repeat: <code>0</code> for null, <code>1</code> and <code>2</code>
+         * for a literal that is not or is added to the dictionary, or <code>3</code> plus a dictionary index.
+         */
+        private void writeShared(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarint(index + 3);
+                return;
+            }
+            if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(value, dictionary.size());
+                writeVarint(2);
+            } else {
+                writeVarint(1);
+            }
+            writeChars(value);
+        }
+
+        /**
+         * Write a string: <code>0</code> for null or its encoded length plus one followed by the encoded bytes.
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            writeChars(value);
+        }
+
+        private void writeChars(String value) {
+            int length = value.length();
+            int utfLength = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                utfLength += c < 0x80 ? 1 : (c < 0x800 ? 2 : 3);
+            }
+            writeVarint(utfLength + 1);
+            ensure(utfLength);
+            byte[] bytes = buffer;
+            int position = size;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xc0 | (c >> 6));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                } else {
+                    bytes[position++] = (byte) (0xe0 | (c >> 12));
+                    bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            size = position;
+        }
+
+        private void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        private void writeSignedVarlong(long value) {
+            writeVarlong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarint(int value) {
+            writeVarlong(value & 0xffffffffL);
+        }
+
+        private void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void ensure(int length) {
+            if (size + length > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, size + length)];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[size];
+            System.arraycopy(buffer, 0, bytes, 0, size);
+            return bytes;
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            output.write(buffer, 0, size);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] buffer;
+        private int position;
+        private final List<String> dictionary = new ArrayList<String>();
+        private char[] chars = new char[64];
+
+        Decoder(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        void readHeader(int type) throws IOException {
+            if (buffer.length < 4 || buffer[0] != MAGIC_0 || buffer[1] != MAGIC_1) {
+                throw new IOException("Invalid binary data, the header is missing");
+            }
+            int version = buffer[2] & 0xff;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported binary data version " + version);
+            }
+            if ((buffer[3] & 0xff) != type) {
+                throw new IOException("Invalid binary data, unexpected type '" + (char) (buffer[3] & 0xff) + "'");
+            }
+            position = 4;
+        }
+
+        void checkEnd() throws IOException {
+            if (position != buffer.length) {
+                throw new IOException("Invalid binary data, " + (buffer.length - position) + " trailing bytes");
+            }
+        }
+
+        Results readResults() throws IOException {
+            Results results = new Results();
+            results.setPollResponseCode(readString());
+            results.setPollResponseMessage(readString());
+            results.setCount(readString());
+            results.setUniqueCount(readString());
+            results.setDataCollectorId(readShared());
+            results.setPublisher(readShared());
+            results.setEndPoint(readShared());
+            results.setRefreshUrl(readString());
+
+            int count = readCount();
+            if (count >= 0) {
+                List<Activity> activities = new ArrayList<Activity>(count);
+                for (int i = 0; i < count; i++) {
+                    activities.add(readActivity());
+                }
+                results.setActivities(activities);
+            }
+            return results;
+        }
+
+        Activity readActivity() throws IOException {
+            Activity activity = new Activity();
+            activity.setAtCalendar(readAt());
+            activity.setAction(readShared());
+            activity.setActivityID(readString());
+            activity.setUrl(readString());
+            activity.setSources(readSharedList());
+            activity.setKeywords(readSharedList());
+
+            int count = readCount();
+            if (count >= 0) {
+                List<Place> places = new ArrayList<Place>(count);
+                for (int i = 0; i < count; i++) {
+                    places.add(readPlace());
+                }
+                activity.setPlaces(places);
+            }
+
+            count = readCount();
+            if (count >= 0) {
+                List<Actor> actors = new ArrayList<Actor>(count);
+                for (int i = 0; i < count; i++) {
+                    String value = readShared();
+                    String uid = readShared();
+                    String valueMetaUrl = readShared();
+                    Actor actor = new Actor(checkValue(value), uid, valueMetaUrl);
+                    actor.setMetaUrl(readShared());
+                    actors.add(actor);
+                }
+                activity.setActors(actors);
+            }
+
+            activity.setDestinationUrls(readUrls());
+            activity.setTags(readValues());
+            activity.setTos(readValues());
+            activity.setRegardingUrls(readUrls());
+
+            if (readVarint() != 0) {
+                String title = readString();
+                String body = readString();
+                List<MediaUrl> mediaUrls = null;
+                count = readCount();
+                if (count >= 0) {
+                    mediaUrls = new ArrayList<MediaUrl>(count);
+                    for (int i = 0; i < count; i++) {
+                        mediaUrls.add(new MediaUrl(checkValue(readString()), readShared(), readShared(), readShared(),
+                                readShared(), readShared()));
+                    }
+                }
+                activity.setPayload(new Payload(title, body, mediaUrls, checkValue(readString()), true));
+            }
+            return activity;
+        }
+
+        private XMLGregorianCalendar readAt() throws IOException {
+            int flags = readVarint();
+            long millis = readSignedVarlong();
+            int timezone = DatatypeConstants.FIELD_UNDEFINED;
+            long local = millis;
+            if ((flags & TIME_ZONE) != 0) {
+                timezone = (int) readSignedVarlong();
+                local += timezone * 60000L;
+            }
+
+            BigDecimal fraction = null;
+            if ((flags & FRACTION) != 0) {
+                int scale = readVarint();
+                fraction = BigDecimal.valueOf(readSignedVarlong(), scale);
+            } else if ((flags & MILLIS) != 0) {
+                fraction = BigDecimal.valueOf(local - floorDiv(local, 1000) * 1000, 3);
+            }
+
+            long seconds = floorDiv(local, 1000);
+            long days = floorDiv(seconds, 86400);
+            int secondOfDay = (int) (seconds - days * 86400);
+
+            // civil date from days since the epoch
+            long z = days + 719468;
+            long era = (z >= 0 ? z : z - 146096) / 146097;
+            long dayOfEra = z - era * 146097;
+            long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long mp = (5 * dayOfYear + 2) / 153;
+            int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+            int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+            long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+            return datatypeFactory.newXMLGregorianCalendar(BigInteger.valueOf(year), month, day,
+                    secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60, fraction, timezone);
+        }
+
+        private Place readPlace() throws IOException {
+            Place place = new Place();
+            int count = readCount();
+            if (count >= 0) {
+                List<Double> point = new ArrayList<Double>(count);
+                for (int i = 0; i < count; i++) {
+                    point.add(readDouble());
+                }
+                place.setPointList(point);
+            }
+            if (readVarint() != 0) {
+                place.setElevation(readDouble());
+            }
+            if (readVarint() != 0) {
+                place.setFloor((int) readSignedVarlong());
+            }
+            place.setFeatureTypeTag(readShared());
+            place.setFeatureName(readShared());
+            place.setRelationshipTag(readShared());
+            return place;
+        }
+
+        private List<GnipUrl> readUrls() throws IOException {
+            int count = readCount();
+            if (count < 0) {
+                return null;
+            }
+            List<GnipUrl> urls = new ArrayList<GnipUrl>(count);
+            for (int i = 0; i < count; i++) {
+                urls.add(new GnipUrl(checkValue(readString()), readShared()));
+            }
+            return urls;
+        }
+
+        private List<GnipValue> readValues() throws IOException {
+            int count = readCount();
+            if (count < 0) {
+                return null;
+            }
+            List<GnipValue> values = new ArrayList<GnipValue>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(new GnipValue(checkValue(readShared()), readShared()));
+            }
+            return values;
+        }
+
+        private List<String> readSharedList() throws IOException {
+            int count = readCount();
+            if (count < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readShared());
+            }
+            return values;
+        }
+
+        /**
+         * Read a list length, returning <code>-1</code> for a null list.
+         */
+        private int readCount() throws IOException {
+            int count = readVarint() - 1;
+            if (count > buffer.length - position) {
+                throw new IOException("Invalid binary data, list length " + count + " exceeds the data");
+            }
+            return count;
+        }
+
+        private String readShared() throws IOException {
+            int marker = readVarint();
+            if (marker == 0) {
+                return null;
+            }
+            if (marker >= 3) {
+                int index = marker - 3;
+                if (index >= dictionary.size()) {
+                    throw new IOException("Invalid binary data, unknown string reference " + index);
+                }
+                return dictionary.get(index);
+            }
+            String value = readChars(readVarint() - 1);
+            if (marker == 2) {
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint() - 1;
+            return length < 0 ? null : readChars(length);
+        }
+
+        private String readChars(int length) throws IOException {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IOException("Invalid binary data, string length " + length + " exceeds the data");
+            }
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            byte[] bytes = buffer;
+            int end = position + length;
+            int count = 0;
+            int i = position;
+            while (i < end) {
+                int b = bytes[i] & 0xff;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                    i++;
+                } else if ((b & 0xe0) == 0xc0 && i + 1 < end) {
+                    chars[count++] = (char) (((b & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
+                    i += 2;
+                } else if ((b & 0xf0) == 0xe0 && i + 2 < end) {
+                    chars[count++] = (char) (((b & 0x0f) << 12) | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                    i += 3;
+                } else {
+                    throw new IOException("Invalid binary data, malformed string at offset " + i);
+                }
+            }
+            position = end;
+            return new String(chars, 0, count);
+        }
+
+        private double readDouble() throws IOException {
+            if (buffer.length - position < 8) {
+                throw new IOException("Invalid binary data, unexpected end of data");
+            }
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (buffer[position++] & 0xff);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private long readSignedVarlong() throws IOException {
+            long value = readVarlong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readVarint() throws IOException {
+            long value = readVarlong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid binary data, value " + value + " out of range");
+            }
+            return (int) value;
+        }
+
+        private long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= buffer.length) {
+                    throw new IOException("Invalid binary data, unexpected end of data");
+                }
+                int b = buffer[position++];
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid binary data, malformed variable-length integer");
+        }
+
+        private static String checkValue(String value) throws IOException {
+            if (value == null) {
+                throw new IOException("Invalid binary data, missing required value");
+            }
+            return value;
+        }
+    }
+}
@@ -10,18 +10,38 @@ import java.io.InputStream;
 
 /**
  * A wrapper that provides access to Gnip's XSD document; this class is intended to be used for JAXB marshalling
- * and should not be used by client code.
+ * and should not be used by client code.  The XSD is compiled on the first call to {@link #getSchema()}, so
+ * processes that never validate never pay for it.
  */
 class GnipSchema {
 
-    public final static Schema schema;
+    private GnipSchema() {
+    }
+
+    /**
+     * Retrieves the compiled Gnip schema, compiling it if this is the first call.  Concurrent first calls wait for
+     * a single compilation.
+     * @return the schema
+     */
+    static Schema getSchema() {
+        return Holder.SCHEMA;
+    }
+
+    /**
+     * Initialized by the JVM on first access, which makes the compilation lazy and thread-safe without locking
+     * on every call.
+     */
+    private static final class Holder {
+
+        static final Schema SCHEMA;
 
-    static {
-        try {
-            InputStream gnipSchema = Thread.currentThread().getContextClassLoader().getResourceAsStream("www/schema/gnip.xsd");
-            schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(gnipSchema));
-        } catch (SAXException e) {
-            throw new RuntimeException("Unable to find the Gnip schema." + e, e);
+        static {
+            try {
+                InputStream gnipSchema = Thread.currentThread().getContextClassLoader().getResourceAsStream("www/schema/gnip.xsd");
+                SCHEMA = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(gnipSchema));
+            } catch (SAXException e) {
+                throw new RuntimeException("Unable to find the Gnip schema." + e, e);
+            }
         }
     }
-}
\ No newline at end of file
+}
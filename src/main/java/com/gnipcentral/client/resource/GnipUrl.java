@@ -2,6 +2,8 @@ package com.gnipcentral.client.resource;
 
 import javax.xml.bind.annotation.*;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Model object that represents a generic URL of a Gnip {@link Activity}. For activities
  * and simple notifications, the {@link GnipUrl} contains information that was originally
@@ -73,6 +75,13 @@ public class GnipUrl {
         this.metaUrl = metaUrl;
     }
 
+    /**
+     * Replace this GnipUrl's meta URL with its pooled instance.  The URL itself is usually unique.
+     */
+    void intern(StringPool pool) {
+        metaUrl = pool.intern(metaUrl);
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -2,6 +2,8 @@ package com.gnipcentral.client.resource;
 
 import javax.xml.bind.annotation.*;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Model object that represents a generic value of a Gnip {@link Activity}. For activities
  * and simple notifications, the {@link GnipValue} contains information that was originally
@@ -64,6 +66,14 @@ public class GnipValue {
         return metaUrl;
     }
 
+    /**
+     * Retrieves the <code>metaURL</code> attribute, which subclasses that hold their own meta URL do not
+     * return from {@link #getMetaUrl()}.
+     */
+    String getValueMetaUrl() {
+        return metaUrl;
+    }
+
     /**
      * Set the meta URL associated with this GnipValue.
      * @param metaUrl the meta URL.
@@ -72,6 +82,15 @@ public class GnipValue {
         this.metaUrl = metaUrl;
     }
 
+    /**
+     * Replace this GnipValue's value and meta URL with their pooled instances.  Only tags are pooled; actors and
+     * tos are mostly distinct.
+     */
+    void intern(StringPool pool) {
+        value = pool.intern(value);
+        metaUrl = pool.intern(metaUrl);
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -0,0 +1,1103 @@
+package com.gnipcentral.client.resource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Converts {@link Activity} and {@link Results} objects to and from JSON without building an intermediate tree.
+ * Every field is written, including the {@link Payload}, {@link Place places} and {@link MediaUrl media URLs};
+ * fields that are <code>null</code> are omitted.  The <code>at</code> time is written in the same
+ * <code>xs:dateTime</code> form as the XML so that it round-trips exactly.  Unknown fields are skipped when
+ * reading, so documents written by later versions can still be read.
+ * <br/>
+ * <br/>
+ * An activity is written as a single line, so {@link #writeLines(Results, Writer)} produces newline-delimited
+ * JSON, which can be read back one activity at a time with {@link #readActivity(Reader)}.
+ * <br/>
+ * <br/>
+ * A codec reuses its character buffers between calls and is therefore not thread-safe; use one codec per thread.
+ */
+public class JsonCodec {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static DatatypeFactory datatypeFactory;
+
+    static {
+        try {
+            datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Writer output;
+    private char[] out = new char[BUFFER_SIZE];
+    private int outSize;
+
+    private Reader input;
+    private final char[] in = new char[BUFFER_SIZE];
+    private int inPosition;
+    private int inLimit;
+    private long inOffset;
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Create a {@link JsonCodec}.
+     */
+    public JsonCodec() {
+        //Empty constructor
+    }
+
+    /**
+     * Convert an {@link Activity} to JSON.
+     * @param activity the activity
+     * @return the JSON string
+     */
+    public String toJson(Activity activity) {
+        output = null;
+        outSize = 0;
+        try {
+            writeActivity(activity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception occurred writing JSON to a string", e);
+        }
+        return new String(out, 0, outSize);
+    }
+
+    /**
+     * Convert a {@link Results} object and its activities to JSON.
+     * @param results the results
+     * @return the JSON string
+     */
+    public String toJson(Results results) {
+        output = null;
+        outSize = 0;
+        try {
+            writeResults(results);
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception occurred writing JSON to a string", e);
+        }
+        return new String(out, 0, outSize);
+    }
+
+    /**
+     * Write an {@link Activity} as JSON.
+     * @param activity the activity
+     * @param writer the writer
+     * @throws IOException if an error occurs writing
+     */
+    public void write(Activity activity, Writer writer) throws IOException {
+        begin(writer);
+        writeActivity(activity);
+        flush();
+    }
+
+    /**
+     * Write a {@link Results} object and its activities as JSON.
+     * @param results the results
+     * @param writer the writer
+     * @throws IOException if an error occurs writing
+     */
+    public void write(Results results, Writer writer) throws IOException {
+        begin(writer);
+        writeResults(results);
+        flush();
+    }
+
+    /**
+     * Write the activities of a {@link Results} object as newline-delimited JSON, one activity per line.  The
+     * header fields of the results are not written.
+     * @param results the results
+     * @param writer the writer
+     * @throws IOException if an error occurs writing
+     */
+    public void writeLines(Results results, Writer writer) throws IOException {
+        begin(writer);
+        if (results != null && results.getActivities() != null) {
+            List<Activity> activities = results.getActivities();
+            for (int i = 0, size = activities.size(); i < size; i++) {
+                writeActivity(activities.get(i));
+                append('\n');
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Read an {@link Activity} from a JSON string.
+     * @param json the JSON
+     * @return the activity
+     * @throws IOException if the JSON is not a valid activity
+     */
+    public Activity readActivity(String json) throws IOException {
+        input = null;
+        Activity activity = readActivity(new StringReader(json));
+        checkEnd();
+        return activity;
+    }
+
+    /**
+     * Read the next {@link Activity} from a reader, for example from newline-delimited JSON.  The codec reads
+     * ahead from the reader, so consecutive activities must be read with the same codec; passing a different
+     * reader discards anything read ahead from the previous one.
+     * @param reader the reader
+     * @return the activity or <code>null</code> at the end of the input
+     * @throws IOException if an error occurs reading or the JSON is not a valid activity
+     */
+    public Activity readActivity(Reader reader) throws IOException {
+        begin(reader);
+        if (peekNonWhitespace() < 0) {
+            return null;
+        }
+        return parseActivity();
+    }
+
+    /**
+     * Read a {@link Results} object from a JSON string.
+     * @param json the JSON
+     * @return the results
+     * @throws IOException if the JSON is not a valid results object
+     */
+    public Results readResults(String json) throws IOException {
+        input = null;
+        Results results = readResults(new StringReader(json));
+        checkEnd();
+        return results;
+    }
+
+    /**
+     * Read a {@link Results} object from a reader.
+     * @param reader the reader
+     * @return the results
+     * @throws IOException if an error occurs reading or the JSON is not a valid results object
+     */
+    public Results readResults(Reader reader) throws IOException {
+        begin(reader);
+        Results results = new Results();
+        expect('{');
+        if (!endOf('}')) {
+            do {
+                String key = readKey();
+                if ("activities".equals(key)) {
+                    if (!readNull()) {
+                        List<Activity> activities = new ArrayList<Activity>();
+                        expect('[');
+                        if (!endOf(']')) {
+                            do {
+                                activities.add(parseActivity());
+                            } while (more(']'));
+                        }
+                        results.setActivities(activities);
+                    }
+                } else if ("pollResponseCode".equals(key)) {
+                    results.setPollResponseCode(readNullableString());
+                } else if ("pollResponseMessage".equals(key)) {
+                    results.setPollResponseMessage(readNullableString());
+                } else if ("count".equals(key)) {
+                    results.setCount(readNullableString());
+                } else if ("uniqueCount".equals(key)) {
+                    results.setUniqueCount(readNullableString());
+                } else if ("dataCollectorId".equals(key)) {
+                    results.setDataCollectorId(readNullableString());
+                } else if ("publisher".equals(key)) {
+                    results.setPublisher(readNullableString());
+                } else if ("endpoint".equals(key)) {
+                    results.setEndPoint(readNullableString());
+                } else if ("refreshURL".equals(key)) {
+                    results.setRefreshUrl(readNullableString());
+                } else {
+                    skipValue();
+                }
+            } while (more('}'));
+        }
+        return results;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // writing
+
+    private void begin(Writer writer) {
+        output = writer;
+        outSize = 0;
+    }
+
+    private void writeResults(Results results) throws IOException {
+        append('{');
+        boolean first = true;
+        first = field(first, "pollResponseCode", results.getPollResponseCode());
+        first = field(first, "pollResponseMessage", results.getPollResponseMessage());
+        first = field(first, "count", results.getCount());
+        first = field(first, "uniqueCount", results.getUniqueCount());
+        first = field(first, "dataCollectorId", results.getDataCollectorId());
+        first = field(first, "publisher", results.getPublisher());
+        first = field(first, "endpoint", results.getEndPoint());
+        first = field(first, "refreshURL", results.getRefreshUrl());
+        List<Activity> activities = results.getActivities();
+        if (activities != null) {
+            key(first, "activities");
+            append('[');
+            for (int i = 0, size = activities.size(); i < size; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                writeActivity(activities.get(i));
+            }
+            append(']');
+        }
+        append('}');
+    }
+
+    private void writeActivity(Activity activity) throws IOException {
+        append('{');
+        boolean first = true;
+        XMLGregorianCalendar at = activity.getAtCalendar();
+        first = field(first, "at", at != null ? at.toXMLFormat() : null);
+        first = field(first, "action", activity.getAction());
+        first = field(first, "activityID", activity.getActivityID());
+        first = field(first, "url", activity.getUrl());
+        first = stringList(first, "sources", activity.getSources());
+        first = stringList(first, "keywords", activity.getKeywords());
+
+        List<Place> places = activity.getPlaces();
+        if (places != null) {
+            first = key(first, "places");
+            append('[');
+            for (int i = 0, size = places.size(); i < size; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                writePlace(places.get(i));
+            }
+            append(']');
+        }
+
+        List<Actor> actors = activity.getActors();
+        if (actors != null) {
+            first = key(first, "actors");
+            append('[');
+            for (int i = 0, size = actors.size(); i < size; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                Actor actor = actors.get(i);
+                append('{');
+                boolean firstField = field(true, "value", actor.getValue());
+                firstField = field(firstField, "uid", actor.getUid());
+                firstField = field(firstField, "metaURL", actor.getValueMetaUrl());
+                // the actor's own meta URL, distinct from the metaURL of its value that every value carries
+                field(firstField, "actorMetaUrl", actor.getMetaUrl());
+                append('}');
+            }
+            append(']');
+        }
+
+        first = urlList(first, "destinationUrls", activity.getDestinationUrls());
+        first = valueList(first, "tags", activity.getTags());
+        first = valueList(first, "tos", activity.getTos());
+        first = urlList(first, "regardingUrls", activity.getRegardingUrls());
+
+        Payload payload = activity.getPayload();
+        if (payload != null) {
+            key(first, "payload");
+            writePayload(payload);
+        }
+        append('}');
+    }
+
+    private void writePlace(Place place) throws IOException {
+        append('{');
+        boolean first = true;
+        List<Double> point = place.getPointList();
+        if (point != null) {
+            first = key(first, "point");
+            append('[');
+            for (int i = 0, size = point.size(); i < size; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                number(point.get(i));
+            }
+            append(']');
+        }
+        if (place.getElevation() != null) {
+            first = key(first, "elevation");
+            number(place.getElevation());
+        }
+        if (place.getFloor() != null) {
+            first = key(first, "floor");
+            appendRaw(place.getFloor().toString());
+        }
+        first = field(first, "featureTypeTag", place.getFeatureTypeTag());
+        first = field(first, "featureName", place.getFeatureName());
+        field(first, "relationshipTag", place.getRelationshipTag());
+        append('}');
+    }
+
+    private void writePayload(Payload payload) throws IOException {
+        append('{');
+        boolean first = field(true, "title", payload.getTitle());
+        first = field(first, "body", payload.getBody());
+        List<MediaUrl> mediaUrls = payload.getMediaUrls();
+        if (mediaUrls != null) {
+            first = key(first, "mediaUrls");
+            append('[');
+            for (int i = 0, size = mediaUrls.size(); i < size; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                MediaUrl mediaUrl = mediaUrls.get(i);
+                append('{');
+                boolean firstField = field(true, "url", mediaUrl.getUrl());
+                firstField = field(firstField, "width", mediaUrl.getWidth());
+                firstField = field(firstField, "height", mediaUrl.getHeight());
+                firstField = field(firstField, "duration", mediaUrl.getDuration());
+                firstField = field(firstField, "mimeType", mediaUrl.getMimeType());
+                field(firstField, "type", mediaUrl.getType());
+                append('}');
+            }
+            append(']');
+        }
+        field(first, "raw", payload.getRaw());
+        append('}');
+    }
+
+    private boolean stringList(boolean first, String name, List<String> values) throws IOException {
+        if (values == null) {
+            return first;
+        }
+        key(first, name);
+        append('[');
+        for (int i = 0, size = values.size(); i < size; i++) {
+            if (i > 0) {
+                append(',');
+            }
+            string(values.get(i));
+        }
+        append(']');
+        return false;
+    }
+
+    private boolean urlList(boolean first, String name, List<GnipUrl> urls) throws IOException {
+        if (urls == null) {
+            return first;
+        }
+        key(first, name);
+        append('[');
+        for (int i = 0, size = urls.size(); i < size; i++) {
+            if (i > 0) {
+                append(',');
+            }
+            GnipUrl url = urls.get(i);
+            append('{');
+            field(field(true, "url", url.getUrl()), "metaURL", url.getMetaUrl());
+            append('}');
+        }
+        append(']');
+        return false;
+    }
+
+    private boolean valueList(boolean first, String name, List<GnipValue> values) throws IOException {
+        if (values == null) {
+            return first;
+        }
+        key(first, name);
+        append('[');
+        for (int i = 0, size = values.size(); i < size; i++) {
+            if (i > 0) {
+                append(',');
+            }
+            GnipValue value = values.get(i);
+            append('{');
+            field(field(true, "value", value.getValue()), "metaURL", value.getMetaUrl());
+            append('}');
+        }
+        append(']');
+        return false;
+    }
+
+    private boolean field(boolean first, String name, String value) throws IOException {
+        if (value == null) {
+            return first;
+        }
+        key(first, name);
+        string(value);
+        return false;
+    }
+
+    private boolean key(boolean first, String name) throws IOException {
+        if (!first) {
+            append(',');
+        }
+        append('"');
+        appendRaw(name);
+        append('"');
+        append(':');
+        return false;
+    }
+
+    private void number(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // not representable as a JSON number
+            string(Double.toString(value));
+        } else {
+            appendRaw(Double.toString(value));
+        }
+    }
+
+    private void string(String value) throws IOException {
+        int length = value.length();
+        ensure(length + 2);
+        out[outSize++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                if (outSize == out.length) {
+                    ensure(1);
+                }
+                out[outSize++] = c;
+                continue;
+            }
+
+            ensure(6);
+            out[outSize++] = '\\';
+            switch (c) {
+                case '"':
+                    out[outSize++] = '"';
+                    break;
+                case '\\':
+                    out[outSize++] = '\\';
+                    break;
+                case '\n':
+                    out[outSize++] = 'n';
+                    break;
+                case '\r':
+                    out[outSize++] = 'r';
+                    break;
+                case '\t':
+                    out[outSize++] = 't';
+                    break;
+                default:
+                    // other control characters, and the line separators that JavaScript does not allow in strings
+                    out[outSize++] = 'u';
+                    out[outSize++] = HEX[(c >> 12) & 0xf];
+                    out[outSize++] = HEX[(c >> 8) & 0xf];
+                    out[outSize++] = HEX[(c >> 4) & 0xf];
+                    out[outSize++] = HEX[c & 0xf];
+                    break;
+            }
+        }
+        append('"');
+    }
+
+    private void append(char c) throws IOException {
+        if (outSize == out.length) {
+            ensure(1);
+        }
+        out[outSize++] = c;
+    }
+
+    private void appendRaw(String value) throws IOException {
+        int length = value.length();
+        ensure(length);
+        value.getChars(0, length, out, outSize);
+        outSize += length;
+    }
+
+    /**
+     * Make room for at least <code>length</code> characters, writing the buffer out if there is a writer or
+     * growing it if there is not.
+     */
+    private void ensure(int length) throws IOException {
+        if (outSize + length <= out.length) {
+            return;
+        }
+        if (output != null) {
+            output.write(out, 0, outSize);
+            outSize = 0;
+            if (length <= out.length) {
+                return;
+            }
+        }
+        char[] grown = new char[Math.max(out.length * 2, outSize + length)];
+        System.arraycopy(out, 0, grown, 0, outSize);
+        out = grown;
+    }
+
+    private void flush() throws IOException {
+        if (outSize > 0) {
+            output.write(out, 0, outSize);
+            outSize = 0;
+        }
+        output.flush();
+        output = null;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // reading
+
+    private void begin(Reader reader) {
+        if (reader != input) {
+            input = reader;
+            inPosition = 0;
+            inLimit = 0;
+            inOffset = 0;
+        }
+    }
+
+    private Activity parseActivity() throws IOException {
+        Activity activity = new Activity();
+        boolean hasAt = false;
+        boolean hasAction = false;
+        expect('{');
+        if (!endOf('}')) {
+            do {
+                String key = readKey();
+                if ("at".equals(key)) {
+                    String at = readNullableString();
+                    if (at != null) {
+                        try {
+                            activity.setAtCalendar(datatypeFactory.newXMLGregorianCalendar(at));
+                        } catch (IllegalArgumentException e) {
+                            throw error("invalid 'at' value '" + at + "'");
+                        }
+                        hasAt = true;
+                    }
+                } else if ("action".equals(key)) {
+                    String action = readNullableString();
+                    if (action != null) {
+                        activity.setAction(action);
+                        hasAction = true;
+                    }
+                } else if ("activityID".equals(key)) {
+                    activity.setActivityID(readNullableString());
+                } else if ("url".equals(key)) {
+                    activity.setUrl(readNullableString());
+                } else if ("sources".equals(key)) {
+                    activity.setSources(readStringList());
+                } else if ("keywords".equals(key)) {
+                    activity.setKeywords(readStringList());
+                } else if ("places".equals(key)) {
+                    activity.setPlaces(readPlaces());
+                } else if ("actors".equals(key)) {
+                    activity.setActors(readActors());
+                } else if ("destinationUrls".equals(key)) {
+                    activity.setDestinationUrls(readUrls());
+                } else if ("tags".equals(key)) {
+                    activity.setTags(readValues());
+                } else if ("tos".equals(key)) {
+                    activity.setTos(readValues());
+                } else if ("regardingUrls".equals(key)) {
+                    activity.setRegardingUrls(readUrls());
+                } else if ("payload".equals(key)) {
+                    activity.setPayload(readPayload());
+                } else {
+                    skipValue();
+                }
+            } while (more('}'));
+        }
+        if (!hasAt || !hasAction) {
+            throw error("an activity requires 'at' and 'action'");
+        }
+        return activity;
+    }
+
+    private List<Place> readPlaces() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<Place> places = new ArrayList<Place>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                Place place = new Place();
+                expect('{');
+                if (!endOf('}')) {
+                    do {
+                        String key = readKey();
+                        if ("point".equals(key)) {
+                            if (!readNull()) {
+                                List<Double> point = new ArrayList<Double>(2);
+                                expect('[');
+                                if (!endOf(']')) {
+                                    do {
+                                        point.add(readDouble());
+                                    } while (more(']'));
+                                }
+                                place.setPointList(point);
+                            }
+                        } else if ("elevation".equals(key)) {
+                            place.setElevation(readNull() ? null : readDouble());
+                        } else if ("floor".equals(key)) {
+                            place.setFloor(readNull() ? null : readInteger());
+                        } else if ("featureTypeTag".equals(key)) {
+                            place.setFeatureTypeTag(readNullableString());
+                        } else if ("featureName".equals(key)) {
+                            place.setFeatureName(readNullableString());
+                        } else if ("relationshipTag".equals(key)) {
+                            place.setRelationshipTag(readNullableString());
+                        } else {
+                            skipValue();
+                        }
+                    } while (more('}'));
+                }
+                places.add(place);
+            } while (more(']'));
+        }
+        return places;
+    }
+
+    private List<Actor> readActors() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<Actor> actors = new ArrayList<Actor>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                String value = null;
+                String uid = null;
+                String valueMetaUrl = null;
+                String metaUrl = null;
+                expect('{');
+                if (!endOf('}')) {
+                    do {
+                        String key = readKey();
+                        if ("value".equals(key)) {
+                            value = readNullableString();
+                        } else if ("uid".equals(key)) {
+                            uid = readNullableString();
+                        } else if ("metaURL".equals(key)) {
+                            valueMetaUrl = readNullableString();
+                        } else if ("actorMetaUrl".equals(key)) {
+                            metaUrl = readNullableString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (more('}'));
+                }
+                Actor actor = new Actor(required(value, "value"), uid, valueMetaUrl);
+                actor.setMetaUrl(metaUrl);
+                actors.add(actor);
+            } while (more(']'));
+        }
+        return actors;
+    }
+
+    private List<GnipUrl> readUrls() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<GnipUrl> urls = new ArrayList<GnipUrl>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                String url = null;
+                String metaUrl = null;
+                expect('{');
+                if (!endOf('}')) {
+                    do {
+                        String key = readKey();
+                        if ("url".equals(key)) {
+                            url = readNullableString();
+                        } else if ("metaURL".equals(key)) {
+                            metaUrl = readNullableString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (more('}'));
+                }
+                urls.add(new GnipUrl(required(url, "url"), metaUrl));
+            } while (more(']'));
+        }
+        return urls;
+    }
+
+    private List<GnipValue> readValues() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<GnipValue> values = new ArrayList<GnipValue>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                String value = null;
+                String metaUrl = null;
+                expect('{');
+                if (!endOf('}')) {
+                    do {
+                        String key = readKey();
+                        if ("value".equals(key)) {
+                            value = readNullableString();
+                        } else if ("metaURL".equals(key)) {
+                            metaUrl = readNullableString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (more('}'));
+                }
+                values.add(new GnipValue(required(value, "value"), metaUrl));
+            } while (more(']'));
+        }
+        return values;
+    }
+
+    private Payload readPayload() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        String title = null;
+        String body = null;
+        String raw = null;
+        List<MediaUrl> mediaUrls = null;
+        expect('{');
+        if (!endOf('}')) {
+            do {
+                String key = readKey();
+                if ("title".equals(key)) {
+                    title = readNullableString();
+                } else if ("body".equals(key)) {
+                    body = readNullableString();
+                } else if ("raw".equals(key)) {
+                    raw = readNullableString();
+                } else if ("mediaUrls".equals(key)) {
+                    mediaUrls = readMediaUrls();
+                } else {
+                    skipValue();
+                }
+            } while (more('}'));
+        }
+        return new Payload(title, body, mediaUrls, required(raw, "raw"), true);
+    }
+
+    private List<MediaUrl> readMediaUrls() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<MediaUrl> mediaUrls = new ArrayList<MediaUrl>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                String url = null;
+                String width = null;
+                String height = null;
+                String duration = null;
+                String mimeType = null;
+                String type = null;
+                expect('{');
+                if (!endOf('}')) {
+                    do {
+                        String key = readKey();
+                        if ("url".equals(key)) {
+                            url = readNullableString();
+                        } else if ("width".equals(key)) {
+                            width = readNullableString();
+                        } else if ("height".equals(key)) {
+                            height = readNullableString();
+                        } else if ("duration".equals(key)) {
+                            duration = readNullableString();
+                        } else if ("mimeType".equals(key)) {
+                            mimeType = readNullableString();
+                        } else if ("type".equals(key)) {
+                            type = readNullableString();
+                        } else {
+                            skipValue();
+                        }
+                    } while (more('}'));
+                }
+                mediaUrls.add(new MediaUrl(required(url, "url"), width, height, duration, mimeType, type));
+            } while (more(']'));
+        }
+        return mediaUrls;
+    }
+
+    private List<String> readStringList() throws IOException {
+        if (readNull()) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>();
+        expect('[');
+        if (!endOf(']')) {
+            do {
+                values.add(readNullableString());
+            } while (more(']'));
+        }
+        return values;
+    }
+
+    private String required(String value, String name) throws IOException {
+        if (value == null) {
+            throw error("missing required field '" + name + "'");
+        }
+        return value;
+    }
+
+    private String readKey() throws IOException {
+        String key = readString();
+        expect(':');
+        return key;
+    }
+
+    /**
+     * Consume the closing character if the object or array that was just opened is empty.
+     */
+    private boolean endOf(char close) throws IOException {
+        if (peekNonWhitespace() == close) {
+            inPosition++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume the separator between members, returning <code>false</code> when the closing character is reached.
+     */
+    private boolean more(char close) throws IOException {
+        int c = peekNonWhitespace();
+        inPosition++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw error("expected ',' or '" + close + "'");
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekNonWhitespace() != expected) {
+            throw error("expected '" + expected + "'");
+        }
+        inPosition++;
+    }
+
+    private boolean readNull() throws IOException {
+        if (peekNonWhitespace() != 'n') {
+            return false;
+        }
+        readLiteral("null");
+        return true;
+    }
+
+    private String readNullableString() throws IOException {
+        return readNull() ? null : readString();
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        for (;;) {
+            int start = inPosition;
+            while (inPosition < inLimit) {
+                char c = in[inPosition];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                if (c < 0x20) {
+                    throw error("unescaped control character in string");
+                }
+                inPosition++;
+            }
+            text.append(in, start, inPosition - start);
+            if (inPosition == inLimit) {
+                if (!fill()) {
+                    throw error("unterminated string");
+                }
+                continue;
+            }
+
+            char c = in[inPosition++];
+            if (c == '"') {
+                return text.toString();
+            }
+            text.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+                return '"';
+            case '\\':
+                return '\\';
+            case '/':
+                return '/';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw error("invalid escape character");
+        }
+    }
+
+    private double readDouble() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            String value = readString();
+            if ("NaN".equals(value)) {
+                return Double.NaN;
+            }
+            if ("Infinity".equals(value)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if ("-Infinity".equals(value)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            throw error("invalid number '" + value + "'");
+        }
+        String number = readNumber();
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("invalid number '" + number + "'");
+        }
+    }
+
+    private int readInteger() throws IOException {
+        String number = readNumber();
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw error("invalid integer '" + number + "'");
+        }
+    }
+
+    private String readNumber() throws IOException {
+        peekNonWhitespace();
+        text.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9'))) {
+            text.append((char) c);
+            inPosition++;
+        }
+        if (text.length() == 0) {
+            throw error("expected a number");
+        }
+        return text.toString();
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("expected '" + literal + "'");
+            }
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '{':
+                inPosition++;
+                if (!endOf('}')) {
+                    do {
+                        readKey();
+                        skipValue();
+                    } while (more('}'));
+                }
+                break;
+            case '[':
+                inPosition++;
+                if (!endOf(']')) {
+                    do {
+                        skipValue();
+                    } while (more(']'));
+                }
+                break;
+            case '"':
+                readString();
+                break;
+            case 't':
+                readLiteral("true");
+                break;
+            case 'f':
+                readLiteral("false");
+                break;
+            case 'n':
+                readLiteral("null");
+                break;
+            default:
+                readNumber();
+                break;
+        }
+    }
+
+    private void checkEnd() throws IOException {
+        if (peekNonWhitespace() >= 0) {
+            throw error("unexpected content after the value");
+        }
+        input = null;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        for (;;) {
+            while (inPosition < inLimit) {
+                char c = in[inPosition];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return c;
+                }
+                inPosition++;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (inPosition == inLimit && !fill()) {
+            return -1;
+        }
+        return in[inPosition];
+    }
+
+    private int read() throws IOException {
+        if (inPosition == inLimit && !fill()) {
+            throw error("unexpected end of input");
+        }
+        return in[inPosition++];
+    }
+
+    private boolean fill() throws IOException {
+        inOffset += inLimit;
+        inPosition = 0;
+        inLimit = 0;
+        int count = input.read(in, 0, in.length);
+        if (count <= 0) {
+            return false;
+        }
+        inLimit = count;
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException("Invalid JSON at offset " + (inOffset + inPosition) + ": " + message);
+    }
+}
@@ -2,6 +2,8 @@ package com.gnipcentral.client.resource;
 
 import javax.xml.bind.annotation.*;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Model object that represents a media URL of a Gnip {@link Payload}. For activities
  * and simple notifications, the {@link MediaUrl} contains information that was originally
@@ -153,6 +155,17 @@ public class MediaUrl {
         this.type = type;
     }
 
+    /**
+     * Replace this MediaUrl's dimensions and types with their pooled instances.
+     */
+    void intern(StringPool pool) {
+        width = pool.intern(width);
+        height = pool.intern(height);
+        duration = pool.intern(duration);
+        mimeType = pool.intern(mimeType);
+        type = pool.intern(type);
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -0,0 +1,301 @@
+package com.gnipcentral.client.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBException;
+
+import org.xml.sax.InputSource;
+
+/**
+ * Package-protected reader that parses a large {@link Results} document on several threads.  The document's bytes
+ * are scanned for the start tags of its <code>&lt;activity&gt;</code> elements and split into roughly equal runs
+ * of whole activities.  Each run is wrapped in the document's own prolog and <code>&lt;results&gt;</code> tags
+ * and parsed as a separate document; the first run keeps the header elements.  The runs' activities are then
+ * joined in document order.
+ * <br/>
+ * <br/>
+ * Splitting on raw bytes is only safe when a <code>&lt;</code> byte always starts markup, so documents that
+ * contain comments, CDATA sections, a DOCTYPE or processing instructions, or that are not in an ASCII compatible
+ * encoding, are parsed on the calling thread as usual.  So are documents too small to be worth splitting.  This
+ * class is not intended for external use.
+ */
+class ParallelResultsReader {
+
+    static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+    private static final byte[] ACTIVITY = {'a', 'c', 't', 'i', 'v', 'i', 't', 'y'};
+    private static final byte[] RESULTS = {'r', 'e', 's', 'u', 'l', 't', 's'};
+
+    private final ParseOptions options;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    ParallelResultsReader(ParseOptions options, ExecutorService executor, int parallelism) {
+        this.options = options;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    Results read(byte[] data) throws JAXBException {
+        Layout layout = scan(data);
+        int chunks = layout == null ? 1 : Math.min(parallelism, (layout.end - layout.starts[0]) / MIN_CHUNK_SIZE);
+        if (chunks <= 1 || layout.count < 2) {
+            return parse(new ByteArrayInputStream(data));
+        }
+
+        int[] boundaries = split(layout, chunks);
+        List<Future<Results>> futures = new ArrayList<Future<Results>>(boundaries.length - 2);
+        try {
+            for (int i = 1; i < boundaries.length - 1; i++) {
+                futures.add(executor.submit(new Chunk(concat(data, 0, layout.rootEnd, boundaries[i], boundaries[i + 1], layout.end))));
+            }
+            // the first run includes the header and is parsed on this thread while the others are queued
+            Results results = parse(concat(data, 0, 0, 0, boundaries[1], layout.end));
+
+            List<List<Activity>> parts = new ArrayList<List<Activity>>(futures.size() + 1);
+            parts.add(results.getActivities());
+            int total = size(results.getActivities());
+            for (Future<Results> future : futures) {
+                List<Activity> activities = future.get().getActivities();
+                parts.add(activities);
+                total += size(activities);
+            }
+
+            List<Activity> activities = new ArrayList<Activity>(total);
+            for (List<Activity> part : parts) {
+                if (part != null) {
+                    activities.addAll(part);
+                }
+            }
+            results.setActivities(activities.isEmpty() ? null : activities);
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JAXBException("Interrupted while parsing activities", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JAXBException) {
+                throw (JAXBException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof java.lang.Error) {
+                throw (java.lang.Error) cause;
+            }
+            throw new JAXBException("Exception occurred parsing activities", cause);
+        } finally {
+            for (Future<Results> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Results parse(InputStream input) throws JAXBException {
+        // the caller traces the parse as a whole
+        return Translator.parseResultsUntraced(new InputSource(input), options);
+    }
+
+    /**
+     * Choose the activity start offsets that split the activities into runs of about equal size.
+     * @return the start of each run followed by the end of the last activity
+     */
+    private static int[] split(Layout layout, int chunks) {
+        int[] boundaries = new int[chunks + 1];
+        int first = layout.starts[0];
+        long span = layout.end - first;
+        int count = 1;
+        boundaries[0] = first;
+        for (int i = 1; i < layout.count && count < chunks; i++) {
+            if (layout.starts[i] - first >= span * count / chunks) {
+                boundaries[count++] = layout.starts[i];
+            }
+        }
+        boundaries[count] = layout.end;
+        if (count < chunks) {
+            int[] trimmed = new int[count + 1];
+            System.arraycopy(boundaries, 0, trimmed, 0, count + 1);
+            return trimmed;
+        }
+        return boundaries;
+    }
+
+    private static InputStream concat(byte[] data, int prefixStart, int prefixEnd, int start, int end, int suffixStart) {
+        List<InputStream> parts = new ArrayList<InputStream>(3);
+        if (prefixEnd > prefixStart) {
+            parts.add(new ByteArrayInputStream(data, prefixStart, prefixEnd - prefixStart));
+        }
+        parts.add(new ByteArrayInputStream(data, start, end - start));
+        parts.add(new ByteArrayInputStream(data, suffixStart, data.length - suffixStart));
+        return new SequenceInputStream(Collections.enumeration(parts));
+    }
+
+    private static int size(List<Activity> activities) {
+        return activities == null ? 0 : activities.size();
+    }
+
+    /**
+     * Find the end of the root start tag and the bounds of every activity.
+     * @return the layout, or <code>null</code> if the document cannot be split safely
+     */
+    static Layout scan(byte[] data) {
+        int length = data.length;
+        if (length < 2 || data[0] == 0 || data[1] == 0 || (data[0] & 0xff) == 0xfe || (data[0] & 0xff) == 0xff) {
+            // UTF-16 or UTF-32
+            return null;
+        }
+
+        Layout layout = new Layout();
+        for (int i = 0; i < length - 1; i++) {
+            if (data[i] != '<') {
+                continue;
+            }
+            byte next = data[i + 1];
+            if (next == '!') {
+                return null;
+            }
+            if (next == '?') {
+                if (layout.rootEnd >= 0 || i > 3 || !isCompatibleDeclaration(data, i)) {
+                    return null;
+                }
+                i = indexOf(data, '>', i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (layout.rootEnd < 0) {
+                if (!matches(data, i + 1, RESULTS)) {
+                    return null;
+                }
+                int end = endOfTag(data, i);
+                if (end < 0 || data[end - 2] == '/') {
+                    return null;
+                }
+                layout.rootEnd = end;
+                i = end - 1;
+            } else if (matches(data, i + 1, ACTIVITY)) {
+                layout.add(i);
+            } else if (next == '/' && matches(data, i + 2, ACTIVITY)) {
+                int end = indexOf(data, '>', i);
+                if (end < 0) {
+                    return null;
+                }
+                layout.end = end + 1;
+                i = end;
+            }
+        }
+        return layout.count > 0 && layout.end > layout.starts[layout.count - 1] ? layout : null;
+    }
+
+    /**
+     * Whether the element name at an offset is exactly <code>name</code>.
+     */
+    private static boolean matches(byte[] data, int offset, byte[] name) {
+        int end = offset + name.length;
+        if (end >= data.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (data[offset + i] != name[i]) {
+                return false;
+            }
+        }
+        byte delimiter = data[end];
+        return delimiter == '>' || delimiter == '/' || delimiter == ' ' || delimiter == '\t' || delimiter == '\n' || delimiter == '\r';
+    }
+
+    /**
+     * Find the offset just after a start tag, skipping <code>&gt;</code> characters in attribute values.
+     */
+    private static int endOfTag(byte[] data, int offset) {
+        byte quote = 0;
+        for (int i = offset; i < data.length; i++) {
+            byte b = data[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, char c, int offset) {
+        for (int i = offset; i < data.length; i++) {
+            if (data[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether an XML declaration names an encoding in which a <code>&lt;</code> byte is always a <code>&lt;</code>
+     * character.
+     */
+    private static boolean isCompatibleDeclaration(byte[] data, int offset) {
+        int end = indexOf(data, '>', offset);
+        if (end < 0) {
+            return false;
+        }
+        String declaration;
+        try {
+            declaration = new String(data, offset, end - offset, "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            return false;
+        }
+        int index = declaration.indexOf("encoding");
+        if (index < 0) {
+            return true;
+        }
+        String encoding = declaration.substring(index + "encoding".length()).replaceAll("[\\s=\"'?]", "").toUpperCase();
+        return encoding.equals("UTF-8") || encoding.equals("UTF8") || encoding.equals("US-ASCII")
+                || encoding.equals("ASCII") || encoding.startsWith("ISO-8859-");
+    }
+
+    /**
+     * The offsets found by {@link ParallelResultsReader#scan(byte[])}.
+     */
+    static final class Layout {
+
+        int rootEnd = -1;
+        int[] starts = new int[256];
+        int count;
+        int end = -1;
+
+        void add(int start) {
+            if (count == starts.length) {
+                int[] grown = new int[count * 2];
+                System.arraycopy(starts, 0, grown, 0, count);
+                starts = grown;
+            }
+            starts[count++] = start;
+        }
+    }
+
+    private final class Chunk implements Callable<Results> {
+
+        private final InputStream input;
+
+        Chunk(InputStream input) {
+            this.input = input;
+        }
+
+        public Results call() throws JAXBException {
+            return parse(input);
+        }
+    }
+}
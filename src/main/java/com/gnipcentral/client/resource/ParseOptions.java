@@ -0,0 +1,110 @@
+package com.gnipcentral.client.resource;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.gnipcentral.client.util.StringPool;
+
+/**
+ * Options that change how {@link Translator} parses {@link Results}.  Parsing with options filters the XML
+ * events of the response before they reach the reader that builds the objects, a {@link ResourceXmlReader} or,
+ * when {@link Translator#setUseJaxb(boolean) JAXB is enabled}, the JAXB unmarshaller, so activities that are
+ * filtered out are never built.  Options are typically configured on a connection with
+ * {@link com.gnipcentral.client.Config#setParseOptions(ParseOptions)}.
+ */
+public class ParseOptions {
+
+    private ActivitySampler sampler;
+    private boolean lazyPayload;
+    private Set<ActivityField> fields;
+    private StringPool stringPool;
+
+    /**
+     * Create options that parse every activity completely.
+     */
+    public ParseOptions() {
+        //Empty constructor
+    }
+
+    /**
+     * Retrieves the sampler that decides which activities are kept.
+     * @return the sampler or <code>null</code> if every activity is kept
+     */
+    public ActivitySampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * Configure a sampler that decides which activities are kept.  Activities that are sampled out are skipped
+     * as soon as their sampling key has been read, so the rest of their elements, including the payload, are
+     * never unmarshalled.
+     * @param sampler the sampler or <code>null</code> to keep every activity
+     */
+    public void setSampler(ActivitySampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Retrieves whether payloads are built lazily.
+     * @return <code>true</code> if payloads are built lazily; <code>false</code> otherwise
+     */
+    public boolean isLazyPayload() {
+        return lazyPayload;
+    }
+
+    /**
+     * Configure whether payloads are built lazily.  When enabled, each <code>&lt;payload&gt;</code> element is kept
+     * as a compact UTF-8 copy of its XML and is only unmarshalled into a {@link Payload} on the first call to
+     * {@link Activity#getPayload()}.  This saves most of the parsing time and memory for consumers that do not
+     * read payloads.  Lazily built payloads are not validated against the Gnip schema.
+     * @param lazyPayload <code>true</code> to build payloads lazily
+     */
+    public void setLazyPayload(boolean lazyPayload) {
+        this.lazyPayload = lazyPayload;
+    }
+
+    /**
+     * Retrieves the activity fields that are parsed.
+     * @return the fields, or <code>null</code> if every field is parsed
+     */
+    public Set<ActivityField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Configure the activity fields that are parsed.  The elements of every other field are skipped in the parser
+     * without being unmarshalled, and the field is left empty in the parsed {@link Activity}.  The
+     * {@link ActivityField#AT at} and {@link ActivityField#ACTION action} fields are required by the Gnip schema
+     * and are always parsed.  A sampler's key is read whether or not its field is selected.
+     * @param fields the fields to parse, or <code>null</code> to parse every field
+     */
+    public void setFields(Set<ActivityField> fields) {
+        if (fields == null) {
+            this.fields = null;
+            return;
+        }
+        EnumSet<ActivityField> selected = EnumSet.of(ActivityField.AT, ActivityField.ACTION);
+        selected.addAll(fields);
+        this.fields = Collections.unmodifiableSet(selected);
+    }
+
+    /**
+     * Retrieves the pool that parsed values are deduplicated with.
+     * @return the pool or <code>null</code> if values are not deduplicated
+     */
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Configure a pool that parsed values are deduplicated with.  Values that repeat across activities, such as
+     * actions, sources, keywords, tags, the meta URLs of URLs and the response header, are replaced with the
+     * pool's instance as each object is unmarshalled, so a large number of retained activities share them.  The
+     * same pool can be shared by every parse, including parses on different threads.
+     * @param stringPool the pool or <code>null</code> to not deduplicate values
+     */
+    public void setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+}
@@ -17,6 +17,11 @@ import javax.xml.bind.annotation.adapters.*;
 
 import org.apache.commons.codec.binary.Base64;
 
+import com.gnipcentral.client.util.TraceEvent;
+import com.gnipcentral.client.util.TraceSpan;
+import com.gnipcentral.client.util.Tracer;
+import com.gnipcentral.client.util.TracerFactory;
+
 /**
  * Model object that represents the Payload of a Gnip {@link com.gnipcentral.client.resource.Activity}.  For
  * activities that support full-data, as opposed to just simple notifications, the {@link Payload} contains
@@ -35,6 +40,8 @@ import org.apache.commons.codec.binary.Base64;
 @XmlAccessorType(XmlAccessType.FIELD)
 public class Payload {
 
+    private static final Tracer TRACER = TracerFactory.getInstance();
+
     @XmlElement
     private String title;
     @XmlElement
@@ -206,6 +213,7 @@ public class Payload {
             return "";
 
         ByteArrayOutputStream stream = null;
+        TraceSpan span = TRACER.begin(TraceEvent.PAYLOAD_ENCODE);
         try {
             stream = new ByteArrayOutputStream();
             GZIPOutputStream gos = new GZIPOutputStream(stream);
@@ -213,6 +221,7 @@ public class Payload {
             gos.write(bytes, 0, bytes.length);
             gos.finish();
             bytes = Base64.encodeBase64(stream.toByteArray());
+            if(span != null) span.setByteCount(bytes.length);
             return new String(bytes);
         }
         catch(IOException e) {
@@ -223,13 +232,16 @@ public class Payload {
                 if(stream != null) stream.close();
             }
             catch(IOException e) {/*ignore*/}
+            end(span);
         }
     }
     
     private String decode(String string) {
         ByteArrayInputStream stream = null;
+        TraceSpan span = TRACER.begin(TraceEvent.PAYLOAD_DECODE);
         try {
             byte[] bytes = string.getBytes(Charset.forName("UTF-8"));
+            if(span != null) span.setByteCount(bytes.length);
             bytes = Base64.decodeBase64(bytes);
             stream = new ByteArrayInputStream(bytes);
             GZIPInputStream gis = new GZIPInputStream(stream);
@@ -249,6 +261,14 @@ public class Payload {
                 if(stream != null) stream.close();
             }
             catch(IOException e) {/*ignore*/}
+            end(span);
+        }
+    }
+
+    private static void end(TraceSpan span) {
+        if(span != null) {
+            span.setGzip(true);
+            span.end();
         }
     }
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import java.util.List;
 
 import javax.xml.bind.annotation.*;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Model object that represents a place of a Gnip {@link Activity}. For activities
  * and simple notifications, the {@link Place} contains information that was originally
@@ -107,6 +109,14 @@ public class Place {
         }
     }
 
+    List<Double> getPointList() {
+        return point;
+    }
+
+    void setPointList(List<Double> point) {
+        this.point = point;
+    }
+
     /**
      * Retrieve this Place's elevation.
      * @return the Place elevation.
@@ -187,6 +197,15 @@ public class Place {
         this.relationshipTag = relationshipTag;
     }
     
+    /**
+     * Replace this Place's tags and feature name with their pooled instances.
+     */
+    void intern(StringPool pool) {
+        featureTypeTag = pool.intern(featureTypeTag);
+        featureName = pool.intern(featureName);
+        relationshipTag = pool.intern(relationshipTag);
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#equals(java.lang.Object)
      */
@@ -0,0 +1,429 @@
+package com.gnipcentral.client.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.gnipcentral.client.util.StringPool;
+
+/**
+ * Package-protected reader that builds {@link Results} and {@link Rules} directly from an {@link XMLStreamReader},
+ * in place of JAXB's reflective unmarshaller.  Each model class has a method that reads its element into the
+ * object with the class's own constructors and setters, following the class's JAXB mapping: the same element and
+ * attribute names, the same list and <code>null</code> handling, and the same conversion of dates, numbers and
+ * normalized strings.
+ * <br/>
+ * <br/>
+ * The reader does not validate against the Gnip schema itself; the {@link Translator} places a
+ * {@link ValidatingStreamReader} beneath it for that.  On its own it rejects unknown elements, text where only
+ * elements are allowed, values that cannot be converted and missing required elements and attributes.  Payloads removed by
+ * a lazy {@link ActivityFilterReader} are attached to their activities, and values are deduplicated with a
+ * {@link StringPool} when one is given.  Errors are reported as {@link XMLStreamException}s with the location of
+ * the problem.  This class is not intended for external use.
+ */
+class ResourceXmlReader {
+
+    private static final DatatypeFactory DATATYPE_FACTORY;
+
+    static {
+        try {
+            DATATYPE_FACTORY = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final ActivityFilterReader payloads;
+    private final StringPool pool;
+
+    /**
+     * Create a reader.
+     * @param payloads the filter that removed lazy payloads from the document or <code>null</code>
+     * @param pool the pool that values are deduplicated with or <code>null</code>
+     */
+    ResourceXmlReader(ActivityFilterReader payloads, StringPool pool) {
+        this.payloads = payloads;
+        this.pool = pool;
+    }
+
+    Results readResults(XMLStreamReader reader) throws XMLStreamException {
+        startRoot(reader, "results");
+        Results results = new Results();
+        List<Activity> activities = null;
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("activity".equals(name)) {
+                if (activities == null) {
+                    activities = new ArrayList<Activity>();
+                }
+                activities.add(readActivity(reader));
+            } else if ("pollResponseCode".equals(name)) {
+                results.setPollResponseCode(reader.getElementText());
+            } else if ("pollResponseMessage".equals(name)) {
+                results.setPollResponseMessage(reader.getElementText());
+            } else if ("count".equals(name)) {
+                results.setCount(reader.getElementText());
+            } else if ("uniqueCount".equals(name)) {
+                results.setUniqueCount(reader.getElementText());
+            } else if ("data_collector_id".equals(name)) {
+                results.setDataCollectorId(reader.getElementText());
+            } else if ("publisher".equals(name)) {
+                results.setPublisher(reader.getElementText());
+            } else if ("endpoint".equals(name)) {
+                results.setEndPoint(reader.getElementText());
+            } else if ("refreshURL".equals(name)) {
+                results.setRefreshUrl(reader.getElementText());
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        results.setActivities(activities);
+        if (pool != null) {
+            results.intern(pool);
+        }
+        return results;
+    }
+
+    Rules readRules(XMLStreamReader reader) throws XMLStreamException {
+        startRoot(reader, "rules");
+        Rules rules = new Rules();
+        while (nextChild(reader)) {
+            if (!"rule".equals(reader.getLocalName())) {
+                throw unexpected(reader);
+            }
+            rules.add(readRule(reader));
+        }
+        return rules;
+    }
+
+    Payload readPayloadDocument(XMLStreamReader reader) throws XMLStreamException {
+        startRoot(reader, "payload");
+        return readPayload(reader);
+    }
+
+    Activity readActivity(XMLStreamReader reader) throws XMLStreamException {
+        Activity activity = new Activity();
+        String action = null;
+        List<String> sources = null;
+        List<String> keywords = null;
+        List<Place> places = null;
+        List<Actor> actors = null;
+        List<GnipUrl> destinationUrls = null;
+        List<GnipValue> tags = null;
+        List<GnipValue> tos = null;
+        List<GnipUrl> regardingUrls = null;
+        boolean hasAt = false;
+
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("at".equals(name)) {
+                String text = reader.getElementText();
+                try {
+                    activity.setAtCalendar(DATATYPE_FACTORY.newXMLGregorianCalendar(text.trim()));
+                } catch (IllegalArgumentException e) {
+                    throw invalid(reader, "at", text);
+                }
+                hasAt = true;
+            } else if ("action".equals(name)) {
+                action = reader.getElementText();
+            } else if ("activityID".equals(name)) {
+                activity.setActivityID(reader.getElementText());
+            } else if ("URL".equals(name)) {
+                activity.setUrl(reader.getElementText());
+            } else if ("source".equals(name)) {
+                sources = add(sources, reader.getElementText());
+            } else if ("keyword".equals(name)) {
+                keywords = add(keywords, reader.getElementText());
+            } else if ("place".equals(name)) {
+                places = add(places, readPlace(reader));
+            } else if ("actor".equals(name)) {
+                actors = add(actors, readActor(reader));
+            } else if ("destinationURL".equals(name)) {
+                destinationUrls = add(destinationUrls, readGnipUrl(reader));
+            } else if ("tag".equals(name)) {
+                tags = add(tags, readGnipValue(reader));
+            } else if ("to".equals(name)) {
+                tos = add(tos, readGnipValue(reader));
+            } else if ("regardingURL".equals(name)) {
+                regardingUrls = add(regardingUrls, readGnipUrl(reader));
+            } else if ("payload".equals(name)) {
+                activity.setPayload(readPayload(reader));
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        if (!hasAt) {
+            throw missing(reader, "at");
+        }
+        if (action == null) {
+            throw missing(reader, "action");
+        }
+
+        activity.setAction(action);
+        activity.setSources(sources);
+        activity.setKeywords(keywords);
+        activity.setPlaces(places);
+        activity.setActors(actors);
+        activity.setDestinationUrls(destinationUrls);
+        activity.setTags(tags);
+        activity.setTos(tos);
+        activity.setRegardingUrls(regardingUrls);
+        if (payloads != null) {
+            byte[] payloadXml = payloads.takePayload();
+            if (payloadXml != null) {
+                activity.setPayloadXml(payloadXml);
+            }
+        }
+        if (pool != null) {
+            activity.intern(pool);
+        }
+        return activity;
+    }
+
+    private Place readPlace(XMLStreamReader reader) throws XMLStreamException {
+        Place place = new Place();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("point".equals(name)) {
+                String text = reader.getElementText();
+                List<Double> point = new ArrayList<Double>(2);
+                for (String token : text.trim().split("\\s+")) {
+                    if (token.length() > 0) {
+                        point.add(parseDouble(reader, "point", token));
+                    }
+                }
+                place.setPointList(point);
+            } else if ("elev".equals(name)) {
+                place.setElevation(parseDouble(reader, "elev", reader.getElementText()));
+            } else if ("floor".equals(name)) {
+                String text = reader.getElementText();
+                String value = text.trim();
+                try {
+                    place.setFloor(Integer.valueOf(value.startsWith("+") ? value.substring(1) : value));
+                } catch (NumberFormatException e) {
+                    throw invalid(reader, "floor", text);
+                }
+            } else if ("featuretypetag".equals(name)) {
+                place.setFeatureTypeTag(reader.getElementText());
+            } else if ("featurename".equals(name)) {
+                place.setFeatureName(reader.getElementText());
+            } else if ("relationshiptag".equals(name)) {
+                place.setRelationshipTag(reader.getElementText());
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        if (pool != null) {
+            place.intern(pool);
+        }
+        return place;
+    }
+
+    private Actor readActor(XMLStreamReader reader) throws XMLStreamException {
+        String uid = null;
+        String valueMetaUrl = null;
+        String metaUrl = null;
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            String name = reader.getAttributeLocalName(i);
+            if ("uid".equals(name)) {
+                uid = reader.getAttributeValue(i);
+            } else if ("metaURL".equals(name)) {
+                valueMetaUrl = reader.getAttributeValue(i);
+            } else if ("metaUrl".equals(name)) {
+                metaUrl = reader.getAttributeValue(i);
+            }
+        }
+        Actor actor = new Actor(reader.getElementText(), uid, valueMetaUrl);
+        actor.setMetaUrl(metaUrl);
+        return actor;
+    }
+
+    private GnipValue readGnipValue(XMLStreamReader reader) throws XMLStreamException {
+        String metaUrl = metaUrl(reader);
+        return new GnipValue(reader.getElementText(), metaUrl);
+    }
+
+    private GnipUrl readGnipUrl(XMLStreamReader reader) throws XMLStreamException {
+        String metaUrl = metaUrl(reader);
+        GnipUrl url = new GnipUrl(reader.getElementText(), metaUrl);
+        if (pool != null) {
+            url.intern(pool);
+        }
+        return url;
+    }
+
+    /**
+     * Retrieves the <code>metaURL</code> attribute of the current element, which must be done before the
+     * element's text is read.
+     */
+    private static String metaUrl(XMLStreamReader reader) {
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            if ("metaURL".equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private Payload readPayload(XMLStreamReader reader) throws XMLStreamException {
+        String title = null;
+        String body = null;
+        List<MediaUrl> mediaUrls = null;
+        String raw = null;
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("title".equals(name)) {
+                title = reader.getElementText();
+            } else if ("body".equals(name)) {
+                body = normalize(reader.getElementText());
+            } else if ("mediaURL".equals(name)) {
+                mediaUrls = add(mediaUrls, readMediaUrl(reader));
+            } else if ("raw".equals(name)) {
+                raw = reader.getElementText();
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        if (raw == null) {
+            throw missing(reader, "raw");
+        }
+        return new Payload(title, body, mediaUrls, raw, true);
+    }
+
+    private MediaUrl readMediaUrl(XMLStreamReader reader) throws XMLStreamException {
+        String width = null;
+        String height = null;
+        String duration = null;
+        String mimeType = null;
+        String type = null;
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            String name = reader.getAttributeLocalName(i);
+            if ("width".equals(name)) {
+                width = reader.getAttributeValue(i);
+            } else if ("height".equals(name)) {
+                height = reader.getAttributeValue(i);
+            } else if ("duration".equals(name)) {
+                duration = reader.getAttributeValue(i);
+            } else if ("mimeType".equals(name)) {
+                mimeType = reader.getAttributeValue(i);
+            } else if ("type".equals(name)) {
+                type = reader.getAttributeValue(i);
+            }
+        }
+        MediaUrl mediaUrl = new MediaUrl(reader.getElementText(), width, height, duration, mimeType, type);
+        if (pool != null) {
+            mediaUrl.intern(pool);
+        }
+        return mediaUrl;
+    }
+
+    private static Rule readRule(XMLStreamReader reader) throws XMLStreamException {
+        String type = reader.getAttributeValue(null, "type");
+        if (type == null) {
+            throw new XMLStreamException("Missing type attribute of <rule>", reader.getLocation());
+        }
+        RuleType ruleType;
+        try {
+            ruleType = RuleType.fromValue(type);
+        } catch (IllegalArgumentException e) {
+            throw invalid(reader, "rule type", type);
+        }
+        String value = reader.getElementText();
+        return new Rule(ruleType, value);
+    }
+
+    /**
+     * Move to the root element and check its name.
+     */
+    private static void startRoot(XMLStreamReader reader, String name) throws XMLStreamException {
+        if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            reader.nextTag();
+        }
+        if (!name.equals(reader.getLocalName())) {
+            throw unexpected(reader);
+        }
+    }
+
+    /**
+     * Move to the next child element of the current element.
+     * @return <code>true</code> if the reader is on a child's start element; <code>false</code> if it is on the
+     * current element's end element
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        for (;;) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    return true;
+                case XMLStreamConstants.END_ELEMENT:
+                    return false;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (!reader.isWhiteSpace()) {
+                        throw new XMLStreamException("Unexpected text in element content", reader.getLocation());
+                    }
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Normalize a string as {@link javax.xml.bind.annotation.adapters.NormalizedStringAdapter} does.
+     */
+    private static String normalize(String text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Parse an <code>xs:double</code>, which spells infinity as <code>INF</code>.
+     */
+    private static Double parseDouble(XMLStreamReader reader, String name, String text) throws XMLStreamException {
+        String value = text.trim();
+        if ("INF".equals(value)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-INF".equals(value)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw invalid(reader, name, text);
+        }
+    }
+
+    private static <T> List<T> add(List<T> list, T value) {
+        if (list == null) {
+            list = new ArrayList<T>();
+        }
+        list.add(value);
+        return list;
+    }
+
+    private static XMLStreamException unexpected(XMLStreamReader reader) {
+        return new XMLStreamException("Unexpected element <" + reader.getLocalName() + ">", reader.getLocation());
+    }
+
+    private static XMLStreamException missing(XMLStreamReader reader, String name) {
+        return new XMLStreamException("Missing required element <" + name + "> in <" + reader.getLocalName() + ">",
+                reader.getLocation());
+    }
+
+    private static XMLStreamException invalid(XMLStreamReader reader, String name, String value) {
+        return new XMLStreamException("Invalid " + name + " value '" + value + "'", reader.getLocation());
+    }
+}
@@ -0,0 +1,350 @@
+package com.gnipcentral.client.resource;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Package-protected writer that serializes {@link Results}, {@link Activity}, {@link Rules} and {@link Rule}
+ * objects as XML directly, in place of JAXB's reflective marshaller.  The output is the same as the JAXB
+ * marshaller's: elements and attributes in the order of the model classes' fields, <code>null</code> values
+ * omitted, and the same escaping and number and date formats.  The writer does not validate; the
+ * {@link Translator} validates its output against the Gnip schema unless validation is turned off.  The writer
+ * buffers its output and is used for a single document.  This class is not intended for external use.
+ */
+class ResourceXmlWriter {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+
+    private final Writer out;
+    private final char[] buffer = new char[8192];
+    private int size;
+
+    ResourceXmlWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Whether an object can be written by this class.
+     */
+    static boolean supports(Object object) {
+        return object instanceof Results || object instanceof Activity || object instanceof Rules || object instanceof Rule;
+    }
+
+    /**
+     * Write an object as an XML document or fragment and flush the underlying writer.
+     * @param object a {@link Results}, {@link Activity}, {@link Rules} or {@link Rule}
+     * @param fragment whether to omit the XML declaration
+     */
+    void write(Object object, boolean fragment) throws IOException {
+        if (!fragment) {
+            append(DECLARATION);
+        }
+        if (object instanceof Results) {
+            writeResults((Results) object);
+        } else if (object instanceof Activity) {
+            writeActivity((Activity) object);
+        } else if (object instanceof Rules) {
+            writeRules((Rules) object);
+        } else if (object instanceof Rule) {
+            writeRule((Rule) object);
+        } else {
+            throw new IllegalArgumentException("Invalid object specified '"+object+"'");
+        }
+        flush();
+        out.flush();
+    }
+
+    private void writeResults(Results results) throws IOException {
+        append("<results>");
+        List<Activity> activities = results.getActivities();
+        if (activities != null) {
+            for (int i = 0, count = activities.size(); i < count; i++) {
+                writeActivity(activities.get(i));
+            }
+        }
+        element("pollResponseCode", results.getPollResponseCode());
+        element("pollResponseMessage", results.getPollResponseMessage());
+        element("count", results.getCount());
+        element("uniqueCount", results.getUniqueCount());
+        element("data_collector_id", results.getDataCollectorId());
+        element("publisher", results.getPublisher());
+        element("endpoint", results.getEndPoint());
+        element("refreshURL", results.getRefreshUrl());
+        append("</results>");
+    }
+
+    private void writeActivity(Activity activity) throws IOException {
+        append("<activity>");
+        XMLGregorianCalendar at = activity.getAtCalendar();
+        if (at != null) {
+            element("at", at.toXMLFormat());
+        }
+        element("action", activity.getAction());
+        element("activityID", activity.getActivityID());
+        element("URL", activity.getUrl());
+        elements("source", activity.getSources());
+        elements("keyword", activity.getKeywords());
+
+        List<Place> places = activity.getPlaces();
+        if (places != null) {
+            for (Place place : places) {
+                if (place != null) {
+                    writePlace(place);
+                }
+            }
+        }
+        List<Actor> actors = activity.getActors();
+        if (actors != null) {
+            for (Actor actor : actors) {
+                if (actor != null) {
+                    append("<actor");
+                    // JAXB writes the subclass's attributes first
+                    attribute("uid", actor.getUid());
+                    attribute("metaUrl", actor.getMetaUrl());
+                    attribute("metaURL", actor.getValueMetaUrl());
+                    append('>');
+                    text(actor.getValue());
+                    append("</actor>");
+                }
+            }
+        }
+        urls("destinationURL", activity.getDestinationUrls());
+        values("tag", activity.getTags());
+        values("to", activity.getTos());
+        urls("regardingURL", activity.getRegardingUrls());
+
+        Payload payload = activity.getPayload();
+        if (payload != null) {
+            writePayload(payload);
+        }
+        append("</activity>");
+    }
+
+    private void writePlace(Place place) throws IOException {
+        append("<place>");
+        List<Double> point = place.getPointList();
+        if (point != null) {
+            append("<point>");
+            boolean first = true;
+            for (Double value : point) {
+                if (value != null) {
+                    if (!first) {
+                        append(' ');
+                    }
+                    append(printDouble(value));
+                    first = false;
+                }
+            }
+            append("</point>");
+        }
+        if (place.getElevation() != null) {
+            element("elev", printDouble(place.getElevation()));
+        }
+        if (place.getFloor() != null) {
+            element("floor", place.getFloor().toString());
+        }
+        element("featuretypetag", place.getFeatureTypeTag());
+        element("featurename", place.getFeatureName());
+        element("relationshiptag", place.getRelationshipTag());
+        append("</place>");
+    }
+
+    private void writePayload(Payload payload) throws IOException {
+        append("<payload>");
+        element("title", payload.getTitle());
+        element("body", payload.getBody());
+        List<MediaUrl> mediaUrls = payload.getMediaUrls();
+        if (mediaUrls != null) {
+            for (MediaUrl mediaUrl : mediaUrls) {
+                if (mediaUrl != null) {
+                    append("<mediaURL");
+                    attribute("width", mediaUrl.getWidth());
+                    attribute("height", mediaUrl.getHeight());
+                    attribute("duration", mediaUrl.getDuration());
+                    attribute("mimeType", mediaUrl.getMimeType());
+                    attribute("type", mediaUrl.getType());
+                    append('>');
+                    text(mediaUrl.getUrl());
+                    append("</mediaURL>");
+                }
+            }
+        }
+        element("raw", payload.getRaw());
+        append("</payload>");
+    }
+
+    private void writeRules(Rules rules) throws IOException {
+        append("<rules>");
+        if (rules.getRules() != null) {
+            for (Rule rule : rules.getRules()) {
+                if (rule != null) {
+                    writeRule(rule);
+                }
+            }
+        }
+        append("</rules>");
+    }
+
+    private void writeRule(Rule rule) throws IOException {
+        append("<rule");
+        if (rule.getType() != null) {
+            attribute("type", rule.getType().value());
+        }
+        append('>');
+        text(rule.getValue());
+        append("</rule>");
+    }
+
+    private void urls(String name, List<GnipUrl> urls) throws IOException {
+        if (urls != null) {
+            for (GnipUrl url : urls) {
+                if (url != null) {
+                    append('<');
+                    append(name);
+                    attribute("metaURL", url.getMetaUrl());
+                    append('>');
+                    text(url.getUrl());
+                    endTag(name);
+                }
+            }
+        }
+    }
+
+    private void values(String name, List<GnipValue> values) throws IOException {
+        if (values != null) {
+            for (GnipValue value : values) {
+                if (value != null) {
+                    append('<');
+                    append(name);
+                    attribute("metaURL", value.getValueMetaUrl());
+                    append('>');
+                    text(value.getValue());
+                    endTag(name);
+                }
+            }
+        }
+    }
+
+    private void elements(String name, List<String> values) throws IOException {
+        if (values != null) {
+            for (int i = 0, count = values.size(); i < count; i++) {
+                element(name, values.get(i));
+            }
+        }
+    }
+
+    private void element(String name, String value) throws IOException {
+        if (value != null) {
+            append('<');
+            append(name);
+            append('>');
+            text(value);
+            endTag(name);
+        }
+    }
+
+    private void endTag(String name) throws IOException {
+        append("</");
+        append(name);
+        append('>');
+    }
+
+    private void attribute(String name, String value) throws IOException {
+        if (value != null) {
+            append(' ');
+            append(name);
+            append("=\"");
+            escape(value, true);
+            append('"');
+        }
+    }
+
+    private void text(String value) throws IOException {
+        if (value != null) {
+            escape(value, false);
+        }
+    }
+
+    /**
+     * Escape a value the way the JAXB reference implementation does.  Tabs in attribute values are left as is.
+     */
+    private void escape(String value, boolean attribute) throws IOException {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    append("&amp;");
+                    break;
+                case '<':
+                    append("&lt;");
+                    break;
+                case '>':
+                    append("&gt;");
+                    break;
+                case '\r':
+                    append("&#13;");
+                    break;
+                case '"':
+                    if (attribute) {
+                        append("&quot;");
+                    } else {
+                        append(c);
+                    }
+                    break;
+                case '\n':
+                    if (attribute) {
+                        append("&#10;");
+                    } else {
+                        append(c);
+                    }
+                    break;
+                default:
+                    append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Print an <code>xs:double</code>, which spells infinity as <code>INF</code>.
+     */
+    private static String printDouble(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "INF";
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return "-INF";
+        }
+        return Double.toString(value);
+    }
+
+    private void append(String value) throws IOException {
+        int length = value.length();
+        if (size + length > buffer.length) {
+            flush();
+            if (length > buffer.length) {
+                out.write(value);
+                return;
+            }
+        }
+        value.getChars(0, length, buffer, size);
+        size += length;
+    }
+
+    private void append(char c) throws IOException {
+        if (size == buffer.length) {
+            flush();
+        }
+        buffer[size++] = c;
+    }
+
+    private void flush() throws IOException {
+        if (size > 0) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.List;
 
 import javax.xml.bind.annotation.*;
 
+import com.gnipcentral.client.util.StringPool;
+
 /**
  * Container class that wraps a set of {@link Activity} instances that will be sent to a Gnip server or were read from a
  * Gnip server.
@@ -221,4 +223,15 @@ public class Results implements Resource {
     public void setRefreshUrl(String refreshUrl) {
         this.refreshUrl = refreshUrl;
     }
+
+    /**
+     * Replace the header values of these Results with their pooled instances.
+     */
+    void intern(StringPool pool) {
+        pollResponseCode = pool.intern(pollResponseCode);
+        pollResponseMessage = pool.intern(pollResponseMessage);
+        dataCollectorId = pool.intern(dataCollectorId);
+        publisher = pool.intern(publisher);
+        endPoint = pool.intern(endPoint);
+    }
 }
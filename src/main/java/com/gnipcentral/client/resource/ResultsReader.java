@@ -0,0 +1,100 @@
+package com.gnipcentral.client.resource;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.gnipcentral.client.util.StringPool;
+
+/**
+ * Package-protected streaming reader for {@link Results} documents.  The document is read in a single pass by a
+ * {@link ResourceXmlReader}, or by JAXB when an unmarshaller is given, and when there are {@link ParseOptions} the
+ * parser events are passed through an {@link ActivityFilterReader} that applies them first.  Payloads copied by a
+ * lazy parse are attached to their activities, and values are deduplicated with the options' {@link StringPool},
+ * as each object is built.  This class is not intended for external use.
+ */
+class ResultsReader {
+
+    private static final XMLInputFactory INPUT_FACTORY;
+
+    static {
+        INPUT_FACTORY = XMLInputFactory.newInstance();
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    private final ParseOptions options;
+    private final Unmarshaller unmarshaller;
+
+    /**
+     * Create a reader.
+     * @param options the parse options or <code>null</code>
+     * @param unmarshaller the JAXB unmarshaller to read with or <code>null</code> to use a {@link ResourceXmlReader}
+     */
+    ResultsReader(ParseOptions options, Unmarshaller unmarshaller) {
+        this.options = options;
+        this.unmarshaller = unmarshaller;
+    }
+
+    static XMLInputFactory getInputFactory() {
+        return INPUT_FACTORY;
+    }
+
+    Results read(XMLStreamReader xmlReader) throws JAXBException {
+        ActivityFilterReader filter = options != null ? new ActivityFilterReader(xmlReader, options) : null;
+        XMLStreamReader reader = filter != null ? filter : xmlReader;
+        try {
+            if (unmarshaller == null) {
+                return new ResourceXmlReader(filter, options != null ? options.getStringPool() : null).readResults(reader);
+            }
+            if (options != null && (options.isLazyPayload() || options.getStringPool() != null)) {
+                unmarshaller.setListener(new Listener(options.isLazyPayload() ? filter : null, options.getStringPool()));
+            }
+            return (Results) unmarshaller.unmarshal(reader);
+        } catch (XMLStreamException e) {
+            throw new UnmarshalException(e);
+        } finally {
+            Translator.close(reader);
+        }
+    }
+
+    /**
+     * Completes each object once JAXB has unmarshalled it.
+     */
+    private static final class Listener extends Unmarshaller.Listener {
+
+        private final ActivityFilterReader payloads;
+        private final StringPool pool;
+
+        Listener(ActivityFilterReader payloads, StringPool pool) {
+            this.payloads = payloads;
+            this.pool = pool;
+        }
+
+        @Override
+        public void afterUnmarshal(Object target, Object parent) {
+            if (target instanceof Activity) {
+                Activity activity = (Activity) target;
+                if (payloads != null) {
+                    activity.setPayloadXml(payloads.takePayload());
+                }
+                if (pool != null) {
+                    activity.intern(pool);
+                }
+            } else if (pool != null) {
+                if (target instanceof GnipUrl) {
+                    ((GnipUrl) target).intern(pool);
+                } else if (target instanceof Place) {
+                    ((Place) target).intern(pool);
+                } else if (target instanceof MediaUrl) {
+                    ((MediaUrl) target).intern(pool);
+                } else if (target instanceof Results) {
+                    ((Results) target).intern(pool);
+                }
+            }
+        }
+    }
+}
@@ -1,31 +1,75 @@
 package com.gnipcentral.client.resource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.MarshalException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.gnipcentral.client.util.TraceEvent;
+import com.gnipcentral.client.util.TraceSpan;
+import com.gnipcentral.client.util.Tracer;
+import com.gnipcentral.client.util.TracerFactory;
 
 /**
  * A translation abstraction for converting between Gnip's Java model objects and XML in the form of strings and streams.
  * This class is public but is <b>not</b> intended for external use.  
+ * <br/>
+ * <br/>
+ * {@link Results} and {@link Rules} are parsed, and {@link Results}, {@link Activity}, {@link Rules} and {@link Rule}
+ * objects are marshalled, by readers and writers written for the model classes, which avoid the cost of JAXB's
+ * reflective binding.  They produce the same objects and XML as JAXB.  Setting the {@value #USE_JAXB_PROPERTY}
+ * system property to <code>true</code>, or calling {@link #setUseJaxb(boolean)}, uses JAXB for everything instead.
+ * <br/>
+ * <br/>
+ * Either way, documents that are parsed and marshalled are validated against the Gnip schema, and documents that
+ * are not valid are rejected.  Parsed documents are validated while they are read; marshalled documents are
+ * written to memory and validated before they are returned or copied to the output stream.  Setting the
+ * {@value #VALIDATE_PROPERTY} system property to <code>false</code>, or calling {@link #setValidate(boolean)},
+ * turns validation off, for callers that trust their input and want the lowest cost.
+ * <br/>
+ * <br/>
+ * The JAXB context and the compiled Gnip schema are expensive to build and are only built when first needed.  A
+ * long-running process that wants to take this cost at startup rather than on its first request can call
+ * {@link #warmUp()}, or {@link #warmUpInBackground()} to build them on a separate thread.
  */
 public class Translator {
 
-    private static JAXBContext context;
+    /**
+     * The system property that selects JAXB for every translation when set to <code>true</code>.
+     */
+    public static final String USE_JAXB_PROPERTY = "com.gnipcentral.client.useJaxb";
 
-    static {
-        try {
-            context = JAXBContext.newInstance(Error.class, Results.class);
-        } catch (JAXBException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    /**
+     * The system property that turns schema validation off when set to <code>false</code>.
+     */
+    public static final String VALIDATE_PROPERTY = "com.gnipcentral.client.validate";
+
+    private static final Tracer TRACER = TracerFactory.getInstance();
+
+    private static volatile boolean useJaxb = Boolean.getBoolean(USE_JAXB_PROPERTY);
+    private static volatile boolean validate = !"false".equalsIgnoreCase(System.getProperty(VALIDATE_PROPERTY));
 
     /**
      * Parse {@link Activities} from an {@link InputSource}.
@@ -34,7 +78,12 @@ public class Translator {
      * @throws JAXBException if an error occurs unmarshalling the object from XML
      */
     public static Results parseResults(InputSource input) throws JAXBException {
-        return (Results) getUnmarshaller().unmarshal(input);
+        TraceSpan span = TRACER.begin(TraceEvent.PARSE);
+        try {
+            return traced(parseResultsUntraced(input, null), span);
+        } finally {
+            end(span);
+        }
     }
 
     /**
@@ -44,7 +93,114 @@ public class Translator {
      * @throws JAXBException if an error occurs unmarshalling the object from XML
      */
     public static Results parseResults(InputStream input) throws JAXBException {
-        return (Results) getUnmarshaller().unmarshal(input);
+        if (!useJaxb) {
+            return parseResults(new InputSource(input));
+        }
+        TraceSpan span = TRACER.begin(TraceEvent.PARSE);
+        try {
+            return traced((Results) getUnmarshaller().unmarshal(input), span);
+        } finally {
+            end(span);
+        }
+    }
+
+    /**
+     * Parse {@link Activities} from an {@link InputSource}, applying the given {@link ParseOptions}.
+     * @param input the XML input
+     * @param options the parse options; if <code>null</code> this is the same as {@link #parseResults(InputSource)}
+     * @return the model object
+     * @throws JAXBException if an error occurs unmarshalling the object from XML
+     */
+    public static Results parseResults(InputSource input, ParseOptions options) throws JAXBException {
+        if (options == null) {
+            return parseResults(input);
+        }
+        TraceSpan span = TRACER.begin(TraceEvent.PARSE);
+        try {
+            return traced(parseResultsUntraced(input, options), span);
+        } finally {
+            end(span);
+        }
+    }
+
+    /**
+     * Parse {@link Activities} without a trace span, for parses that are part of a larger one that is traced,
+     * such as the runs of a {@link ParallelResultsReader}.
+     * @param input the XML input
+     * @param options the parse options or <code>null</code>
+     * @return the model object
+     * @throws JAXBException if an error occurs unmarshalling the object from XML
+     */
+    static Results parseResultsUntraced(InputSource input, ParseOptions options) throws JAXBException {
+        if (useJaxb && options == null) {
+            return (Results) getUnmarshaller().unmarshal(input);
+        }
+        // JAXB validates with its own unmarshaller
+        XMLStreamReader reader = createReader(input, validate && !useJaxb);
+        return new ResultsReader(options, useJaxb ? getUnmarshaller() : null).read(reader);
+    }
+
+    /**
+     * Parse {@link Activities} from an {@link InputStream}, applying the given {@link ParseOptions}.
+     * @param input the XML input
+     * @param options the parse options; if <code>null</code> this is the same as {@link #parseResults(InputStream)}
+     * @return the model object
+     * @throws JAXBException if an error occurs unmarshalling the object from XML
+     */
+    public static Results parseResults(InputStream input, ParseOptions options) throws JAXBException {
+        return parseResults(new InputSource(input), options);
+    }
+
+    /**
+     * Parse {@link Activities} from a byte array on several threads, applying the given {@link ParseOptions}.  The
+     * document is split between its <code>&lt;activity&gt;</code> elements into up to one run per available
+     * processor, and the runs are parsed on the executor and on the calling thread; the activities are returned in
+     * document order along with the header fields.  Documents smaller than a few hundred kilobytes, and documents
+     * that cannot be split safely, for example because they contain comments or CDATA sections, are parsed on the
+     * calling thread only.
+     * @param data the XML input
+     * @param options the parse options, which are applied to every run, or <code>null</code> to parse every
+     * activity completely
+     * @param executor the executor that parses the runs after the first
+     * @return the model object
+     * @throws JAXBException if an error occurs unmarshalling the object from XML
+     */
+    public static Results parseResults(byte[] data, ParseOptions options, ExecutorService executor) throws JAXBException {
+        if (data == null) {
+            throw new IllegalArgumentException("Invalid data specified '"+data+"'");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Invalid executor specified '"+executor+"'");
+        }
+        TraceSpan span = TRACER.begin(TraceEvent.PARSE);
+        try {
+            if (span != null) {
+                span.setByteCount(data.length);
+            }
+            return traced(new ParallelResultsReader(options, executor, Runtime.getRuntime().availableProcessors()).read(data), span);
+        } finally {
+            end(span);
+        }
+    }
+
+    /**
+     * Parse {@link Rules} from an {@link InputStream}.
+     * @param input the XML input
+     * @return the model object
+     * @throws JAXBException if an error occurs unmarshalling the object from XML
+     */
+    public static Rules parseRules(InputStream input) throws JAXBException {
+        if (useJaxb) {
+            return (Rules) getUnmarshaller().unmarshal(input);
+        }
+        XMLStreamReader reader = createReader(new InputSource(input), validate);
+        try {
+            return new ResourceXmlReader(null, null).readRules(reader);
+        } catch (XMLStreamException e) {
+            throw new UnmarshalException(e);
+        } finally {
+            close(reader);
+        }
     }
 
     /**
@@ -75,6 +231,21 @@ public class Translator {
      * @throws JAXBException if an exception occurs during marshalling
      */
     public static void marshall(Object object, OutputStream output, boolean fragment) throws JAXBException {
+        if (!useJaxb && ResourceXmlWriter.supports(object)) {
+            try {
+                if (!validate) {
+                    new ResourceXmlWriter(new OutputStreamWriter(output, "UTF-8")).write(object, fragment);
+                    return;
+                }
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                new ResourceXmlWriter(new OutputStreamWriter(buffer, "UTF-8")).write(object, fragment);
+                validate(new StreamSource(new ByteArrayInputStream(buffer.toByteArray())));
+                buffer.writeTo(output);
+            } catch (IOException e) {
+                throw new MarshalException(e);
+            }
+            return;
+        }
         getMarshaller(fragment).marshal(object, output);
     }
 
@@ -97,21 +268,194 @@ public class Translator {
      */
     public static String marshall(Object object, boolean fragment) throws JAXBException {
         StringWriter stringWriter = new StringWriter();
+        if (!useJaxb && ResourceXmlWriter.supports(object)) {
+            try {
+                new ResourceXmlWriter(stringWriter).write(object, fragment);
+            } catch (IOException e) {
+                throw new MarshalException(e);
+            }
+            if (validate) {
+                validate(new StreamSource(new StringReader(stringWriter.toString())));
+            }
+            return stringWriter.toString();
+        }
         getMarshaller(fragment).marshal(object, stringWriter);
         return stringWriter.toString();
     }
 
+    /**
+     * Configure whether JAXB is used for every translation.  The default is the value of the
+     * {@value #USE_JAXB_PROPERTY} system property.
+     * @param useJaxb <code>true</code> to use JAXB with schema validation; <code>false</code> to use the model's
+     * own readers and writers where they exist
+     */
+    public static void setUseJaxb(boolean useJaxb) {
+        Translator.useJaxb = useJaxb;
+    }
+
+    /**
+     * Retrieves whether JAXB is used for every translation.
+     * @return <code>true</code> if JAXB is used
+     */
+    public static boolean isUseJaxb() {
+        return useJaxb;
+    }
+
+    /**
+     * Configure whether parsed and marshalled documents are validated against the Gnip schema.  The default is
+     * <code>true</code> unless the {@value #VALIDATE_PROPERTY} system property is <code>false</code>.
+     * @param validate <code>true</code> to reject documents that are not valid; <code>false</code> to skip the
+     * validation
+     */
+    public static void setValidate(boolean validate) {
+        Translator.validate = validate;
+    }
+
+    /**
+     * Retrieves whether documents are validated against the Gnip schema.
+     * @return <code>true</code> if documents are validated
+     */
+    public static boolean isValidate() {
+        return validate;
+    }
+
+    /**
+     * Build the JAXB context, the compiled Gnip schema and the XML parser factory now, rather than on first use.
+     * Does nothing if they have already been built.
+     */
+    public static void warmUp() {
+        getContext();
+        GnipSchema.getSchema();
+        ResultsReader.getInputFactory();
+    }
+
+    /**
+     * Start a daemon thread that calls {@link #warmUp()}.  Translations that need the JAXB context or schema while
+     * it runs wait for it to finish rather than building them a second time.
+     * @return a future that completes when the warm up does, and that holds any exception it threw
+     */
+    public static Future<Void> warmUpInBackground() {
+        FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+            public Void call() {
+                warmUp();
+                return null;
+            }
+        });
+        Thread thread = new Thread(task, "gnip-translator-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Parse a {@link Payload} that was captured as an XML fragment by a lazy parse.  The fragment is not
+     * validated; it was read from a document that was.
+     */
+    static Payload parsePayload(byte[] xml) {
+        try {
+            if (useJaxb) {
+                return getContext().createUnmarshaller().unmarshal(new StreamSource(new ByteArrayInputStream(xml)), Payload.class).getValue();
+            }
+            XMLStreamReader reader = createReader(new InputSource(new ByteArrayInputStream(xml)), false);
+            try {
+                return new ResourceXmlReader(null, null).readPayloadDocument(reader);
+            } finally {
+                close(reader);
+            }
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Exception occurred attempting to parse a payload", e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Exception occurred attempting to parse a payload", e);
+        }
+    }
+
     private static Marshaller getMarshaller(boolean fragment) throws JAXBException {
-        Marshaller marshaller = context.createMarshaller();
-        marshaller.setSchema(GnipSchema.schema);
+        Marshaller marshaller = getContext().createMarshaller();
+        if (validate) {
+            marshaller.setSchema(GnipSchema.getSchema());
+        }
         marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
         return marshaller;
     }
 
 
+    private static Results traced(Results results, TraceSpan span) {
+        if (span != null && results != null && results.getActivities() != null) {
+            span.setActivityCount(results.getActivities().size());
+        }
+        return results;
+    }
+
+    private static void end(TraceSpan span) {
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    private static XMLStreamReader createReader(InputSource input, boolean validate) throws JAXBException {
+        try {
+            XMLStreamReader reader;
+            if (input.getByteStream() != null) {
+                reader = input.getEncoding() != null
+                        ? ResultsReader.getInputFactory().createXMLStreamReader(input.getByteStream(), input.getEncoding())
+                        : ResultsReader.getInputFactory().createXMLStreamReader(input.getByteStream());
+            } else if (input.getCharacterStream() != null) {
+                reader = ResultsReader.getInputFactory().createXMLStreamReader(input.getCharacterStream());
+            } else {
+                reader = ResultsReader.getInputFactory().createXMLStreamReader(new StreamSource(input.getSystemId()));
+            }
+            return validate ? new ValidatingStreamReader(reader, GnipSchema.getSchema()) : reader;
+        } catch (XMLStreamException e) {
+            throw new JAXBException("Exception occurred creating an XML reader", e);
+        }
+    }
+
+    /**
+     * Validate a document written by a {@link ResourceXmlWriter}, as JAXB validates the documents it marshalls.
+     */
+    private static void validate(Source source) throws JAXBException {
+        try {
+            GnipSchema.getSchema().newValidator().validate(source);
+        } catch (SAXException e) {
+            throw new MarshalException(e);
+        } catch (IOException e) {
+            throw new MarshalException(e);
+        }
+    }
+
+    static void close(XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            //Ignore, the document has already been read
+        }
+    }
+
+    private static JAXBContext getContext() {
+        return ContextHolder.CONTEXT;
+    }
+
     private static Unmarshaller getUnmarshaller() throws JAXBException {
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-        unmarshaller.setSchema(GnipSchema.schema);
+        Unmarshaller unmarshaller = getContext().createUnmarshaller();
+        if (validate) {
+            unmarshaller.setSchema(GnipSchema.getSchema());
+        }
         return unmarshaller;
     }
+
+    /**
+     * Holds the JAXB context, which the JVM creates on first access to this class.
+     */
+    private static final class ContextHolder {
+
+        static final JAXBContext CONTEXT;
+
+        static {
+            try {
+                CONTEXT = JAXBContext.newInstance(Error.class, Results.class, Rules.class);
+            } catch (JAXBException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package com.gnipcentral.client.resource;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Package-protected {@link XMLStreamReader} that validates a document against a {@link Schema} as it is read.
+ * Every event the reader moves past is passed to a {@link ValidatorHandler} as the equivalent SAX event, so a
+ * document is validated in the same single pass that reads it, whether the events are consumed by a
+ * {@link ResourceXmlReader}, skipped by an {@link ActivityFilterReader} or copied by an {@link XmlFragmentWriter}.
+ * {@link #nextTag()} and {@link #getElementText()} are implemented with {@link #next()} so that no event is
+ * missed.  A document that is not valid is reported with an {@link XMLStreamException} at the event that made it
+ * invalid.  This class is not intended for external use.
+ */
+class ValidatingStreamReader extends StreamReaderDelegate {
+
+    private final ValidatorHandler handler;
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    ValidatingStreamReader(XMLStreamReader reader, Schema schema) throws XMLStreamException {
+        super(reader);
+        this.handler = schema.newValidatorHandler();
+        handler.setDocumentLocator(new StreamLocator());
+        try {
+            handler.startDocument();
+        } catch (SAXException e) {
+            throw invalid(e);
+        }
+        if (reader.getEventType() != XMLStreamConstants.START_DOCUMENT) {
+            validate(reader.getEventType());
+        }
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        validate(event);
+        return event;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+        for (;;) {
+            int event = next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                case XMLStreamConstants.END_ELEMENT:
+                    return event;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (!isWhiteSpace()) {
+                        throw new XMLStreamException("Expected a start or end element", getLocation());
+                    }
+                    break;
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.COMMENT:
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    break;
+                default:
+                    throw new XMLStreamException("Expected a start or end element", getLocation());
+            }
+        }
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+            throw new XMLStreamException("Expected a start element", getLocation());
+        }
+        // most elements hold a single run of text, which needs no builder
+        String text = null;
+        StringBuilder sb = null;
+        for (;;) {
+            switch (next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    if (text == null) {
+                        text = getText();
+                    } else {
+                        if (sb == null) {
+                            sb = new StringBuilder(text);
+                        }
+                        sb.append(getTextCharacters(), getTextStart(), getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return sb != null ? sb.toString() : text != null ? text : "";
+                case XMLStreamConstants.START_ELEMENT:
+                    throw new XMLStreamException("Unexpected element in text-only content", getLocation());
+                default:
+                    throw new XMLStreamException("Unexpected end of document in text-only content", getLocation());
+            }
+        }
+    }
+
+    private void validate(int event) throws XMLStreamException {
+        try {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    for (int i = 0, count = getNamespaceCount(); i < count; i++) {
+                        handler.startPrefixMapping(nonNull(getNamespacePrefix(i)), nonNull(getNamespaceURI(i)));
+                    }
+                    attributes.clear();
+                    for (int i = 0, count = getAttributeCount(); i < count; i++) {
+                        String prefix = getAttributePrefix(i);
+                        String localName = getAttributeLocalName(i);
+                        attributes.addAttribute(nonNull(getAttributeNamespace(i)), localName, qName(prefix, localName),
+                                getAttributeType(i) != null ? getAttributeType(i) : "CDATA", getAttributeValue(i));
+                    }
+                    handler.startElement(nonNull(getNamespaceURI()), getLocalName(), qName(getPrefix(), getLocalName()), attributes);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    handler.endElement(nonNull(getNamespaceURI()), getLocalName(), qName(getPrefix(), getLocalName()));
+                    for (int i = 0, count = getNamespaceCount(); i < count; i++) {
+                        handler.endPrefixMapping(nonNull(getNamespacePrefix(i)));
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    handler.characters(getTextCharacters(), getTextStart(), getTextLength());
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    handler.endDocument();
+                    break;
+                default:
+                    break;
+            }
+        } catch (SAXException e) {
+            throw invalid(e);
+        }
+    }
+
+    private XMLStreamException invalid(SAXException e) {
+        return new XMLStreamException("Document is not valid against the Gnip schema: " + e.getMessage(), getLocation(), e);
+    }
+
+    private static String qName(String prefix, String localName) {
+        return prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Reports the parser's position, so validation errors name the line and column of the problem.
+     */
+    private final class StreamLocator implements Locator {
+
+        public String getPublicId() {
+            return location().getPublicId();
+        }
+
+        public String getSystemId() {
+            return location().getSystemId();
+        }
+
+        public int getLineNumber() {
+            return location().getLineNumber();
+        }
+
+        public int getColumnNumber() {
+            return location().getColumnNumber();
+        }
+
+        private Location location() {
+            return getLocation();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.gnipcentral.client.resource;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Package-protected writer that copies the element an {@link XMLStreamReader} is positioned on, with all of its
+ * content, into a compact UTF-8 encoded XML fragment.  Comments, processing instructions and namespace prefixes
+ * are not copied; the Gnip schema does not use namespaces.  The writer's buffer is reused between elements.  This
+ * class is not intended for external use.
+ */
+class XmlFragmentWriter {
+
+    private byte[] buffer = new byte[1024];
+    private int size;
+
+    /**
+     * Copy the current element.  The reader is left on the element's end element.
+     * @param reader the reader, positioned on a start element
+     * @return the element as UTF-8 encoded XML
+     */
+    byte[] write(XMLStreamReader reader) throws XMLStreamException {
+        size = 0;
+        int depth = 0;
+        int event = reader.getEventType();
+        for (;;) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    writeStartElement(reader);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    writeAscii("</");
+                    writeAscii(reader.getLocalName());
+                    writeByte('>');
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    writeText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength(), false);
+                    break;
+                default:
+                    break;
+            }
+            if (depth == 0) {
+                break;
+            }
+            event = reader.next();
+        }
+
+        byte[] fragment = new byte[size];
+        System.arraycopy(buffer, 0, fragment, 0, size);
+        return fragment;
+    }
+
+    private void writeStartElement(XMLStreamReader reader) {
+        writeByte('<');
+        writeAscii(reader.getLocalName());
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            writeByte(' ');
+            writeAscii(reader.getAttributeLocalName(i));
+            writeAscii("=\"");
+            String value = reader.getAttributeValue(i);
+            writeText(value.toCharArray(), 0, value.length(), true);
+            writeByte('"');
+        }
+        writeByte('>');
+    }
+
+    private void writeAscii(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(char c) {
+        ensure(1);
+        buffer[size++] = (byte) c;
+    }
+
+    private void writeText(char[] text, int start, int length, boolean attribute) {
+        ensure(length * 3);
+        for (int i = start, end = start + length; i < end; i++) {
+            char c = text[i];
+            if (c == '<') {
+                writeEntity("&lt;", length);
+            } else if (c == '&') {
+                writeEntity("&amp;", length);
+            } else if (c == '>') {
+                writeEntity("&gt;", length);
+            } else if (attribute && c == '"') {
+                writeEntity("&quot;", length);
+            } else if (c == '\r' || (attribute && (c == '\n' || c == '\t'))) {
+                // keep characters that a parser would otherwise normalize
+                writeEntity(c == '\r' ? "&#13;" : (c == '\n' ? "&#10;" : "&#9;"), length);
+            } else if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xc0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text[i + 1])) {
+                int codePoint = Character.toCodePoint(c, text[++i]);
+                buffer[size++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                buffer[size++] = (byte) (0xe0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[size++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void writeEntity(String entity, int reserve) {
+        // the text was reserved at three bytes per character, which an entity can exceed
+        ensure(entity.length() + reserve * 3);
+        for (int i = 0; i < entity.length(); i++) {
+            buffer[size++] = (byte) entity.charAt(i);
+        }
+    }
+
+    private void ensure(int length) {
+        if (size + length > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, size + length)];
+            System.arraycopy(buffer, 0, grown, 0, size);
+            buffer = grown;
+        }
+    }
+}
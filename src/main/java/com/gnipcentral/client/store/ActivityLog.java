@@ -0,0 +1,389 @@
+package com.gnipcentral.client.store;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import com.gnipcentral.client.GnipConnection;
+import com.gnipcentral.client.metrics.MetricsRegistry;
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.stream.ActivityHandler;
+import com.gnipcentral.client.util.Logger;
+import com.gnipcentral.client.util.LoggerFactory;
+
+/**
+ * Append-only local log of the activity buckets read from Gnip, used to reprocess activities without fetching
+ * them from the service again.  Each bucket is recorded as the raw XML bytes of the response together with its
+ * bucket time, a multiple of {@link GnipConnection#BUCKET_SIZE_MILLIS}.  A log is typically attached to a
+ * connection with {@link com.gnipcentral.client.Config#setActivityLog(ActivityLog)}, which records every bucket
+ * that the connection reads under the bucket time named by the URL it was read from.
+ * <br/>
+ * <br/>
+ * The log is a directory of segment files that are memory-mapped and filled in turn; when the current segment is
+ * full a new one is started.  Each segment keeps a sparse index of where each bucket starts, so
+ * {@link #replay(long, long)} can start reading a time range without scanning the log.  Segments are deleted,
+ * oldest first, once the log exceeds the {@link #setRetentionBytes(long) size} or
+ * {@link #setRetentionMillis(long) age} limits.  The segment being written is never deleted.
+ * <br/>
+ * <br/>
+ * Bucket times must not decrease from one append to the next.  When the log is opened, existing segments are
+ * scanned to rebuild their indexes and any incomplete record at the end of the last segment is discarded.
+ * Records are written to the operating system's page cache; {@link #force()} writes them to disk.
+ * <br/>
+ * <br/>
+ * This class is thread-safe.
+ */
+public class ActivityLog {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getInstance();
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final File directory;
+    private final int segmentSize;
+    private final List<LogSegment> segments = new ArrayList<LogSegment>();
+
+    private long retentionBytes;
+    private long retentionMillis;
+    private long lastBucketTime = Long.MIN_VALUE;
+    private boolean closed;
+
+    /**
+     * Open or create a log with segments of {@link #DEFAULT_SEGMENT_SIZE} bytes.
+     * @param directory the directory that holds the log's segment files
+     * @throws IOException if the directory cannot be created or a segment cannot be opened
+     */
+    public ActivityLog(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open or create a log.
+     * @param directory the directory that holds the log's segment files
+     * @param segmentSize the size of each segment file in bytes; larger buckets get a segment of their own
+     * @throws IOException if the directory cannot be created or a segment cannot be opened
+     */
+    public ActivityLog(File directory, int segmentSize) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Invalid directory specified '"+directory+"'");
+        }
+        if (segmentSize <= LogSegment.HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid segment size specified '"+segmentSize+"'");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create log directory " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    private void open() throws IOException {
+        String[] names = directory.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        Arrays.sort(names);
+
+        try {
+            for (String name : names) {
+                long sequence;
+                try {
+                    sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                LogSegment segment = LogSegment.open(new File(directory, name), sequence);
+                segments.add(segment);
+                if (segment.getRecordCount() > 0) {
+                    lastBucketTime = segment.getLastBucketTime();
+                }
+            }
+        } catch (IOException e) {
+            closeSegments();
+            throw e;
+        }
+        LOG.log(Logger.Level.INFO, "Opened activity log %s with %s segments\n", directory, segments.size());
+    }
+
+    /**
+     * Record a bucket read from a URL.  The bucket time is the one the URL names, such as
+     * <code>.../notification/200903011000.xml</code>, so buckets read late or while catching up are indexed under
+     * the time they cover.  A URL that names no bucket, such as <code>.../notification/current.xml</code>, falls back
+     * to the wall clock as in {@link #append(byte[])}.  A bucket older than the latest one in the log is not
+     * recorded, as bucket times must not decrease, and a warning is logged instead.
+     * @param url the URL the bucket was read from
+     * @param data the raw bucket data
+     * @return <code>true</code> if the bucket was recorded
+     * @throws IOException if a segment cannot be created
+     */
+    public synchronized boolean append(String url, byte[] data) throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid url specified '"+url+"'");
+        }
+
+        long bucketTime = MetricsRegistry.bucketTimeOf(url);
+        if (bucketTime < 0) {
+            append(data);
+            return true;
+        }
+        if (bucketTime < lastBucketTime) {
+            LOG.log(Logger.Level.WARN, "Not recording bucket %s that is older than the latest bucket in activity log %s\n", url, directory);
+            return false;
+        }
+        append(bucketTime, data);
+        return true;
+    }
+
+    /**
+     * Record a bucket read at the current time.  The bucket time is the start of the current bucket, or the
+     * bucket time of the previous append if that is later.  This is only an approximation of the bucket the data
+     * belongs to; prefer {@link #append(String, byte[])} or {@link #append(long, byte[])} when it is known.
+     * @param data the raw bucket data
+     * @throws IOException if a segment cannot be created
+     */
+    public synchronized void append(byte[] data) throws IOException {
+        long now = System.currentTimeMillis();
+        long bucketTime = now - now % GnipConnection.BUCKET_SIZE_MILLIS;
+        append(Math.max(bucketTime, lastBucketTime), data);
+    }
+
+    /**
+     * Record a bucket.
+     * @param bucketTimeMillis the bucket time in milliseconds since the epoch
+     * @param data the raw bucket data
+     * @throws IOException if a segment cannot be created
+     */
+    public synchronized void append(long bucketTimeMillis, byte[] data) throws IOException {
+        checkOpen();
+        if (bucketTimeMillis < lastBucketTime) {
+            throw new IllegalArgumentException("Invalid bucket time specified '"+bucketTimeMillis+"'");
+        }
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Invalid data specified '"+data+"'");
+        }
+
+        LogSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || !segment.hasRoom(data.length)) {
+            segment = roll(segment, data.length);
+        }
+        segment.append(bucketTimeMillis, data);
+        lastBucketTime = bucketTimeMillis;
+    }
+
+    private LogSegment roll(LogSegment current, int length) throws IOException {
+        long sequence = 0;
+        if (current != null) {
+            current.force();
+            sequence = current.getSequence() + 1;
+        }
+
+        File file = new File(directory, String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        LogSegment segment = LogSegment.create(file, sequence, Math.max(segmentSize, LogSegment.HEADER_SIZE + length));
+        segments.add(segment);
+        applyRetention();
+        return segment;
+    }
+
+    /**
+     * Create a reader for the buckets with bucket times in a range.
+     * @param fromMillis the start of the range, inclusive, in milliseconds since the epoch
+     * @param toMillis the end of the range, exclusive, in milliseconds since the epoch
+     * @return the reader
+     */
+    public synchronized ActivityLogReader replay(long fromMillis, long toMillis) {
+        checkOpen();
+        return new ActivityLogReader(new ArrayList<LogSegment>(segments), fromMillis, toMillis);
+    }
+
+    /**
+     * Parse the buckets with bucket times in a range and pass each of their activities to a handler.
+     * @param fromMillis the start of the range, inclusive, in milliseconds since the epoch
+     * @param toMillis the end of the range, exclusive, in milliseconds since the epoch
+     * @param handler the handler that receives the activities
+     * @return the number of buckets replayed
+     * @throws JAXBException if an error occurs unmarshalling a bucket
+     */
+    public long replay(long fromMillis, long toMillis, ActivityHandler handler) throws JAXBException {
+        ActivityLogReader reader = replay(fromMillis, toMillis);
+        long buckets = 0;
+        while (reader.next()) {
+            Results results = reader.getResults();
+            if (!results.isEmpty()) {
+                List<Activity> activities = results.getActivities();
+                for (int i = 0, size = activities.size(); i < size; i++) {
+                    handler.onActivity(activities.get(i));
+                }
+            }
+            buckets++;
+        }
+        return buckets;
+    }
+
+    /**
+     * Configure the maximum total size of the log.  The default is <code>0</code>, which means no limit.
+     * @param retentionBytes the maximum size in bytes
+     */
+    public synchronized void setRetentionBytes(long retentionBytes) {
+        if (retentionBytes < 0) {
+            throw new IllegalArgumentException("Invalid retention size specified '"+retentionBytes+"'");
+        }
+        this.retentionBytes = retentionBytes;
+    }
+
+    /**
+     * Retrieves the maximum total size of the log.
+     * @return the maximum size in bytes, or <code>0</code> if there is no limit
+     */
+    public synchronized long getRetentionBytes() {
+        return retentionBytes;
+    }
+
+    /**
+     * Configure how long buckets are kept, measured from their bucket time.  A segment is deleted once its last
+     * bucket is older than this.  The default is <code>0</code>, which means no limit.
+     * @param retentionMillis the maximum age in milliseconds
+     */
+    public synchronized void setRetentionMillis(long retentionMillis) {
+        if (retentionMillis < 0) {
+            throw new IllegalArgumentException("Invalid retention time specified '"+retentionMillis+"'");
+        }
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Retrieves how long buckets are kept.
+     * @return the maximum age in milliseconds, or <code>0</code> if there is no limit
+     */
+    public synchronized long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    /**
+     * Delete the oldest segments that are beyond the retention limits.  This is also done each time a new segment
+     * is started.
+     * @return the number of segments deleted
+     * @throws IOException if a segment cannot be closed
+     */
+    public synchronized int applyRetention() throws IOException {
+        checkOpen();
+        long size = getSize();
+        long oldest = retentionMillis > 0 ? System.currentTimeMillis() - retentionMillis : Long.MIN_VALUE;
+        int deleted = 0;
+        while (segments.size() > 1) {
+            LogSegment segment = segments.get(0);
+            boolean tooLarge = retentionBytes > 0 && size > retentionBytes;
+            boolean tooOld = segment.getRecordCount() == 0 || segment.getLastBucketTime() < oldest;
+            if (!tooLarge && !tooOld) {
+                break;
+            }
+
+            segments.remove(0);
+            size -= segment.getSize();
+            if (!segment.delete()) {
+                LOG.log(Logger.Level.WARN, "Unable to delete activity log segment %s\n", segment.getFile());
+            }
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Write the records of the current segment to disk.
+     */
+    public synchronized void force() {
+        checkOpen();
+        forceCurrent();
+    }
+
+    /**
+     * Retrieves the total size of the records in the log.
+     * @return the size in bytes
+     */
+    public synchronized long getSize() {
+        long size = 0;
+        for (LogSegment segment : segments) {
+            size += segment.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Retrieves the number of segment files in the log.
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Retrieves the earliest bucket time in the log.
+     * @return the bucket time in milliseconds since the epoch, or {@link Long#MIN_VALUE} if the log is empty
+     */
+    public synchronized long getFirstBucketTime() {
+        for (LogSegment segment : segments) {
+            if (segment.getRecordCount() > 0) {
+                return segment.getFirstBucketTime();
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Retrieves the latest bucket time in the log.
+     * @return the bucket time in milliseconds since the epoch, or {@link Long#MIN_VALUE} if the log is empty
+     */
+    public synchronized long getLastBucketTime() {
+        return lastBucketTime;
+    }
+
+    /**
+     * Write the log to disk and close its segment files.  Readers that are still in use must not be used after
+     * the log is closed.
+     * @throws IOException if a segment cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        forceCurrent();
+        closeSegments();
+    }
+
+    private void forceCurrent() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    private void closeSegments() throws IOException {
+        IOException failure = null;
+        for (LogSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        segments.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The activity log has been closed");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.gnipcentral.client.store;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import com.gnipcentral.client.resource.ParseOptions;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.resource.Translator;
+
+/**
+ * Reads the buckets recorded in an {@link ActivityLog} for a range of bucket times, in the order they were
+ * appended.  A reader is created by {@link ActivityLog#replay(long, long)} and sees the buckets that had been
+ * appended when it was created.
+ * <br/>
+ * <br/>
+ * Call {@link #next()} to move to each bucket in turn.  The bucket's data is available without copying from
+ * {@link #getData()}, or can be parsed with {@link #getResults()}.  This class is not thread-safe.
+ */
+public class ActivityLogReader {
+
+    private final ByteBuffer[] views;
+    private final long toMillis;
+
+    private int segment;
+    private ByteBuffer data;
+    private long bucketTime;
+    private boolean done;
+
+    ActivityLogReader(List<LogSegment> segments, long fromMillis, long toMillis) {
+        this.toMillis = toMillis;
+        this.views = new ByteBuffer[segments.size()];
+        for (int i = 0; i < views.length; i++) {
+            LogSegment logSegment = segments.get(i);
+            ByteBuffer view = logSegment.view();
+            int start = logSegment.getLastBucketTime() < fromMillis ? -1 : logSegment.find(fromMillis);
+            view.position(start >= 0 ? start : view.limit());
+            views[i] = view;
+        }
+    }
+
+    /**
+     * Move to the next bucket in the range.
+     * @return <code>true</code> if there is another bucket; <code>false</code> if the end of the range was reached
+     */
+    public boolean next() {
+        while (!done && segment < views.length) {
+            ByteBuffer view = views[segment];
+            if (view.remaining() < LogSegment.HEADER_SIZE) {
+                segment++;
+                continue;
+            }
+
+            int position = view.position();
+            int length = view.getInt(position);
+            long time = view.getLong(position + 8);
+            if (time >= toMillis) {
+                done = true;
+                break;
+            }
+
+            view.position(position + LogSegment.HEADER_SIZE);
+            data = view.slice();
+            data.limit(length);
+            view.position(position + LogSegment.HEADER_SIZE + length);
+            bucketTime = time;
+            return true;
+        }
+        data = null;
+        return false;
+    }
+
+    /**
+     * Retrieves the bucket time of the current bucket.
+     * @return the bucket time in milliseconds since the epoch
+     */
+    public long getBucketTime() {
+        checkCurrent();
+        return bucketTime;
+    }
+
+    /**
+     * Retrieves a read-only view of the current bucket's data.  The view is backed by the log file and is only
+     * valid while the log segment exists.
+     * @return the bucket data
+     */
+    public ByteBuffer getData() {
+        checkCurrent();
+        return data.duplicate();
+    }
+
+    /**
+     * Retrieves a copy of the current bucket's data.
+     * @return the bucket data
+     */
+    public byte[] getBytes() {
+        checkCurrent();
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Parses the current bucket.
+     * @return the bucket's results
+     * @throws JAXBException if an error occurs unmarshalling the bucket
+     */
+    public Results getResults() throws JAXBException {
+        return getResults(null);
+    }
+
+    /**
+     * Parses the current bucket with the given {@link ParseOptions}.
+     * @param options the parse options or <code>null</code> to parse every activity completely
+     * @return the bucket's results
+     * @throws JAXBException if an error occurs unmarshalling the bucket
+     */
+    public Results getResults(ParseOptions options) throws JAXBException {
+        return Translator.parseResults(new ByteArrayInputStream(getBytes()), options);
+    }
+
+    private void checkCurrent() {
+        if (data == null) {
+            throw new IllegalStateException("The reader is not positioned on a bucket");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.gnipcentral.client.store;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One HTTP request and its response as recorded by an {@link ExchangeRecorder}.  Headers with several values are
+ * held as one value, separated by commas.  The body is the response body as it was sent, before it was inflated,
+ * and is empty for a response whose status is not <code>200</code>.  This class is immutable, except that the
+ * body array is shared rather than copied.
+ */
+public class Exchange {
+
+    private final long startMillis;
+    private final long durationNanos;
+    private final String method;
+    private final String url;
+    private final int status;
+    private final Map<String, String> requestHeaders;
+    private final Map<String, String> responseHeaders;
+    private final byte[] body;
+
+    /**
+     * Create an exchange.
+     * @param startMillis the time the request was sent, in milliseconds since the epoch
+     * @param durationNanos the time from sending the request to reading the whole response, in nanoseconds
+     * @param method the request method
+     * @param url the request URL
+     * @param status the response status code
+     * @param requestHeaders the request headers
+     * @param responseHeaders the response headers
+     * @param body the response body
+     */
+    public Exchange(long startMillis, long durationNanos, String method, String url, int status,
+                    Map<String, String> requestHeaders, Map<String, String> responseHeaders, byte[] body) {
+        if (method == null) {
+            throw new IllegalArgumentException("Invalid method specified '"+method+"'");
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid url specified '"+url+"'");
+        }
+        if (body == null) {
+            throw new IllegalArgumentException("Invalid body specified '"+body+"'");
+        }
+
+        this.startMillis = startMillis;
+        this.durationNanos = durationNanos;
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.requestHeaders = copy(requestHeaders);
+        this.responseHeaders = copy(responseHeaders);
+        this.body = body;
+    }
+
+    /**
+     * Retrieves the time the request was sent.
+     * @return the time in milliseconds since the epoch
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Retrieves the time from sending the request to reading the whole response.
+     * @return the duration in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Retrieves the request method.
+     * @return the method
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Retrieves the request URL.
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Retrieves the response status code.
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Retrieves the request headers, in the order they were sent.
+     * @return an unmodifiable map of header names to values
+     */
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    /**
+     * Retrieves the response headers, in the order they were received.
+     * @return an unmodifiable map of header names to values
+     */
+    public Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     * Retrieves the response body as it was sent.
+     * @return the body, which must not be modified
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    private static Map<String, String> copy(Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(new LinkedHashMap<String, String>(headers));
+    }
+}
@@ -0,0 +1,109 @@
+package com.gnipcentral.client.store;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the exchanges of an archive written by an {@link ExchangeRecorder}, in the order they were recorded.
+ * Call {@link #next()} to move to each exchange in turn and {@link #getExchange()} to retrieve it.  A record that
+ * was cut short at the end of the archive is ignored.  This class is not thread-safe.
+ */
+public class ExchangeReader {
+
+    private final DataInputStream input;
+    private final long length;
+    private Exchange exchange;
+    private boolean done;
+
+    /**
+     * Open an archive.
+     * @param file the archive file
+     * @throws IOException if the file cannot be opened or is not an archive
+     */
+    public ExchangeReader(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Invalid file specified '"+file+"'");
+        }
+
+        length = file.length();
+        input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            if (input.readInt() != ExchangeRecorder.MAGIC) {
+                throw new IOException("Not an exchange archive: " + file);
+            }
+            int version = input.readInt();
+            if (version != ExchangeRecorder.VERSION) {
+                throw new IOException("Unsupported exchange archive version " + version + ": " + file);
+            }
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Move to the next exchange.
+     * @return <code>true</code> if there is an exchange; <code>false</code> at the end of the archive
+     * @throws IOException if the archive cannot be read or is corrupt
+     */
+    public boolean next() throws IOException {
+        if (done) {
+            return false;
+        }
+
+        try {
+            long startMillis = input.readLong();
+            long durationNanos = input.readLong();
+            String method = input.readUTF();
+            String url = input.readUTF();
+            int status = input.readUnsignedShort();
+            Map<String, String> requestHeaders = readHeaders();
+            Map<String, String> responseHeaders = readHeaders();
+            int bodyLength = input.readInt();
+            if (bodyLength < 0 || bodyLength > length) {
+                throw new IOException("Invalid body length " + bodyLength + " in exchange archive; the archive is corrupt");
+            }
+            byte[] body = new byte[bodyLength];
+            input.readFully(body);
+            exchange = new Exchange(startMillis, durationNanos, method, url, status, requestHeaders, responseHeaders, body);
+            return true;
+        } catch (EOFException e) {
+            // the end of the archive, or a record cut short by a crash
+            done = true;
+            exchange = null;
+            return false;
+        }
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        int count = input.readUnsignedShort();
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            headers.put(input.readUTF(), input.readUTF());
+        }
+        return headers;
+    }
+
+    /**
+     * Retrieves the current exchange.
+     * @return the exchange, or <code>null</code> before the first call to {@link #next()} and at the end
+     */
+    public Exchange getExchange() {
+        return exchange;
+    }
+
+    /**
+     * Close the archive.
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        done = true;
+        input.close();
+    }
+}
@@ -0,0 +1,139 @@
+package com.gnipcentral.client.store;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records the HTTP exchanges of a Gnip connection to an archive file so they can be served again later, for
+ * example by a replay server that reproduces a production incident in a test environment.  A recorder is
+ * attached to a connection with {@link com.gnipcentral.client.Config#setExchangeRecorder(ExchangeRecorder)},
+ * which records every request the connection sends except for its <code>Authorization</code> header.
+ * <br/>
+ * <br/>
+ * The archive is a header followed by one record per {@link Exchange}, holding its times, method, URL, status,
+ * headers and the body as it was sent.  Bodies are not compressed again, so recording a connection that uses gzip
+ * keeps the archive small and costs little CPU.  Records are buffered; {@link #flush()} writes them to the file.
+ * Each record is built in memory and written whole, so an exchange that cannot be recorded, for example because
+ * a header is too long, leaves no partial record behind.  Once writing to the file fails, the archive may end in
+ * a partial record and later exchanges are rejected.  An archive whose last record was cut short, for example
+ * because the process died, can still be read up to that record with an {@link ExchangeReader}.
+ * <br/>
+ * <br/>
+ * This class is thread-safe.
+ */
+public class ExchangeRecorder {
+
+    static final int MAGIC = 0x474e5852;
+    static final int VERSION = 1;
+
+    // records larger than this are built in a buffer of their own rather than one kept between records
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private final DataOutputStream output;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+    private long count;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Create an archive, replacing any file of the same name.
+     * @param file the archive file
+     * @throws IOException if the file cannot be created
+     */
+    public ExchangeRecorder(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Invalid file specified '"+file+"'");
+        }
+
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    /**
+     * Record an exchange.
+     * @param exchange the exchange
+     * @throws IOException if the exchange cannot be encoded, in which case nothing is written, or the record
+     * cannot be written, or an earlier record could not be written
+     * @throws IllegalStateException if the recorder has been closed
+     */
+    public synchronized void record(Exchange exchange) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The exchange recorder has been closed");
+        }
+        if (exchange == null) {
+            throw new IllegalArgumentException("Invalid exchange specified '"+exchange+"'");
+        }
+        if (failure != null) {
+            throw new IOException("Unable to record after an earlier record could not be written: " + failure.getMessage());
+        }
+
+        buffer.reset();
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeLong(exchange.getStartMillis());
+        record.writeLong(exchange.getDurationNanos());
+        record.writeUTF(exchange.getMethod());
+        record.writeUTF(exchange.getUrl());
+        record.writeShort(exchange.getStatus());
+        writeHeaders(record, exchange.getRequestHeaders());
+        writeHeaders(record, exchange.getResponseHeaders());
+        record.writeInt(exchange.getBody().length);
+        record.write(exchange.getBody());
+        try {
+            buffer.writeTo(output);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (buffer.size() > MAX_RETAINED_BUFFER) {
+                buffer = new ByteArrayOutputStream(8192);
+            }
+        }
+        count++;
+    }
+
+    private static void writeHeaders(DataOutputStream record, Map<String, String> headers) throws IOException {
+        if (headers.size() > 0xffff) {
+            throw new IOException("Unable to record " + headers.size() + " headers");
+        }
+        record.writeShort(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            record.writeUTF(header.getKey());
+            record.writeUTF(header.getValue());
+        }
+    }
+
+    /**
+     * Retrieves the number of exchanges recorded.
+     * @return the exchange count
+     */
+    public synchronized long getExchangeCount() {
+        return count;
+    }
+
+    /**
+     * Write the buffered records to the file.
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            output.flush();
+        }
+    }
+
+    /**
+     * Write the buffered records and close the file.  Closing a closed recorder has no effect.
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.gnipcentral.client.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Package-protected segment file of an {@link ActivityLog}.  The file is memory-mapped at its full capacity when
+ * it is created and records are appended to the mapping.  Each record is a header of the record length, the
+ * CRC-32 of the record data and the bucket time, followed by the data.  The unused end of the file is zero, so
+ * a record length of <code>0</code> marks the end of the segment.
+ * <br/>
+ * <br/>
+ * The segment keeps a sparse index of the position of the first record of each bucket.  This class is not
+ * intended for external use.
+ */
+class LogSegment {
+
+    static final int HEADER_SIZE = 16;
+
+    private final File file;
+    private final long sequence;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final TreeMap<Long, Integer> index = new TreeMap<Long, Integer>();
+    private final CRC32 crc = new CRC32();
+
+    private int position;
+    private long firstBucketTime = Long.MIN_VALUE;
+    private long lastBucketTime = Long.MIN_VALUE;
+    private int recordCount;
+
+    private LogSegment(File file, long sequence, int capacity) throws IOException {
+        this.file = file;
+        this.sequence = sequence;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() < capacity) {
+                raf.setLength(capacity);
+            }
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create a new, empty segment file.
+     */
+    static LogSegment create(File file, long sequence, int capacity) throws IOException {
+        if (file.exists()) {
+            throw new IOException("Log segment already exists: " + file);
+        }
+        return new LogSegment(file, sequence, capacity);
+    }
+
+    /**
+     * Open an existing segment file, rebuilding its index.  Records following a record whose length or checksum
+     * is invalid, for example one that was being written when the process stopped, are discarded.
+     */
+    static LogSegment open(File file, long sequence) throws IOException {
+        LogSegment segment = new LogSegment(file, sequence, 0);
+        segment.recover();
+        return segment;
+    }
+
+    private void recover() {
+        byte[] data = new byte[0];
+        int capacity = buffer.capacity();
+        while (position + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > capacity - position - HEADER_SIZE) {
+                break;
+            }
+            if (data.length < length) {
+                data = new byte[length];
+            }
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + HEADER_SIZE);
+            view.get(data, 0, length);
+            crc.reset();
+            crc.update(data, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            indexRecord(buffer.getLong(position + 8), position);
+            position += HEADER_SIZE + length;
+        }
+
+        // clear a partially written record so that it is not mistaken for a record later
+        for (int i = position, end = Math.min(capacity, position + HEADER_SIZE); i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    boolean hasRoom(int length) {
+        return position + HEADER_SIZE + length <= buffer.capacity();
+    }
+
+    void append(long bucketTime, byte[] data) {
+        int start = position;
+        ByteBuffer view = buffer.duplicate();
+        view.position(start + HEADER_SIZE);
+        view.put(data);
+
+        crc.reset();
+        crc.update(data, 0, data.length);
+        buffer.putLong(start + 8, bucketTime);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // the length is written last so a record is only visible once it is complete
+        buffer.putInt(start, data.length);
+
+        indexRecord(bucketTime, start);
+        position = start + HEADER_SIZE + data.length;
+    }
+
+    private void indexRecord(long bucketTime, int recordPosition) {
+        if (recordCount == 0) {
+            firstBucketTime = bucketTime;
+        }
+        if (recordCount == 0 || bucketTime != lastBucketTime) {
+            index.put(bucketTime, recordPosition);
+        }
+        lastBucketTime = bucketTime;
+        recordCount++;
+    }
+
+    /**
+     * Retrieves the position of the first record with a bucket time at or after the given time.
+     * @return the position or <code>-1</code> if every record is earlier
+     */
+    int find(long bucketTime) {
+        Map.Entry<Long, Integer> entry = index.ceilingEntry(bucketTime);
+        return entry != null ? entry.getValue() : -1;
+    }
+
+    /**
+     * Retrieves a read-only view of the segment's records.  The view's limit is the current end of the segment.
+     */
+    ByteBuffer view() {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.limit(position);
+        return view;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        raf.close();
+    }
+
+    boolean delete() throws IOException {
+        close();
+        return file.delete();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getSize() {
+        return position;
+    }
+
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    long getFirstBucketTime() {
+        return firstBucketTime;
+    }
+
+    long getLastBucketTime() {
+        return lastBucketTime;
+    }
+}
@@ -0,0 +1,23 @@
+package com.gnipcentral.client.stream;
+
+import java.util.List;
+
+import com.gnipcentral.client.resource.Activity;
+
+/**
+ * A callback that receives {@link Activity activities} in contiguous batches from an {@link ActivityBatcher}.
+ * Implementations are typically adapters to downstream sinks such as databases or indexers that perform
+ * much better with batched writes than with a write per activity.
+ */
+public interface ActivityBatchHandler {
+
+    /**
+     * Handle a batch of activities.  Batches are delivered in the order the activities were read and each
+     * batch contains at most the {@link ActivityBatcher#getBatchSize() batch size} number of activities.
+     * The list is owned by the handler once this method is called.
+     *
+     * @param activities the activities in the batch
+     * @param context information about the bucket the batch was read from
+     */
+    void onBatch(List<Activity> activities, BatchContext context);
+}
@@ -0,0 +1,156 @@
+package com.gnipcentral.client.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gnipcentral.client.GnipConnection;
+import com.gnipcentral.client.GnipException;
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.Lag;
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Regroups the {@link Activity activities} of successive {@link Results} buckets into batches of a configurable
+ * size and delivers them to an {@link ActivityBatchHandler}.  Batch sizes do not depend on bucket boundaries: a
+ * large bucket is split across several batches and the activities of small buckets are accumulated until a batch
+ * is full or {@link #flush()} is called.
+ * <br/>
+ * <br/>
+ * This class is not thread-safe; buckets should be passed to it from a single polling thread.
+ */
+public class ActivityBatcher {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final ActivityBatchHandler handler;
+    private final int batchSize;
+
+    private List<Activity> batch;
+    private long sequence;
+    private int bucketsSpanned;
+    private String bucketUrl;
+    private Results bucket;
+    private EndpointMetrics endpointMetrics;
+
+    /**
+     * Create an {@link ActivityBatcher} that delivers batches of {@value #DEFAULT_BATCH_SIZE} activities.
+     * @param handler the handler that receives batches
+     */
+    public ActivityBatcher(ActivityBatchHandler handler) {
+        this(handler, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create an {@link ActivityBatcher} that delivers batches of up to <code>batchSize</code> activities.
+     * @param handler the handler that receives batches
+     * @param batchSize the maximum number of activities in a batch
+     */
+    public ActivityBatcher(ActivityBatchHandler handler, int batchSize) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid handler specified '"+handler+"'");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size specified '"+batchSize+"'");
+        }
+
+        this.handler = handler;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Retrieves the maximum number of activities delivered in a batch.
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Retrieves the number of activities waiting to be delivered in the next batch.
+     * @return the number of pending activities
+     */
+    public int getPendingCount() {
+        return batch == null ? 0 : batch.size();
+    }
+
+    /**
+     * Configure the metrics of the endpoint the activities are read from, for example one from
+     * {@link com.gnipcentral.client.metrics.MetricsRegistry#getEndpointForUrl(String)}, to record the
+     * {@link Lag#ACTIVITY activity lag} of each activity as its batch is handed to the handler.
+     * @param endpointMetrics the endpoint metrics or <code>null</code> to not record the lag
+     */
+    public void setEndpointMetrics(EndpointMetrics endpointMetrics) {
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    /**
+     * Read the current bucket from a {@link GnipConnection} and add its activities to the pending batch, delivering
+     * each batch that fills up.
+     *
+     * @param connection the connection to read from
+     * @return the number of activities read from the bucket
+     * @throws GnipException if an error occurs reading the bucket
+     */
+    public int poll(GnipConnection connection) throws GnipException {
+        String url = connection.getConfig().getCurrentGnipUrl();
+        Results results = connection.getActivities();
+        add(url, results);
+        return results == null || results.isEmpty() ? 0 : results.getActivities().size();
+    }
+
+    /**
+     * Add the activities of a bucket to the pending batch, delivering each batch that fills up.
+     *
+     * @param url the URL the bucket was read from; may be <code>null</code>
+     * @param results the bucket
+     */
+    public void add(String url, Results results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+
+        bucketUrl = url;
+        bucket = results;
+        bucketsSpanned++;
+
+        List<Activity> activities = results.getActivities();
+        int size = activities.size();
+        for (int i = 0; i < size; i++) {
+            if (batch == null) {
+                batch = new ArrayList<Activity>(batchSize);
+            }
+            batch.add(activities.get(i));
+            if (batch.size() == batchSize) {
+                deliver(i == size - 1);
+                if (i < size - 1) {
+                    bucketsSpanned = 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver the pending activities as a batch even though it is not yet full.  This would typically be called
+     * when polling stops or when the pending activities have waited too long.
+     */
+    public void flush() {
+        if (batch != null && !batch.isEmpty()) {
+            deliver(true);
+        }
+    }
+
+    private void deliver(boolean bucketComplete) {
+        List<Activity> activities = batch;
+        BatchContext context = new BatchContext(sequence++, bucketUrl, bucket, bucketsSpanned, bucketComplete);
+        batch = null;
+        bucketsSpanned = 0;
+        if (endpointMetrics != null) {
+            long now = System.currentTimeMillis();
+            for (int i = 0, size = activities.size(); i < size; i++) {
+                endpointMetrics.recordLag(Lag.ACTIVITY, now - activities.get(i).getAtMillis());
+            }
+        }
+        handler.onBatch(activities, context);
+    }
+}
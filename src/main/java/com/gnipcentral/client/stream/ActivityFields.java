@@ -0,0 +1,85 @@
+package com.gnipcentral.client.stream;
+
+import java.util.List;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Actor;
+import com.gnipcentral.client.resource.GnipUrl;
+import com.gnipcentral.client.resource.GnipValue;
+import com.gnipcentral.client.resource.RuleType;
+
+/**
+ * Package-protected helper that reads the values of an {@link Activity} field selected by a {@link RuleType} as
+ * strings.  Actors are identified by <code>uid</code>, falling back to their value, as with
+ * {@link KeyExtractor#ACTOR_UID}.  This class is not intended for external use.
+ */
+final class ActivityFields {
+
+    private ActivityFields() {
+        // static helper
+    }
+
+    /**
+     * Append the string values of a field to a list.
+     * @return the number of values appended
+     */
+    static int collect(Activity activity, RuleType field, List<String> values) {
+        switch (field) {
+            case ACTION:
+                values.add(activity.getAction());
+                return 1;
+            case SOURCE:
+                return addStrings(activity.getSources(), values);
+            case KEYWORD:
+                return addStrings(activity.getKeywords(), values);
+            case TAG:
+                return addValues(activity.getTags(), values);
+            case TO:
+                return addValues(activity.getTos(), values);
+            case ACTOR:
+                return addActors(activity.getActors(), values);
+            case REGARDING:
+                return addUrls(activity.getRegardingUrls(), values);
+        }
+        return 0;
+    }
+
+    private static int addStrings(List<String> strings, List<String> values) {
+        if (strings == null) {
+            return 0;
+        }
+        values.addAll(strings);
+        return strings.size();
+    }
+
+    private static int addValues(List<GnipValue> gnipValues, List<String> values) {
+        if (gnipValues == null) {
+            return 0;
+        }
+        for (int i = 0, size = gnipValues.size(); i < size; i++) {
+            values.add(gnipValues.get(i).getValue());
+        }
+        return gnipValues.size();
+    }
+
+    private static int addActors(List<Actor> actors, List<String> values) {
+        if (actors == null) {
+            return 0;
+        }
+        for (int i = 0, size = actors.size(); i < size; i++) {
+            Actor actor = actors.get(i);
+            values.add(actor.getUid() != null ? actor.getUid() : actor.getValue());
+        }
+        return actors.size();
+    }
+
+    private static int addUrls(List<GnipUrl> urls, List<String> values) {
+        if (urls == null) {
+            return 0;
+        }
+        for (int i = 0, size = urls.size(); i < size; i++) {
+            values.add(urls.get(i).getUrl());
+        }
+        return urls.size();
+    }
+}
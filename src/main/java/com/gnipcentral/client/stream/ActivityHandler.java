@@ -0,0 +1,15 @@
+package com.gnipcentral.client.stream;
+
+import com.gnipcentral.client.resource.Activity;
+
+/**
+ * A callback that receives {@link Activity activities} one at a time.
+ */
+public interface ActivityHandler {
+
+    /**
+     * Handle an activity.
+     * @param activity the activity
+     */
+    void onActivity(Activity activity);
+}
@@ -0,0 +1,87 @@
+package com.gnipcentral.client.stream;
+
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Describes where a batch passed to an {@link ActivityBatchHandler} came from.  Since batches are sized
+ * independently of bucket boundaries, a batch can contain activities from more than one bucket; the bucket
+ * fields describe the bucket that contained the <i>last</i> activity of the batch, which is the bucket a
+ * consumer would record as a checkpoint once the batch has been handled.
+ */
+public class BatchContext {
+
+    private final long sequence;
+    private final String bucketUrl;
+    private final String count;
+    private final String uniqueCount;
+    private final String publisher;
+    private final int bucketsSpanned;
+    private final boolean bucketComplete;
+
+    BatchContext(long sequence, String bucketUrl, Results results, int bucketsSpanned, boolean bucketComplete) {
+        this.sequence = sequence;
+        this.bucketUrl = bucketUrl;
+        this.count = results.getCount();
+        this.uniqueCount = results.getUniqueCount();
+        this.publisher = results.getPublisher();
+        this.bucketsSpanned = bucketsSpanned;
+        this.bucketComplete = bucketComplete;
+    }
+
+    /**
+     * Retrieves the sequence number of the batch; the first batch delivered by an {@link ActivityBatcher}
+     * has sequence <code>0</code>.
+     * @return the batch sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Retrieves the URL the bucket was read from.
+     * @return the bucket URL or <code>null</code> if it was not provided
+     */
+    public String getBucketUrl() {
+        return bucketUrl;
+    }
+
+    /**
+     * Retrieves the {@link Results#getCount() count} reported for the bucket.
+     * @return the count
+     */
+    public String getCount() {
+        return count;
+    }
+
+    /**
+     * Retrieves the {@link Results#getUniqueCount() unique count} reported for the bucket.
+     * @return the unique count
+     */
+    public String getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /**
+     * Retrieves the {@link Results#getPublisher() publisher} reported for the bucket.
+     * @return the publisher
+     */
+    public String getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Retrieves the number of buckets that contributed activities to the batch.
+     * @return the number of buckets
+     */
+    public int getBucketsSpanned() {
+        return bucketsSpanned;
+    }
+
+    /**
+     * Check to see if the batch ends with the last activity of its bucket.
+     * @return <code>true</code> if all of the bucket's activities have been delivered; <code>false</code> otherwise
+     */
+    public boolean isBucketComplete() {
+        return bucketComplete;
+    }
+}
@@ -0,0 +1,179 @@
+package com.gnipcentral.client.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.gnipcentral.client.util.Hashing;
+
+/**
+ * A Count-Min sketch that estimates how often each of an unbounded set of keys occurred using a fixed
+ * <code>width</code> &times; <code>depth</code> table of counters.  Estimates never under-count; with a width of
+ * <code>e / &epsilon;</code> and a depth of <code>ln(1 / &delta;)</code> an estimate exceeds the true count by more
+ * than <code>&epsilon;</code> times the total count with probability at most <code>&delta;</code>.
+ * <br/>
+ * <br/>
+ * Sketches with the same dimensions can be {@link #merge(CountMinSketch) merged}, for example to combine the
+ * sketches built on several nodes, and can be serialized with {@link #toByteArray()}.  This class is not
+ * thread-safe.
+ */
+public class CountMinSketch {
+
+    private static final int SERIAL_VERSION = 1;
+
+    private final int width;
+    private final int depth;
+    private final long[] table;
+    private long totalCount;
+
+    /**
+     * Create an empty sketch.
+     * @param width the number of counters per row
+     * @param depth the number of rows, each with an independent hash
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Invalid width specified '"+width+"'");
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Invalid depth specified '"+depth+"'");
+        }
+
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+    }
+
+    /**
+     * Add occurrences of a key.
+     * @param key the key
+     * @param count the number of occurrences
+     * @return the key's estimated count after adding
+     */
+    public long add(String key, long count) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + index(h1, h2, row);
+            long value = (table[index] += count);
+            if (value < estimate) {
+                estimate = value;
+            }
+        }
+        totalCount += count;
+        return estimate;
+    }
+
+    /**
+     * Estimate how often a key occurred.
+     * @param key the key
+     * @return the estimated count, which is never less than the true count
+     */
+    public long estimate(String key) {
+        long hash = Hashing.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = table[row * width + index(h1, h2, row)];
+            if (value < estimate) {
+                estimate = value;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Add the counts of another sketch with the same dimensions to this one.
+     * @param other the sketch to merge
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Unable to merge a " + other.width + "x" + other.depth
+                    + " sketch into a " + width + "x" + depth + " sketch");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Retrieves the sum of all counts added to the sketch.
+     * @return the total count
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Reset every counter to zero.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        totalCount = 0;
+    }
+
+    /**
+     * Serialize the sketch.
+     * @return the serialized sketch
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + table.length * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(SERIAL_VERSION);
+            out.writeInt(width);
+            out.writeInt(depth);
+            out.writeLong(totalCount);
+            for (long value : table) {
+                out.writeLong(value);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Exception occurred attempting to serialize a sketch", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a sketch created by {@link #toByteArray()}.
+     * @param data the serialized sketch
+     * @return the sketch
+     */
+    public static CountMinSketch fromByteArray(byte[] data) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            int version = in.readUnsignedByte();
+            if (version != SERIAL_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch version '"+version+"'");
+            }
+            CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+            sketch.totalCount = in.readLong();
+            for (int i = 0; i < sketch.table.length; i++) {
+                sketch.table[i] = in.readLong();
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid serialized sketch", e);
+        }
+    }
+
+    private int index(int h1, int h2, int row) {
+        int combined = h1 + row * h2;
+        return (combined & 0x7fffffff) % width;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gnipcentral.client.stream;
+
+/**
+ * A callback used to visit the per-key counts of a {@link WindowResult} without copying them.
+ */
+public interface CountVisitor {
+
+    /**
+     * Visit the count of one key.
+     * @param key the key
+     * @param count the number of times the key occurred in the window
+     */
+    void visit(String key, int count);
+}
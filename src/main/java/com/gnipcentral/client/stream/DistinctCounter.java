@@ -0,0 +1,95 @@
+package com.gnipcentral.client.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.RuleType;
+
+/**
+ * Estimates the number of distinct values of an {@link Activity} field, for example the number of distinct actors
+ * in a bucket or window, in fixed memory using a {@link HyperLogLog} sketch.  Call {@link #clear()} between buckets
+ * or windows to count each separately.  Counters built on different nodes can be {@link #merge(DistinctCounter)
+ * merged}.  This class is not thread-safe.
+ */
+public class DistinctCounter implements ActivityHandler {
+
+    private final RuleType field;
+    private final HyperLogLog sketch;
+    private final List<String> values = new ArrayList<String>();
+
+    /**
+     * Create a counter with a sketch of the default precision.
+     * @param field the field whose distinct values are counted
+     */
+    public DistinctCounter(RuleType field) {
+        this(field, new HyperLogLog());
+    }
+
+    /**
+     * Create a counter that counts into the provided sketch.
+     * @param field the field whose distinct values are counted
+     * @param sketch the sketch
+     */
+    public DistinctCounter(RuleType field, HyperLogLog sketch) {
+        if (field == null) {
+            throw new IllegalArgumentException("Invalid field specified '"+field+"'");
+        }
+        if (sketch == null) {
+            throw new IllegalArgumentException("Invalid sketch specified '"+sketch+"'");
+        }
+
+        this.field = field;
+        this.sketch = sketch;
+    }
+
+    /**
+     * Add the values of the activity's field.
+     * @param activity the activity
+     */
+    public void onActivity(Activity activity) {
+        values.clear();
+        ActivityFields.collect(activity, field, values);
+        for (int i = 0, size = values.size(); i < size; i++) {
+            String value = values.get(i);
+            if (value != null) {
+                sketch.add(value);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the estimated number of distinct values.
+     * @return the estimated distinct count
+     */
+    public long getDistinctCount() {
+        return sketch.cardinality();
+    }
+
+    /**
+     * Merge the values counted by another counter into this one.
+     * @param other the counter to merge
+     */
+    public void merge(DistinctCounter other) {
+        sketch.merge(other.sketch);
+    }
+
+    public RuleType getField() {
+        return field;
+    }
+
+    /**
+     * Retrieves the sketch that holds the registers, for example to serialize it.
+     * @return the sketch
+     */
+    public HyperLogLog getSketch() {
+        return sketch;
+    }
+
+    /**
+     * Reset the counter so that it can be reused, for example for the next bucket or window.
+     */
+    public void clear() {
+        sketch.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package com.gnipcentral.client.stream;
+
+/**
+ * A frequently occurring value reported by {@link HeavyHitters}, with its estimated count.
+ */
+public class HeavyHitter {
+
+    private final String key;
+    private final long estimate;
+
+    HeavyHitter(String key, long estimate) {
+        this.key = key;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Retrieves the value.
+     * @return the value
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Retrieves the estimated number of occurrences, which is never less than the true number.
+     * @return the estimated count
+     */
+    public long getEstimate() {
+        return estimate;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + estimate;
+    }
+}
@@ -0,0 +1,166 @@
+package com.gnipcentral.client.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.RuleType;
+
+/**
+ * Tracks the most frequent values of an {@link Activity} field, for example the most active actors or the most
+ * common keywords or tags, in fixed memory.  Counts are kept in a {@link CountMinSketch} and the current top
+ * <code>k</code> values are kept in a min-heap ordered by their estimated counts.
+ * <br/>
+ * <br/>
+ * Operators built on different nodes with the same <code>k</code> and sketch dimensions can be
+ * {@link #merge(HeavyHitters) merged}.  This class is not thread-safe.
+ */
+public class HeavyHitters implements ActivityHandler {
+
+    public static final int DEFAULT_SKETCH_WIDTH = 2048;
+    public static final int DEFAULT_SKETCH_DEPTH = 5;
+
+    private static final Comparator<HeavyHitter> BY_ESTIMATE = new Comparator<HeavyHitter>() {
+        public int compare(HeavyHitter a, HeavyHitter b) {
+            return a.getEstimate() < b.getEstimate() ? -1 : (a.getEstimate() == b.getEstimate() ? 0 : 1);
+        }
+    };
+
+    private final RuleType field;
+    private final int k;
+    private final CountMinSketch sketch;
+    private final Map<String, HeavyHitter> candidates;
+    private final PriorityQueue<HeavyHitter> heap;
+    private final List<String> values = new ArrayList<String>();
+
+    /**
+     * Create an operator with a {@value #DEFAULT_SKETCH_WIDTH} x {@value #DEFAULT_SKETCH_DEPTH} sketch.
+     * @param field the field whose values are counted
+     * @param k the number of most frequent values to track
+     */
+    public HeavyHitters(RuleType field, int k) {
+        this(field, k, new CountMinSketch(DEFAULT_SKETCH_WIDTH, DEFAULT_SKETCH_DEPTH));
+    }
+
+    /**
+     * Create an operator that counts into the provided sketch.
+     * @param field the field whose values are counted
+     * @param k the number of most frequent values to track
+     * @param sketch the sketch used to count values
+     */
+    public HeavyHitters(RuleType field, int k, CountMinSketch sketch) {
+        if (field == null) {
+            throw new IllegalArgumentException("Invalid field specified '"+field+"'");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k specified '"+k+"'");
+        }
+        if (sketch == null) {
+            throw new IllegalArgumentException("Invalid sketch specified '"+sketch+"'");
+        }
+
+        this.field = field;
+        this.k = k;
+        this.sketch = sketch;
+        this.candidates = new HashMap<String, HeavyHitter>(k * 2);
+        this.heap = new PriorityQueue<HeavyHitter>(k, BY_ESTIMATE);
+    }
+
+    /**
+     * Count the values of the activity's field.
+     * @param activity the activity
+     */
+    public void onActivity(Activity activity) {
+        values.clear();
+        ActivityFields.collect(activity, field, values);
+        for (int i = 0, size = values.size(); i < size; i++) {
+            String value = values.get(i);
+            if (value != null) {
+                offer(value, sketch.add(value, 1));
+            }
+        }
+    }
+
+    /**
+     * Merge the counts and top values of another operator into this one.
+     * @param other the operator to merge
+     */
+    public void merge(HeavyHitters other) {
+        sketch.merge(other.sketch);
+
+        List<String> keys = new ArrayList<String>(candidates.keySet());
+        keys.addAll(other.candidates.keySet());
+        candidates.clear();
+        heap.clear();
+        for (String key : keys) {
+            if (!candidates.containsKey(key)) {
+                offer(key, sketch.estimate(key));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the most frequent values, most frequent first.
+     * @return up to <code>k</code> values with their estimated counts
+     */
+    public List<HeavyHitter> getTopK() {
+        List<HeavyHitter> top = new ArrayList<HeavyHitter>(heap);
+        Collections.sort(top, Collections.reverseOrder(BY_ESTIMATE));
+        return top;
+    }
+
+    /**
+     * Estimate how often a value occurred, whether or not it is among the most frequent.
+     * @param key the value
+     * @return the estimated count
+     */
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    public RuleType getField() {
+        return field;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Retrieves the sketch that holds the counts, for example to serialize it.
+     * @return the sketch
+     */
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * Reset the operator so that it can be reused, for example for the next bucket or window.
+     */
+    public void clear() {
+        sketch.clear();
+        candidates.clear();
+        heap.clear();
+    }
+
+    private void offer(String key, long estimate) {
+        HeavyHitter existing = candidates.get(key);
+        if (existing != null) {
+            heap.remove(existing);
+        } else if (heap.size() >= k) {
+            if (estimate <= heap.peek().getEstimate()) {
+                return;
+            }
+            candidates.remove(heap.poll().getKey());
+        }
+
+        HeavyHitter hitter = new HeavyHitter(key, estimate);
+        candidates.put(key, hitter);
+        heap.add(hitter);
+    }
+}
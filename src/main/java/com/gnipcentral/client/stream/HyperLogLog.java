@@ -0,0 +1,157 @@
+package com.gnipcentral.client.stream;
+
+import java.util.Arrays;
+
+import com.gnipcentral.client.util.Hashing;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct keys it has seen using <code>2^precision</code>
+ * one-byte registers.  The relative standard error of the estimate is about <code>1.04 / sqrt(2^precision)</code>,
+ * so the default precision of {@value #DEFAULT_PRECISION} uses 16KB and is accurate to within about 0.8%.
+ * <br/>
+ * <br/>
+ * Sketches with the same precision can be {@link #merge(HyperLogLog) merged}; the merged sketch estimates the
+ * number of keys in the union of the inputs.  They can be serialized with {@link #toByteArray()}.  This class is
+ * not thread-safe.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final int SERIAL_VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Create an empty sketch with the {@value #DEFAULT_PRECISION} precision.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Create an empty sketch.
+     * @param precision the number of hash bits used to choose a register, from 4 to 18
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Invalid precision specified '"+precision+"'");
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add a key.
+     * @param key the key
+     */
+    public void add(String key) {
+        addHash(Hashing.hash64(key));
+    }
+
+    /**
+     * Add a key that has already been hashed with a well mixed 64-bit hash such as {@link Hashing#hash64(String)}.
+     * @param hash the key's hash
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimate the number of distinct keys added.
+     * @return the estimated cardinality
+     */
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Merge another sketch with the same precision into this one.
+     * @param other the sketch to merge
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Unable to merge a sketch of precision " + other.precision
+                    + " into a sketch of precision " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Reset the sketch so that it can be reused, for example for the next bucket or window.
+     */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    /**
+     * Serialize the sketch.
+     * @return the serialized sketch
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[2 + registers.length];
+        data[0] = SERIAL_VERSION;
+        data[1] = (byte) precision;
+        System.arraycopy(registers, 0, data, 2, registers.length);
+        return data;
+    }
+
+    /**
+     * Deserialize a sketch created by {@link #toByteArray()}.
+     * @param data the serialized sketch
+     * @return the sketch
+     */
+    public static HyperLogLog fromByteArray(byte[] data) {
+        if (data.length < 2 || data[0] != SERIAL_VERSION) {
+            throw new IllegalArgumentException("Invalid serialized sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(data[1]);
+        if (data.length != 2 + sketch.registers.length) {
+            throw new IllegalArgumentException("Invalid serialized sketch");
+        }
+        System.arraycopy(data, 2, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
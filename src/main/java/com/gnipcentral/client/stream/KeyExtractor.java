@@ -0,0 +1,44 @@
+package com.gnipcentral.client.stream;
+
+import java.util.List;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Actor;
+
+/**
+ * Extracts the key that is used to group related {@link Activity activities}, for example to keep all of the
+ * activities of a single user in order.  Custom extractors can be created by implementing this interface.
+ */
+public interface KeyExtractor {
+
+    /**
+     * Extracts the <code>uid</code> of an activity's first {@link Actor}, falling back to the actor's value
+     * when the actor has no <code>uid</code>.
+     */
+    KeyExtractor ACTOR_UID = new KeyExtractor() {
+        public String getKey(Activity activity) {
+            List<Actor> actors = activity.getActors();
+            if (actors == null || actors.isEmpty()) {
+                return null;
+            }
+            Actor actor = actors.get(0);
+            return actor.getUid() != null ? actor.getUid() : actor.getValue();
+        }
+    };
+
+    /**
+     * Extracts an activity's {@link Activity#getActivityID() activity ID}.
+     */
+    KeyExtractor ACTIVITY_ID = new KeyExtractor() {
+        public String getKey(Activity activity) {
+            return activity.getActivityID();
+        }
+    };
+
+    /**
+     * Retrieves the key of an activity.
+     * @param activity the activity
+     * @return the key or <code>null</code> if the activity has no key
+     */
+    String getKey(Activity activity);
+}
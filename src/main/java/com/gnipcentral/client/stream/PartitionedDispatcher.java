@@ -0,0 +1,296 @@
+package com.gnipcentral.client.stream;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.Histogram;
+import com.gnipcentral.client.metrics.Lag;
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Results;
+import com.gnipcentral.client.util.Logger;
+import com.gnipcentral.client.util.LoggerFactory;
+
+/**
+ * Fans {@link Activity activities} out to a fixed number of worker threads by hashing a key chosen by a
+ * {@link KeyExtractor}.  All activities with the same key are handled by the same worker in the order they
+ * were dispatched, so activities can be processed in parallel without losing per-key ordering.  Activities
+ * without a key are all handled by the first partition.
+ * <br/>
+ * <br/>
+ * Each partition is a bounded single-producer, single-consumer queue; {@link #dispatch(Activity)} must therefore
+ * be called from a single thread, typically the polling thread.  When a partition's queue is full, dispatching
+ * waits until its worker catches up.  The number of activities waiting in each partition is available from
+ * {@link #getLag(int)}.
+ * <br/>
+ * <br/>
+ * Anything the handler throws, errors included, is logged and the worker moves on to the next activity.  Should a
+ * worker exit anyway, dispatching to its full partition fails rather than waiting forever.
+ */
+public class PartitionedDispatcher {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    private static final Logger LOG = LoggerFactory.getInstance();
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ActivityHandler handler;
+    private final KeyExtractor keyExtractor;
+    private final Partition[] partitions;
+    private volatile Histogram handlerLatency;
+    private volatile EndpointMetrics endpointMetrics;
+    private volatile boolean shutdown;
+
+    /**
+     * Create a {@link PartitionedDispatcher} with partition queues of {@value #DEFAULT_QUEUE_CAPACITY} activities.
+     * @param handler the handler invoked by the worker threads; it must be safe to call from several threads
+     * @param keyExtractor the extractor of the key used to choose a partition
+     * @param partitionCount the number of partitions and worker threads
+     */
+    public PartitionedDispatcher(ActivityHandler handler, KeyExtractor keyExtractor, int partitionCount) {
+        this(handler, keyExtractor, partitionCount, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a {@link PartitionedDispatcher}.
+     * @param handler the handler invoked by the worker threads; it must be safe to call from several threads
+     * @param keyExtractor the extractor of the key used to choose a partition
+     * @param partitionCount the number of partitions and worker threads
+     * @param queueCapacity the number of activities each partition can hold before dispatching waits
+     */
+    public PartitionedDispatcher(ActivityHandler handler, KeyExtractor keyExtractor, int partitionCount, int queueCapacity) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid handler specified '"+handler+"'");
+        }
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException("Invalid key extractor specified '"+keyExtractor+"'");
+        }
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Invalid partition count specified '"+partitionCount+"'");
+        }
+
+        this.handler = handler;
+        this.keyExtractor = keyExtractor;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+        }
+        for (Partition partition : partitions) {
+            partition.start();
+        }
+    }
+
+    /**
+     * Retrieves the number of partitions.
+     * @return the partition count
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Queue an activity on the partition for its key, waiting if that partition is full.
+     * @param activity the activity to dispatch
+     * @throws IllegalStateException if the dispatcher has been shut down, or while waiting for a full partition, the
+     * dispatcher is shut down or the partition's worker exits
+     */
+    public void dispatch(Activity activity) {
+        if (shutdown) {
+            throw new IllegalStateException("Unable to dispatch an activity after the dispatcher has been shut down");
+        }
+
+        Partition partition = partitions[partitionFor(keyExtractor.getKey(activity))];
+        int tries = 0;
+        while (!partition.queue.offer(activity)) {
+            if (shutdown) {
+                throw new IllegalStateException("Unable to dispatch an activity after the dispatcher has been shut down");
+            }
+            if (!partition.worker.isAlive()) {
+                throw new IllegalStateException("Unable to dispatch an activity to " + partition.worker.getName() + " after its worker exited");
+            }
+            tries = idle(tries);
+        }
+        partition.dispatched.incrementAndGet();
+        partition.wake();
+    }
+
+    /**
+     * Queue each of the activities of a bucket on the partition for its key.
+     * @param results the bucket of activities
+     */
+    public void dispatch(Results results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+
+        List<Activity> activities = results.getActivities();
+        for (int i = 0, size = activities.size(); i < size; i++) {
+            dispatch(activities.get(i));
+        }
+    }
+
+    /**
+     * Retrieves the number of activities that have been dispatched to a partition but not yet handled.
+     * @param partition the partition number
+     * @return the partition's lag in activities
+     */
+    public int getLag(int partition) {
+        return partitions[partition].queue.size();
+    }
+
+    /**
+     * Retrieves the total number of activities that have been dispatched to a partition.
+     * @param partition the partition number
+     * @return the number of dispatched activities
+     */
+    public long getDispatchedCount(int partition) {
+        return partitions[partition].dispatched.get();
+    }
+
+    /**
+     * Retrieves the total number of activities that a partition's worker has handled.
+     * @param partition the partition number
+     * @return the number of handled activities
+     */
+    public long getHandledCount(int partition) {
+        return partitions[partition].handled.get();
+    }
+
+    /**
+     * Configure a histogram that records how long the handler takes for each activity, in nanoseconds, for example
+     * one from {@link com.gnipcentral.client.metrics.MetricsRegistry#getHandlerLatency(String)}.
+     * @param handlerLatency the histogram or <code>null</code> to not time the handler
+     */
+    public void setHandlerLatency(Histogram handlerLatency) {
+        this.handlerLatency = handlerLatency;
+    }
+
+    /**
+     * Configure the metrics of the endpoint the activities are read from, for example one from
+     * {@link com.gnipcentral.client.metrics.MetricsRegistry#getEndpointForUrl(String)}, to record the
+     * {@link Lag#ACTIVITY activity lag} of each activity as its worker hands it to the handler.
+     * @param endpointMetrics the endpoint metrics or <code>null</code> to not record the lag
+     */
+    public void setEndpointMetrics(EndpointMetrics endpointMetrics) {
+        this.endpointMetrics = endpointMetrics;
+    }
+
+    /**
+     * Stop accepting activities.  Workers continue until their queues are empty and then exit.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.worker);
+        }
+    }
+
+    /**
+     * Wait for the workers to handle all queued activities after a {@link #shutdown()}.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return <code>true</code> if all workers exited; <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Partition partition : partitions) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(partition.worker, remaining);
+            }
+            if (partition.worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int partitionFor(String key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % partitions.length;
+    }
+
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            return tries + 1;
+        }
+        if (tries == SPIN_TRIES) {
+            Thread.yield();
+            return tries + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return tries;
+    }
+
+    private final class Partition implements Runnable {
+
+        private final SpscQueue<Activity> queue;
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong handled = new AtomicLong();
+        private final Thread worker;
+        private volatile boolean parked;
+
+        Partition(int number, int capacity) {
+            this.queue = new SpscQueue<Activity>(capacity);
+            this.worker = new Thread(this, "gnip-dispatch-" + number);
+            this.worker.setDaemon(true);
+        }
+
+        void start() {
+            worker.start();
+        }
+
+        void wake() {
+            if (parked) {
+                LockSupport.unpark(worker);
+            }
+        }
+
+        public void run() {
+            int tries = 0;
+            for (;;) {
+                Activity activity = queue.poll();
+                if (activity == null) {
+                    if (shutdown && queue.size() == 0) {
+                        return;
+                    }
+                    if (tries < SPIN_TRIES) {
+                        tries++;
+                    } else {
+                        parked = true;
+                        if (queue.size() == 0 && !shutdown) {
+                            LockSupport.parkNanos(this, PARK_NANOS * 20);
+                        }
+                        parked = false;
+                    }
+                    continue;
+                }
+
+                tries = 0;
+                Histogram latency = handlerLatency;
+                long start = latency != null ? System.nanoTime() : 0;
+                try {
+                    EndpointMetrics metrics = endpointMetrics;
+                    if (metrics != null) {
+                        metrics.recordLag(Lag.ACTIVITY, System.currentTimeMillis() - activity.getAtMillis());
+                    }
+                    handler.onActivity(activity);
+                } catch (Throwable e) {
+                    LOG.log(Logger.Level.ERROR, "Exception handling activity %s on %s: %s\n", activity.getActivityID(), worker.getName(), e);
+                }
+                if (latency != null) {
+                    latency.record(System.nanoTime() - start);
+                }
+                handled.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.gnipcentral.client.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Package-protected bounded ring buffer for exactly one producer thread and one consumer thread.  Because each
+ * index is written by only one thread, neither side needs a lock or a compare-and-set.  This class is not
+ * intended for external use.
+ */
+final class SpscQueue<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    SpscQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity specified '"+capacity+"'");
+        }
+
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<E>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Called only by the producer thread.
+     */
+    boolean offer(E element) {
+        long t = tail.get();
+        if (t - head.get() == capacity) {
+            return false;
+        }
+        buffer.lazySet((int) t & mask, element);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Called only by the consumer thread.
+     */
+    E poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    int size() {
+        long h = head.get();
+        return (int) (tail.get() - h);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,113 @@
+package com.gnipcentral.client.stream;
+
+import java.util.Arrays;
+
+/**
+ * Package-protected open addressing hash map from {@link String} keys to primitive <code>int</code> values.  It
+ * avoids the entry objects and boxed counts of a {@link java.util.HashMap} and keeps its arrays when cleared so
+ * that it can be reused.  This class is not intended for external use.
+ */
+final class StringIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    StringIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    StringIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Add a delta to a key's value, inserting the key with the delta if it is absent.
+     * @return the new value
+     */
+    int add(String key, int delta) {
+        int index = indexOf(key);
+        if (keys[index] != null) {
+            return values[index] += delta;
+        }
+
+        keys[index] = key;
+        values[index] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Retrieves a key's value or <code>0</code> if the key is absent.
+     */
+    int get(String key) {
+        int index = indexOf(key);
+        return keys[index] != null ? values[index] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slot accessors used to iterate without allocating; empty slots have a <code>null</code> key.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            size = 0;
+        }
+    }
+
+    private int indexOf(String key) {
+        int hash = key.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String existing;
+        while ((existing = keys[index]) != null && !existing.equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.gnipcentral.client.stream;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Merges the {@link Activity activities} of several sources, typically one {@link com.gnipcentral.client.GnipConnection}
+ * per publisher, into a single stream ordered by {@link Activity#getAt()}.  Buffered activities are kept in a heap and
+ * are released to the downstream {@link ActivityHandler} once the <i>watermark</i> has passed them.
+ * <br/>
+ * <br/>
+ * Each source's watermark is the latest <code>at</code> time it has produced minus the configured lateness
+ * tolerance; the merged watermark is the lowest watermark of the sources that are still open.  A source that
+ * produces activities out of order by no more than the tolerance is therefore still merged in order.  An activity
+ * that arrives after activities with a later time have already been released is <i>late</i>: it is counted and is
+ * either passed downstream immediately or dropped, depending on {@link #setDropLate(boolean)}.
+ * <br/>
+ * <br/>
+ * A source that stops producing holds back the merged stream.  Sources that are idle should call
+ * {@link #advanceWatermark(int, long)}, and sources that have finished should call {@link #close(int)}.
+ * <br/>
+ * <br/>
+ * This class is thread-safe; each source can offer activities from its own polling thread.  The downstream handler
+ * is called while holding the merger's lock, so it sees activities one at a time and in order.
+ */
+public class TimeOrderedMerger {
+
+    private final ActivityHandler handler;
+    private final long latenessMillis;
+    private final PriorityQueue<Entry> heap = new PriorityQueue<Entry>();
+    private final long[] sourceMarks;
+    private final boolean[] closed;
+    private final long[] lateCounts;
+
+    private boolean dropLate;
+    private long sequence;
+    private long lastEmitted = Long.MIN_VALUE;
+    private long emittedCount;
+
+    /**
+     * Create a {@link TimeOrderedMerger}.
+     * @param handler the handler that receives the merged stream
+     * @param sourceCount the number of sources being merged; sources are numbered from <code>0</code>
+     * @param latenessMillis how far out of order a source's activities can be and still be merged in order
+     */
+    public TimeOrderedMerger(ActivityHandler handler, int sourceCount, long latenessMillis) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid handler specified '"+handler+"'");
+        }
+        if (sourceCount <= 0) {
+            throw new IllegalArgumentException("Invalid source count specified '"+sourceCount+"'");
+        }
+        if (latenessMillis < 0) {
+            throw new IllegalArgumentException("Invalid lateness specified '"+latenessMillis+"'");
+        }
+
+        this.handler = handler;
+        this.latenessMillis = latenessMillis;
+        this.sourceMarks = new long[sourceCount];
+        this.closed = new boolean[sourceCount];
+        this.lateCounts = new long[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            sourceMarks[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Configure whether late activities are dropped.  By default late activities are passed downstream as soon
+     * as they arrive, which means they are out of order.
+     * @param dropLate <code>true</code> to drop late activities
+     */
+    public synchronized void setDropLate(boolean dropLate) {
+        this.dropLate = dropLate;
+    }
+
+    /**
+     * Retrieves whether late activities are dropped.
+     * @return <code>true</code> if late activities are dropped; <code>false</code> otherwise
+     */
+    public synchronized boolean isDropLate() {
+        return dropLate;
+    }
+
+    /**
+     * Retrieves the lateness tolerance.
+     * @return the lateness tolerance in milliseconds
+     */
+    public long getLateness() {
+        return latenessMillis;
+    }
+
+    /**
+     * Add an activity from a source and release every buffered activity that the watermark has passed.
+     * @param source the source number
+     * @param activity the activity
+     */
+    public synchronized void offer(int source, Activity activity) {
+        checkOpen(source);
+        add(source, activity);
+        release();
+    }
+
+    /**
+     * Add the activities of a bucket from a source and release every buffered activity that the watermark has passed.
+     * @param source the source number
+     * @param results the bucket
+     */
+    public synchronized void offer(int source, Results results) {
+        checkOpen(source);
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+
+        List<Activity> activities = results.getActivities();
+        for (int i = 0, size = activities.size(); i < size; i++) {
+            add(source, activities.get(i));
+        }
+        release();
+    }
+
+    /**
+     * Declare that a source will not produce activities earlier than the given time, for example because it polled
+     * an empty bucket.  This allows the merged stream to advance while the source is idle.
+     * @param source the source number
+     * @param timeMillis the time, in milliseconds since the epoch
+     */
+    public synchronized void advanceWatermark(int source, long timeMillis) {
+        checkOpen(source);
+        long mark = timeMillis - latenessMillis;
+        if (mark > sourceMarks[source]) {
+            sourceMarks[source] = mark;
+            release();
+        }
+    }
+
+    /**
+     * Declare that a source has finished.  It no longer holds back the merged stream.
+     * @param source the source number
+     * @throws IllegalStateException if the source has already been closed
+     */
+    public synchronized void close(int source) {
+        checkOpen(source);
+        closed[source] = true;
+        release();
+    }
+
+    /**
+     * Release every buffered activity regardless of the watermark, for example when shutting down.
+     */
+    public synchronized void flush() {
+        Entry entry;
+        while ((entry = heap.poll()) != null) {
+            emit(entry);
+        }
+    }
+
+    /**
+     * Retrieves the merged watermark.  All activities at or before the watermark have been released.  Once every
+     * source has been closed nothing holds back the merged stream and the watermark is {@link Long#MAX_VALUE}.
+     * @return the watermark in milliseconds since the epoch, {@link Long#MIN_VALUE} if an open source has not
+     * produced yet, or {@link Long#MAX_VALUE} if every source has been closed
+     */
+    public synchronized long getWatermark() {
+        long watermark = Long.MAX_VALUE;
+        for (int i = 0; i < sourceMarks.length; i++) {
+            if (!closed[i] && sourceMarks[i] < watermark) {
+                watermark = sourceMarks[i];
+            }
+        }
+        return watermark;
+    }
+
+    /**
+     * Retrieves the number of activities buffered waiting for the watermark.
+     * @return the buffered activity count
+     */
+    public synchronized int getBufferedCount() {
+        return heap.size();
+    }
+
+    /**
+     * Retrieves the number of activities passed downstream, including late activities that were not dropped.
+     * @return the emitted activity count
+     */
+    public synchronized long getEmittedCount() {
+        return emittedCount;
+    }
+
+    /**
+     * Retrieves the number of late activities from a source.
+     * @param source the source number
+     * @return the late activity count
+     */
+    public synchronized long getLateCount(int source) {
+        checkSource(source);
+        return lateCounts[source];
+    }
+
+    /**
+     * Retrieves the number of late activities from all sources.
+     * @return the late activity count
+     */
+    public synchronized long getLateCount() {
+        long total = 0;
+        for (long count : lateCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void checkSource(int source) {
+        if (source < 0 || source >= closed.length) {
+            throw new IllegalArgumentException("Invalid source specified '"+source+"'");
+        }
+    }
+
+    private void checkOpen(int source) {
+        checkSource(source);
+        if (closed[source]) {
+            throw new IllegalStateException("Source " + source + " has been closed");
+        }
+    }
+
+    private void add(int source, Activity activity) {
+        long at = activity.getAtMillis();
+        long mark = at - latenessMillis;
+        if (mark > sourceMarks[source]) {
+            sourceMarks[source] = mark;
+        }
+
+        if (at < lastEmitted) {
+            lateCounts[source]++;
+            if (!dropLate) {
+                emittedCount++;
+                handler.onActivity(activity);
+            }
+            return;
+        }
+        heap.add(new Entry(at, sequence++, activity));
+    }
+
+    private void release() {
+        long watermark = getWatermark();
+        Entry entry;
+        while ((entry = heap.peek()) != null && entry.at <= watermark) {
+            heap.poll();
+            emit(entry);
+        }
+    }
+
+    private void emit(Entry entry) {
+        lastEmitted = entry.at;
+        emittedCount++;
+        handler.onActivity(entry.activity);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final long at;
+        private final long sequence;
+        private final Activity activity;
+
+        Entry(long at, long sequence, Activity activity) {
+            this.at = at;
+            this.sequence = sequence;
+            this.activity = activity;
+        }
+
+        public int compareTo(Entry o) {
+            if (at != o.at) {
+                return at < o.at ? -1 : 1;
+            }
+            return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.gnipcentral.client.stream;
+
+/**
+ * A callback that receives the aggregates of each window closed by a {@link WindowedCounter}.
+ */
+public interface WindowListener {
+
+    /**
+     * Handle a closed window.  The result is reused for later windows once this method returns, so it should be
+     * copied with {@link WindowResult#toMap()} if it is needed afterwards.
+     * @param result the window's aggregates
+     */
+    void onWindow(WindowResult result);
+}
@@ -0,0 +1,119 @@
+package com.gnipcentral.client.stream;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.gnipcentral.client.resource.RuleType;
+
+/**
+ * The aggregates of a single window produced by a {@link WindowedCounter}: the number of activities whose
+ * <code>at</code> time fell in the window and, for each distinct value of the counted field, how many times
+ * the value occurred.
+ * <br/>
+ * <br/>
+ * Results are reused by the counter for later windows and are only valid during
+ * {@link WindowListener#onWindow(WindowResult)}.
+ */
+public class WindowResult {
+
+    private final RuleType field;
+    private final StringIntMap counts = new StringIntMap();
+    private long start;
+    private long end;
+    private long activityCount;
+
+    WindowResult(RuleType field) {
+        this.field = field;
+    }
+
+    void reset(long start, long end) {
+        this.start = start;
+        this.end = end;
+        this.activityCount = 0;
+        this.counts.clear();
+    }
+
+    void add(String key) {
+        counts.add(key, 1);
+    }
+
+    void addActivity() {
+        activityCount++;
+    }
+
+    /**
+     * Retrieves the activity field whose values are counted.
+     * @return the field
+     */
+    public RuleType getField() {
+        return field;
+    }
+
+    /**
+     * Retrieves the inclusive start of the window.
+     * @return the start in milliseconds since the epoch
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Retrieves the exclusive end of the window.
+     * @return the end in milliseconds since the epoch
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Retrieves the number of activities in the window.
+     * @return the activity count
+     */
+    public long getActivityCount() {
+        return activityCount;
+    }
+
+    /**
+     * Retrieves the number of distinct values of the field in the window.
+     * @return the distinct count
+     */
+    public int getDistinctCount() {
+        return counts.size();
+    }
+
+    /**
+     * Retrieves the number of times a value of the field occurred in the window.
+     * @param key the field value
+     * @return the count, or <code>0</code> if the value did not occur
+     */
+    public int getCount(String key) {
+        return counts.get(key);
+    }
+
+    /**
+     * Visit each distinct value of the field and its count.
+     * @param visitor the visitor
+     */
+    public void visitCounts(CountVisitor visitor) {
+        for (int slot = 0, capacity = counts.capacity(); slot < capacity; slot++) {
+            String key = counts.keyAt(slot);
+            if (key != null) {
+                visitor.visit(key, counts.valueAt(slot));
+            }
+        }
+    }
+
+    /**
+     * Copy the per-value counts into a new map.
+     * @return the counts keyed by field value
+     */
+    public Map<String, Integer> toMap() {
+        final Map<String, Integer> map = new HashMap<String, Integer>(counts.size() * 2);
+        visitCounts(new CountVisitor() {
+            public void visit(String key, int count) {
+                map.put(key, count);
+            }
+        });
+        return map;
+    }
+}
@@ -0,0 +1,217 @@
+package com.gnipcentral.client.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.RuleType;
+
+/**
+ * Counts the values of an {@link Activity} field in event-time windows and reports each window to a
+ * {@link WindowListener} when it closes.  The counted field is selected with a {@link RuleType}, for example
+ * {@link RuleType#ACTION} to count actions per minute or {@link RuleType#ACTOR} to count activities per actor.
+ * <br/>
+ * <br/>
+ * Windows are aligned to the epoch and are assigned by {@link Activity#getAt()}, not by arrival time.  A
+ * <i>tumbling</i> counter has consecutive, non-overlapping windows; a <i>sliding</i> counter starts a new window
+ * every slide interval, so each activity is counted in <code>size / slide</code> windows.  Only windows that
+ * received at least one activity are reported.
+ * <br/>
+ * <br/>
+ * A window closes once the watermark, which is the latest <code>at</code> time seen minus the allowed lateness,
+ * passes its end.  Activities for windows that have already closed are counted by {@link #getLateCount()} and
+ * otherwise ignored.  The state of closed windows is reused for new windows.
+ * <br/>
+ * <br/>
+ * This class is not thread-safe; activities should be passed to it from a single thread, for example from a
+ * {@link TimeOrderedMerger} or one partition of a {@link PartitionedDispatcher}.
+ */
+public class WindowedCounter implements ActivityHandler {
+
+    private final RuleType field;
+    private final long sizeMillis;
+    private final long slideMillis;
+    private final WindowListener listener;
+    private final TreeMap<Long, WindowResult> windows = new TreeMap<Long, WindowResult>();
+    private final ArrayDeque<WindowResult> pool = new ArrayDeque<WindowResult>();
+    private final List<String> values = new ArrayList<String>();
+
+    private long allowedLatenessMillis;
+    private long maxAt = Long.MIN_VALUE;
+    private long watermark = Long.MIN_VALUE;
+    private long lateCount;
+
+    /**
+     * Create a counter with tumbling windows.
+     * @param field the field whose values are counted
+     * @param sizeMillis the window size in milliseconds
+     * @param listener the listener that receives closed windows
+     */
+    public WindowedCounter(RuleType field, long sizeMillis, WindowListener listener) {
+        this(field, sizeMillis, sizeMillis, listener);
+    }
+
+    /**
+     * Create a counter with sliding windows.
+     * @param field the field whose values are counted
+     * @param sizeMillis the window size in milliseconds
+     * @param slideMillis the interval between window starts in milliseconds; the size must be a multiple of it
+     * @param listener the listener that receives closed windows
+     */
+    public WindowedCounter(RuleType field, long sizeMillis, long slideMillis, WindowListener listener) {
+        if (field == null) {
+            throw new IllegalArgumentException("Invalid field specified '"+field+"'");
+        }
+        if (sizeMillis <= 0) {
+            throw new IllegalArgumentException("Invalid window size specified '"+sizeMillis+"'");
+        }
+        if (slideMillis <= 0 || slideMillis > sizeMillis || sizeMillis % slideMillis != 0) {
+            throw new IllegalArgumentException("Invalid window slide specified '"+slideMillis+"'");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Invalid listener specified '"+listener+"'");
+        }
+
+        this.field = field;
+        this.sizeMillis = sizeMillis;
+        this.slideMillis = slideMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Configure how long after a window's end activities for it are still accepted.  The default is <code>0</code>.
+     * @param allowedLatenessMillis the allowed lateness in milliseconds
+     */
+    public void setAllowedLateness(long allowedLatenessMillis) {
+        if (allowedLatenessMillis < 0) {
+            throw new IllegalArgumentException("Invalid lateness specified '"+allowedLatenessMillis+"'");
+        }
+        this.allowedLatenessMillis = allowedLatenessMillis;
+    }
+
+    /**
+     * Retrieves how long after a window's end activities for it are still accepted.
+     * @return the allowed lateness in milliseconds
+     */
+    public long getAllowedLateness() {
+        return allowedLatenessMillis;
+    }
+
+    /**
+     * Count an activity in each open window that contains its <code>at</code> time and close any windows that
+     * the watermark has passed.
+     * @param activity the activity
+     */
+    public void onActivity(Activity activity) {
+        long at = activity.getAtMillis();
+        if (at > maxAt) {
+            maxAt = at;
+        }
+
+        values.clear();
+        ActivityFields.collect(activity, field, values);
+
+        boolean counted = false;
+        long lastStart = at - floorMod(at, slideMillis);
+        for (long start = lastStart - sizeMillis + slideMillis; start <= lastStart; start += slideMillis) {
+            if (start + sizeMillis <= watermark) {
+                continue;
+            }
+
+            WindowResult window = window(start);
+            window.addActivity();
+            for (int i = 0, size = values.size(); i < size; i++) {
+                String value = values.get(i);
+                if (value != null) {
+                    window.add(value);
+                }
+            }
+            counted = true;
+        }
+
+        if (!counted) {
+            lateCount++;
+        }
+        advanceWatermark(maxAt - allowedLatenessMillis);
+    }
+
+    /**
+     * Advance the watermark, for example when the source is idle, closing any windows it passes.
+     * @param timeMillis the new watermark in milliseconds since the epoch
+     */
+    public void advanceWatermark(long timeMillis) {
+        if (timeMillis <= watermark) {
+            return;
+        }
+
+        watermark = timeMillis;
+        Map.Entry<Long, WindowResult> first;
+        while ((first = windows.firstEntry()) != null && first.getKey() + sizeMillis <= watermark) {
+            windows.pollFirstEntry();
+            close(first.getValue());
+        }
+    }
+
+    /**
+     * Close and report every open window regardless of the watermark, for example when shutting down.
+     */
+    public void flush() {
+        Map.Entry<Long, WindowResult> first;
+        while ((first = windows.pollFirstEntry()) != null) {
+            close(first.getValue());
+        }
+    }
+
+    /**
+     * Retrieves the watermark.
+     * @return the watermark in milliseconds since the epoch
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Retrieves the number of activities that arrived after all of their windows had closed.
+     * @return the late activity count
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    /**
+     * Retrieves the number of windows that are open.
+     * @return the open window count
+     */
+    public int getOpenWindowCount() {
+        return windows.size();
+    }
+
+    private WindowResult window(long start) {
+        WindowResult window = windows.get(start);
+        if (window == null) {
+            window = pool.poll();
+            if (window == null) {
+                window = new WindowResult(field);
+            }
+            window.reset(start, start + sizeMillis);
+            windows.put(start, window);
+        }
+        return window;
+    }
+
+    private void close(WindowResult window) {
+        try {
+            listener.onWindow(window);
+        } finally {
+            pool.push(window);
+        }
+    }
+
+    private static long floorMod(long value, long divisor) {
+        long mod = value % divisor;
+        return mod < 0 ? mod + divisor : mod;
+    }
+}
@@ -0,0 +1,175 @@
+package com.gnipcentral.client.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Logger} that hands messages to a background thread, which formats and writes them with another
+ * {@link Logger}.  Threads that log only copy the message and its arguments into a preallocated ring buffer, so
+ * slow appenders such as files or the console stay off the request path.
+ * <br/>
+ * <br/>
+ * The ring buffer is bounded.  When it is full, new messages are dropped rather than making the logging thread
+ * wait, and counted in {@link #getDroppedCount()}.  Arguments are formatted on the background thread, so they
+ * should not be modified after they are logged.  This class is thread-safe.
+ */
+public class AsyncLogger extends Logger {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger target;
+    private final Entry[] entries;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile long head;
+    private volatile boolean parked;
+    private volatile boolean closed;
+
+    /**
+     * Create an {@link AsyncLogger} with a buffer of {@value #DEFAULT_CAPACITY} messages.
+     * @param delegate the logger that writes the messages
+     */
+    public AsyncLogger(Logger delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an {@link AsyncLogger}.
+     * @param delegate the logger that writes the messages
+     * @param capacity the number of messages the buffer holds, rounded up to a power of two
+     */
+    public AsyncLogger(Logger delegate, int capacity) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Invalid delegate specified '"+delegate+"'");
+        }
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity specified '"+capacity+"'");
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.target = delegate;
+        this.entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry(i);
+        }
+        this.mask = size - 1;
+        this.writer = new Thread(new Writer(), "gnip-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return !closed && target.isEnabled(level);
+    }
+
+    @Override
+    protected void write(Level level, Object message, Object[] args) {
+        for (;;) {
+            long t = tail.get();
+            Entry entry = entries[(int) t & mask];
+            long sequence = entry.sequence;
+            if (sequence < t) {
+                // the writer has not yet taken the message written here one lap ago
+                dropped.incrementAndGet();
+                return;
+            }
+            if (sequence == t && tail.compareAndSet(t, t + 1)) {
+                entry.level = level;
+                entry.message = message;
+                entry.args = args;
+                entry.sequence = t + 1;
+                if (parked) {
+                    LockSupport.unpark(writer);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of messages that were dropped because the buffer was full.
+     * @return the dropped count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Retrieves the number of messages waiting to be written.
+     * @return the backlog
+     */
+    public int getBacklog() {
+        return (int) (tail.get() - head);
+    }
+
+    /**
+     * Stop accepting messages and wait for the messages already in the buffer to be written.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return <code>true</code> if all messages were written; <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(writer);
+        unit.timedJoin(writer, timeout);
+        return !writer.isAlive();
+    }
+
+    private static final class Entry {
+
+        volatile long sequence;
+        Level level;
+        Object message;
+        Object[] args;
+
+        Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        public void run() {
+            long h = head;
+            for (;;) {
+                Entry entry = entries[(int) h & mask];
+                if (entry.sequence != h + 1) {
+                    if (closed && tail.get() == h) {
+                        return;
+                    }
+                    parked = true;
+                    if (entry.sequence != h + 1 && !closed) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    parked = false;
+                    continue;
+                }
+
+                Level level = entry.level;
+                Object message = entry.message;
+                Object[] args = entry.args;
+                entry.level = null;
+                entry.message = null;
+                entry.args = null;
+                entry.sequence = h + entries.length;
+                head = ++h;
+                try {
+                    target.write(level, message, args);
+                } catch (Throwable e) {
+                    // an error from the target must not stop the writer, or every later message would be dropped
+                    System.err.printf("Unable to write log message due to exception %s\n", e);
+                }
+            }
+        }
+    }
+}
@@ -7,13 +7,22 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 
 import com.gnipcentral.client.Config;
+import com.gnipcentral.client.metrics.EndpointMetrics;
+import com.gnipcentral.client.metrics.MetricsRegistry;
+import com.gnipcentral.client.metrics.Stage;
+import com.gnipcentral.client.store.Exchange;
+import com.gnipcentral.client.store.ExchangeRecorder;
 
 /**
  * Basic abstraction atop an HTTP connection that is used to handle low-level Gnip <> HTTP protocol interaction.
@@ -35,6 +44,7 @@ import com.gnipcentral.client.Config;
 public class HTTPConnection {
 
     private static final Logger LOG = LoggerFactory.getInstance();
+    private static final Tracer TRACER = TracerFactory.getInstance();
     private static final String USER_AGENT_STRING;
 
     static {
@@ -76,31 +86,137 @@ public class HTTPConnection {
      */
     public InputStream doGet(String urlString) throws IOException {
         HttpURLConnection urlConnection = getConnection(urlString, HTTPMethod.GET);
-        LOG.log("HTTP GET to %s\n", urlString);
-        return getData(urlConnection);
+        LOG.log(Logger.Level.DEBUG, "HTTP GET to %s\n", urlString);
+        MetricsRegistry metrics = config.getMetrics();
+        TraceSpan span = TRACER.begin(TraceEvent.HTTP_GET);
+        try {
+            return getData(urlConnection, metrics != null ? metrics.getEndpointForUrl(urlString) : null, span);
+        } finally {
+            if (span != null) {
+                span.setUrl(urlString);
+                span.end();
+            }
+        }
     }
 
-    private InputStream getData(HttpURLConnection urlConnection) throws IOException {
+    private InputStream getData(HttpURLConnection urlConnection, EndpointMetrics metrics, TraceSpan span) throws IOException {
+        ExchangeRecorder recorder = config.getExchangeRecorder();
+        // request headers can only be read before the request is sent
+        Map<String, String> requestHeaders = recorder != null ? getRequestHeaders(urlConnection) : null;
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
         urlConnection.connect();
+        long connected = System.nanoTime();
         int responseCode = urlConnection.getResponseCode();
+        long firstByte = System.nanoTime();
+        if (metrics != null) {
+            metrics.record(Stage.CONNECT, connected - start);
+            metrics.record(Stage.FIRST_BYTE, firstByte - connected);
+        }
+
         String responseMessage = urlConnection.getResponseMessage();
         if (responseCode != HttpURLConnection.HTTP_OK) {
+            if (recorder != null) {
+                record(recorder, new Exchange(startMillis, firstByte - start, urlConnection.getRequestMethod(),
+                        urlConnection.getURL().toString(), responseCode, requestHeaders,
+                        getResponseHeaders(urlConnection), new byte[0]));
+            }
             throw new IOException("Error with request code:" + responseCode + " message: " + responseMessage);
         }
-        InputStream resultStream;
-        InputStream stream;
         String contentEncoding = urlConnection.getHeaderField("Content-Encoding");
-        if ("gzip".equalsIgnoreCase(contentEncoding)) {
-            stream = new GZIPInputStream(urlConnection.getInputStream());
-        } else {
-            stream = urlConnection.getInputStream();
+        boolean gzip = "gzip".equalsIgnoreCase(contentEncoding);
+        if (span != null) {
+            span.setGzip(gzip);
+        }
+        if (metrics == null && recorder == null) {
+            // nothing times the stages or records the body as sent, so it is inflated as it is read off the network
+            CountingInputStream counted = span != null ? new CountingInputStream(urlConnection.getInputStream()) : null;
+            InputStream input = counted != null ? counted : urlConnection.getInputStream();
+            InputStream stream = gzip ? new GZIPInputStream(input) : input;
+            ByteArrayOutputStream resultData = new ByteArrayOutputStream();
+            IOUtils.copy(stream, resultData);
+            urlConnection.disconnect();
+            if (counted != null) {
+                span.setByteCount(counted.getByteCount());
+            }
+            return new ByteArrayInputStream(resultData.toByteArray());
         }
-        ByteArrayOutputStream resultData = new ByteArrayOutputStream();
-        IOUtils.copy(stream, resultData);
-        resultStream = new ByteArrayInputStream(resultData.toByteArray());
 
+        Map<String, String> responseHeaders = recorder != null ? getResponseHeaders(urlConnection) : null;
+        // the body is read off the network before it is inflated so the two are timed separately
+        ByteArrayOutputStream resultData = new ByteArrayOutputStream();
+        IOUtils.copy(urlConnection.getInputStream(), resultData);
         urlConnection.disconnect();
-        return resultStream;
+        long transferred = System.nanoTime();
+        if (metrics != null) {
+            metrics.record(Stage.TRANSFER, transferred - firstByte);
+            metrics.addByteCount(resultData.size());
+        }
+        if (recorder != null) {
+            record(recorder, new Exchange(startMillis, transferred - start, urlConnection.getRequestMethod(),
+                    urlConnection.getURL().toString(), responseCode, requestHeaders, responseHeaders,
+                    resultData.toByteArray()));
+        }
+        if (span != null) {
+            span.setByteCount(resultData.size());
+        }
+
+        if (gzip) {
+            InputStream stream = new GZIPInputStream(new ByteArrayInputStream(resultData.toByteArray()));
+            resultData = new ByteArrayOutputStream();
+            IOUtils.copy(stream, resultData);
+            if (metrics != null) {
+                metrics.record(Stage.INFLATE, System.nanoTime() - transferred);
+            }
+        }
+        return new ByteArrayInputStream(resultData.toByteArray());
+    }
+
+    private static void record(ExchangeRecorder recorder, Exchange exchange) {
+        try {
+            recorder.record(exchange);
+        } catch (IOException e) {
+            // a recording problem should not fail the request
+            LOG.log(Logger.Level.WARN, "Unable to record exchange with %s due to exception %s\n", exchange.getUrl(), e.getMessage());
+        } catch (RuntimeException e) {
+            // including a recorder that was closed while the connection was still in use
+            LOG.log(Logger.Level.WARN, "Unable to record exchange with %s due to exception %s\n", exchange.getUrl(), e.toString());
+        }
+    }
+
+    private static Map<String, String> getRequestHeaders(HttpURLConnection urlConnection) {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, List<String>> header : urlConnection.getRequestProperties().entrySet()) {
+            if (header.getKey() != null && !"Authorization".equalsIgnoreCase(header.getKey())) {
+                headers.put(header.getKey(), join(header.getValue()));
+            }
+        }
+        return headers;
+    }
+
+    private static Map<String, String> getResponseHeaders(HttpURLConnection urlConnection) {
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, List<String>> header : urlConnection.getHeaderFields().entrySet()) {
+            // the status line is listed under a null name
+            if (header.getKey() != null) {
+                headers.put(header.getKey(), join(header.getValue()));
+            }
+        }
+        return headers;
+    }
+
+    private static String join(List<String> values) {
+        if (values.size() == 1) {
+            return values.get(0);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(value);
+        }
+        return sb.toString();
     }
 
     private HttpURLConnection getConnection(String urlString, HTTPMethod method) throws IOException {
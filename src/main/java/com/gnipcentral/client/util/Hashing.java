@@ -0,0 +1,55 @@
+package com.gnipcentral.client.util;
+
+/**
+ * A 64-bit hash of strings that is stable across JVMs, processes and library versions, unlike
+ * {@link String#hashCode()} which is only 32 bits wide and too weakly mixed for sketches and sampling.  The hash is
+ * FNV-1a over the string's characters followed by the MurmurHash3 64-bit finalizer, which gives good avalanche
+ * behaviour without converting the string to bytes.
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+        // static utility
+    }
+
+    /**
+     * Compute the 64-bit hash of a string.
+     * @param value the string
+     * @return the hash
+     */
+    public static long hash64(String value) {
+        return hash64(value, 0L);
+    }
+
+    /**
+     * Compute the 64-bit hash of a string with a seed, which gives an independent hash function per seed.
+     * @param value the string
+     * @param seed the seed
+     * @return the hash
+     */
+    public static long hash64(String value, long seed) {
+        long hash = FNV_OFFSET_BASIS ^ seed;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix64(hash);
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer, which spreads every input bit across the output.
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    public static long mix64(long value) {
+        value ^= (value >>> 33);
+        value *= 0xff51afd7ed558ccdL;
+        value ^= (value >>> 33);
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= (value >>> 33);
+        return value;
+    }
+}
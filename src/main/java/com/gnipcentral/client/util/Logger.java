@@ -9,22 +9,44 @@ package com.gnipcentral.client.util;
  * <br/>
  * Messages that are logged via the logger can be in <i>printf</i> format and appear as:
  * <pre>
- *   logger.log("My favorite cookie is %s.", "chocolate chip"); 
+ *   logger.log(Logger.Level.INFO, "My favorite cookie is %s.", "chocolate chip");
  * </pre>
+ * Every message has a {@link Level}.  The overloads that take up to three arguments check
+ * {@link #isEnabled(Level)} before building the argument array, so a disabled message allocates nothing unless
+ * its caller boxes a primitive argument; callers that do should guard the call with {@link #isEnabled(Level)}.
+ * <br/>
+ * <br/>
+ * An adapter overrides {@link #isEnabled(Level)} and {@link #write(Level, Object, Object[])}.  Adapters written
+ * against the original, level-less API, which override {@link #isLogEnabled()} and {@link #log(Object, Object...)},
+ * continue to work; they receive messages of every level.  An adapter that overrides only some of these methods
+ * gets safe defaults for the others: a logger that overrides neither {@link #isEnabled(Level)} nor
+ * {@link #isLogEnabled()} is disabled, and one that overrides neither {@link #write(Level, Object, Object[])} nor
+ * {@link #log(Object, Object...)} drops its messages.
  */
 public abstract class Logger {
 
+    /**
+     * The severity of a message, from least to most severe.
+     */
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+
     private Logger delegate;
+    // whether write can pass messages on to an override of the original log method without calling itself
+    private final boolean overridesLog = overridesLog(getClass());
 
     /**
      * Default constructor.
      */
-    Logger() {
+    protected Logger() {
         //Empty constructor
     }
 
     /**
-     * Package protected constructor that is
+     * Package protected constructor for a logger that passes every message on to another.
      * @param logger the logger delegate
      */
     Logger(Logger logger) {
@@ -37,23 +59,112 @@ public abstract class Logger {
 
     /**
      * Check to see if logging is enabled.
-     * 
-     * @return <code>true</code> if logging is enabled; <code>false</code> otherwise.
+     *
+     * @return <code>true</code> if messages of level {@link Level#INFO} are logged; <code>false</code> otherwise.
      */
     public boolean isLogEnabled() {
-        return delegate.isLogEnabled();
+        return delegate != null && delegate.isEnabled(Level.INFO);
     }
 
     /**
-     * Log a message with the provided message and parameters.  Messages are expected to be formatted
-     * using Java's formatted printing features provided by {@link java.util.Formatter}.
-     *  
+     * Check to see if messages of a level are logged.  This should be cheap enough to call on every request.
+     *
+     * @param level the level
+     * @return <code>true</code> if messages of the level are logged; <code>false</code> otherwise.
+     */
+    public boolean isEnabled(Level level) {
+        return delegate != null ? delegate.isEnabled(level) : isLogEnabled();
+    }
+
+    /**
+     * Log a message with the provided message and parameters at level {@link Level#INFO}.  Messages are expected
+     * to be formatted using Java's formatted printing features provided by {@link java.util.Formatter}.
+     *
      * @param message the message object
      * @param args arguments that are used to format the message argument.
      */
     public void log(Object message, Object ... args) {
-        if(isLogEnabled()) {
-            delegate.log(message, args);
+        if(isEnabled(Level.INFO)) {
+            write(Level.INFO, message, args);
+        }
+    }
+
+    /**
+     * Log a message without arguments.
+     *
+     * @param level the level of the message
+     * @param message the message object
+     */
+    public final void log(Level level, Object message) {
+        if(isEnabled(level)) {
+            write(level, message, NO_ARGS);
+        }
+    }
+
+    /**
+     * Log a message with one argument.
+     *
+     * @param level the level of the message
+     * @param message the message object
+     * @param arg the argument that is used to format the message argument.
+     */
+    public final void log(Level level, Object message, Object arg) {
+        if(isEnabled(level)) {
+            write(level, message, new Object[] {arg});
+        }
+    }
+
+    /**
+     * Log a message with two arguments.
+     *
+     * @param level the level of the message
+     * @param message the message object
+     * @param arg1 the first argument that is used to format the message argument.
+     * @param arg2 the second argument that is used to format the message argument.
+     */
+    public final void log(Level level, Object message, Object arg1, Object arg2) {
+        if(isEnabled(level)) {
+            write(level, message, new Object[] {arg1, arg2});
+        }
+    }
+
+    /**
+     * Log a message with three arguments.
+     *
+     * @param level the level of the message
+     * @param message the message object
+     * @param arg1 the first argument that is used to format the message argument.
+     * @param arg2 the second argument that is used to format the message argument.
+     * @param arg3 the third argument that is used to format the message argument.
+     */
+    public final void log(Level level, Object message, Object arg1, Object arg2, Object arg3) {
+        if(isEnabled(level)) {
+            write(level, message, new Object[] {arg1, arg2, arg3});
+        }
+    }
+
+    /**
+     * Write a message that has passed the {@link #isEnabled(Level)} check.  The default implementation passes the
+     * message to the delegate, or to {@link #log(Object, Object...)} for adapters written against the original API
+     * that override it, and otherwise drops the message.
+     *
+     * @param level the level of the message
+     * @param message the message object
+     * @param args arguments that are used to format the message argument; never <code>null</code>.
+     */
+    protected void write(Level level, Object message, Object[] args) {
+        if(delegate != null) {
+            delegate.write(level, message, args);
+        } else if(overridesLog) {
+            log(message, args);
+        }
+    }
+
+    private static boolean overridesLog(Class<?> type) {
+        try {
+            return type.getMethod("log", Object.class, Object[].class).getDeclaringClass() != Logger.class;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
     }
 
@@ -64,31 +175,41 @@ public abstract class Logger {
             return false;
         }
 
+        @Override
+        public final boolean isEnabled(@SuppressWarnings("unused") Level level) {
+            return false;
+        }
+
         @Override
         public final void log(@SuppressWarnings("unused") Object object, @SuppressWarnings("unused") Object ... args) {
             // Noop method
         }
+
+        @Override
+        protected final void write(@SuppressWarnings("unused") Level level, @SuppressWarnings("unused") Object object, @SuppressWarnings("unused") Object[] args) {
+            // Noop method
+        }
     }
 
     static final class ConsoleLogger extends Logger {
 
         @Override
-        public final boolean isLogEnabled() {
+        public final boolean isEnabled(@SuppressWarnings("unused") Level level) {
             return true;
         }
 
         @Override
-        public final void log(Object object, Object ... args) {
-            out(object, args);
+        protected final void write(Level level, Object object, Object[] args) {
+            out(level, object, args);
         }
 
-        private void out(Object object, Object ... args) {
+        private void out(Level level, Object object, Object ... args) {
             if(object == null) {
                 return;
             }
 
-            System.out.print("[" + System.currentTimeMillis() + "] ");
+            System.out.print("[" + System.currentTimeMillis() + "] " + level + " ");
             System.out.printf(object.toString(), args);
         }
     }
-}
\ No newline at end of file
+}
@@ -30,22 +30,27 @@ import java.util.List;
  * <br/>
  * If both the system property and <code>META-INF/services</code> mechanisms are used to configure
  * valid loggers, the class specified by the system property takes precedence. 
+ * <br/>
+ * <br/>
+ * Setting the system property {@value #LOGGER_ASYNC_SYSTEM_PROPERTY} to <code>true</code> wraps the configured
+ * logger in an {@link AsyncLogger}, so messages are written on a background thread.
  */
 public class LoggerFactory {
 
     public static final String LOGGER_CLASS_SYSTEM_PROPERTY = "gnip.logger.class";
-
-    private static Logger LOG = null;
+    public static final String LOGGER_ASYNC_SYSTEM_PROPERTY = "gnip.logger.async";
 
     /**
-     * Create an instance of a {@link Logger}.
+     * Create an instance of a {@link Logger}.  The logger is created once, on the first call, and the same
+     * instance is returned to every caller.
      * @return By default, this returns a no-op {@link Logger}.  If a valid, custom implementation class is
      *         specified in the environment it will be returned.
      */
     public static Logger getInstance() {
-        if(LOG != null)
-            return LOG;
+        return Holder.LOG;
+    }
 
+    private static Logger create() {
         Class<?> serviceImpl = null;
         String loggerProperty = System.getProperty(LOGGER_CLASS_SYSTEM_PROPERTY);
         if(loggerProperty != null) {
@@ -60,11 +65,10 @@ public class LoggerFactory {
             serviceImpl = (serviceImpls.size() > 0 ? serviceImpls.get(0) : null);            
         }
         
-        if(serviceImpl == null) {
-            LOG = new Logger.NoopLogger();
-        } else {
+        Logger log = null;
+        if(serviceImpl != null) {
             try {
-                LOG = Logger.class.cast(serviceImpl.newInstance());
+                log = Logger.class.cast(serviceImpl.newInstance());
             } catch (IllegalAccessException e) {
                 System.err.printf("Unable to create logger of type %s due to exception %s\n", serviceImpl.getName(), e.getMessage());
             } catch (InstantiationException e) {
@@ -72,6 +76,21 @@ public class LoggerFactory {
             }
         }
 
-        return LOG;
-    }    
+        if(log == null) {
+            return new Logger.NoopLogger();
+        }
+        if(Boolean.getBoolean(LOGGER_ASYNC_SYSTEM_PROPERTY)) {
+            return new AsyncLogger(log);
+        }
+        return log;
+    }
+
+    /**
+     * Creates the logger when first accessed; the JVM guarantees this happens exactly once, even when several
+     * threads ask for a logger at the same time.
+     */
+    private static final class Holder {
+
+        static final Logger LOG = create();
+    }
 }
\ No newline at end of file
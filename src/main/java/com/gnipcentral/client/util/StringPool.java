@@ -0,0 +1,158 @@
+package com.gnipcentral.client.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of canonical {@link String} instances, used to deduplicate values that repeat across many parsed
+ * activities, such as actions, sources, tags and meta URLs.  Unlike {@link String#intern()}, the pool never grows
+ * beyond its capacity and its strings can be garbage collected along with the pool.
+ * <br/>
+ * <br/>
+ * The pool is a fixed table of slots indexed by the string's hash.  A lookup that finds an equal string in its
+ * slot returns that instance; otherwise the new string replaces whatever was in the slot.  Frequent values
+ * therefore stay in the pool while rare ones cycle through, and no lookup ever blocks.  Strings longer than the
+ * pool's maximum length are returned unchanged, since long values are rarely repeated.
+ * <br/>
+ * <br/>
+ * The hit rate is the fraction of lookups that returned a pooled instance.  The hits and misses are counted in
+ * stripes chosen by thread, each on its own cache line, so threads parsing in parallel do not contend on the
+ * counts; the counts are summed when they are retrieved.  This class is thread-safe.
+ */
+public class StringPool {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final int maxLength;
+
+    /** The number of longs between stripes, which keeps each stripe on its own 64 byte cache line. */
+    private static final int STRIPE_PAD = 8;
+    private static final int STRIPE_COUNT;
+
+    static {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(processors, 64)));
+        STRIPE_COUNT = stripes < processors && stripes < 64 ? stripes << 1 : stripes;
+    }
+
+    /** The hit count of stripe <code>i</code> is at <code>i * STRIPE_PAD</code> and its miss count just after it. */
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPE_COUNT * STRIPE_PAD);
+
+    /**
+     * Create a pool with {@link #DEFAULT_CAPACITY} slots for strings of up to {@link #DEFAULT_MAX_LENGTH}
+     * characters.
+     */
+    public StringPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Create a pool.
+     * @param capacity the number of slots, rounded up to a power of two
+     * @param maxLength the length of the longest string that is pooled
+     */
+    public StringPool(int capacity, int maxLength) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity specified '"+capacity+"'");
+        }
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Invalid max length specified '"+maxLength+"'");
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<String>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Retrieves the pooled instance of a string, adding the string to the pool if it is not there.
+     * @param value the string, which may be <code>null</code>
+     * @return a string equal to <code>value</code>, or <code>null</code> if <code>value</code> is <code>null</code>
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+
+        int hash = value.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        int index = hash & mask;
+
+        String pooled = slots.get(index);
+        if (pooled != null && (pooled == value || pooled.equals(value))) {
+            counts.incrementAndGet(stripe());
+            return pooled;
+        }
+        slots.set(index, value);
+        counts.incrementAndGet(stripe() + 1);
+        return value;
+    }
+
+    private static int stripe() {
+        return ((int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)) * STRIPE_PAD;
+    }
+
+    private long sum(int offset) {
+        long sum = 0;
+        for (int i = offset; i < counts.length(); i += STRIPE_PAD) {
+            sum += counts.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Retrieves the number of slots in the pool.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Retrieves the number of lookups that returned a pooled instance.
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return sum(0);
+    }
+
+    /**
+     * Retrieves the number of lookups that added their string to the pool.  Strings that are too long to be
+     * pooled are not counted.
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return sum(1);
+    }
+
+    /**
+     * Retrieves the fraction of lookups that returned a pooled instance.
+     * @return the hit rate between <code>0</code> and <code>1</code>, or <code>0</code> if there have been no lookups
+     */
+    public double getHitRate() {
+        long hitCount = sum(0);
+        long total = hitCount + sum(1);
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Empty the pool and reset its counts.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+}
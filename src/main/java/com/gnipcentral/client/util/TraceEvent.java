@@ -0,0 +1,34 @@
+package com.gnipcentral.client.util;
+
+/**
+ * The operations of the client library that are reported to a {@link Tracer}.
+ */
+public enum TraceEvent {
+
+    /**
+     * A poll of a Gnip endpoint with {@link com.gnipcentral.client.GnipConnection#getActivities()}, from the
+     * request to the parsed results.
+     */
+    POLL,
+
+    /**
+     * An HTTP GET with {@link HTTPConnection#doGet(String)}, including reading and inflating the response body.
+     */
+    HTTP_GET,
+
+    /**
+     * Parsing a document with one of the {@link com.gnipcentral.client.resource.Translator} <code>parseResults</code>
+     * methods.
+     */
+    PARSE,
+
+    /**
+     * Compressing and Base64 encoding a {@link com.gnipcentral.client.resource.Payload}'s raw data.
+     */
+    PAYLOAD_ENCODE,
+
+    /**
+     * Base64 decoding and inflating a {@link com.gnipcentral.client.resource.Payload}'s raw data.
+     */
+    PAYLOAD_DECODE
+}
@@ -0,0 +1,45 @@
+package com.gnipcentral.client.util;
+
+/**
+ * A single {@link TraceEvent} in progress, created by {@link Tracer#begin(TraceEvent)}.  The library sets the
+ * fields that apply to the event, in any order, and then calls {@link #end()} exactly once, whether or not the
+ * operation succeeded.  A span is used by one thread only.
+ */
+public abstract class TraceSpan {
+
+    /**
+     * Default constructor.
+     */
+    protected TraceSpan() {
+        //Empty constructor
+    }
+
+    /**
+     * Set the URL the event concerns.
+     * @param url the URL
+     */
+    public abstract void setUrl(String url);
+
+    /**
+     * Set the number of bytes read or written; for a payload, the length of its Base64 encoded raw data.
+     * @param byteCount the byte count
+     */
+    public abstract void setByteCount(long byteCount);
+
+    /**
+     * Set the number of activities that were parsed.
+     * @param activityCount the activity count
+     */
+    public abstract void setActivityCount(int activityCount);
+
+    /**
+     * Set whether the data was gzip compressed.
+     * @param gzip <code>true</code> if gzip was used
+     */
+    public abstract void setGzip(boolean gzip);
+
+    /**
+     * End the event and report it.
+     */
+    public abstract void end();
+}
@@ -0,0 +1,53 @@
+package com.gnipcentral.client.util;
+
+/**
+ * A tracing abstraction that reports the time spent in the client library's network, parsing and encoding
+ * operations to a recording or profiling tool, such as the Java Flight Recorder adapter in the
+ * <code>gnip-client-jfr</code> module.  The library defaults to an empty {@link Tracer} that records nothing.
+ * All {@link Tracer} instances are created via {@link TracerFactory#getInstance()} and are configured in the
+ * environment as documented in {@link TracerFactory}.
+ * <br/>
+ * <br/>
+ * The library traces an operation as:
+ * <pre>
+ *   TraceSpan span = tracer.begin(TraceEvent.HTTP_GET);
+ *   try {
+ *       ...
+ *   } finally {
+ *       if (span != null) {
+ *           span.setUrl(url);
+ *           span.end();
+ *       }
+ *   }
+ * </pre>
+ * {@link #begin(TraceEvent)} is called for every operation, so an implementation should return <code>null</code>
+ * cheaply when the event is not being recorded.  The tracer configured in the environment is held in a constant,
+ * so when no tracer is configured the JIT compiler reduces each trace point to the <code>null</code> check.
+ */
+public abstract class Tracer {
+
+    /**
+     * Default constructor.
+     */
+    protected Tracer() {
+        //Empty constructor
+    }
+
+    /**
+     * Begin an event.
+     * @param event the event
+     * @return the span to complete when the operation ends, or <code>null</code> if the event is not recorded
+     */
+    public abstract TraceSpan begin(TraceEvent event);
+
+    /**
+     * A {@link Tracer} that records nothing.
+     */
+    static final class NoopTracer extends Tracer {
+
+        @Override
+        public TraceSpan begin(TraceEvent event) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.gnipcentral.client.util;
+
+import java.util.List;
+
+/**
+ * A factory used to configure a Gnip {@link Tracer}.  By default, the Gnip Java client library traces nothing.
+ * A {@link Tracer} implementation is registered in the same two ways as a {@link Logger}:
+ * <ol>
+ * <li>
+ * Using the JAR META-INF/services mechanism, with a file named:
+ * <pre>
+ * com.gnipcentral.client.util.Tracer
+ * </pre>
+ * in META-INF/services containing a single, uncommented line that lists the classname of the Tracer
+ * implementation.  The <code>gnip-client-jfr</code> JAR contains such a file, so adding it to the classpath is
+ * enough to emit Java Flight Recorder events.
+ * </li>
+ * <li>
+ * Registering a system property called {@value #TRACER_CLASS_SYSTEM_PROPERTY} that references the
+ * implementation class.
+ * </li>
+ * </ol>
+ * <br/>
+ * If both mechanisms are used to configure valid tracers, the class specified by the system property takes
+ * precedence.
+ */
+public class TracerFactory {
+
+    public static final String TRACER_CLASS_SYSTEM_PROPERTY = "gnip.tracer.class";
+
+    /**
+     * Retrieve the {@link Tracer}.  The tracer is created once, on the first call, and the same instance is
+     * returned to every caller.
+     * @return By default, this returns a {@link Tracer} that records nothing.  If a valid, custom implementation
+     *         class is specified in the environment it will be returned.
+     */
+    public static Tracer getInstance() {
+        return Holder.TRACER;
+    }
+
+    private static Tracer create() {
+        try {
+            Tracer tracer = load();
+            if(tracer != null) {
+                return tracer;
+            }
+        } catch (LinkageError e) {
+            // the Java Flight Recorder adapter needs Java 11; on older runtimes nothing is traced
+            System.err.printf("Unable to create tracer due to exception %s\n", e);
+        }
+        return new Tracer.NoopTracer();
+    }
+
+    private static Tracer load() {
+        Class<?> serviceImpl = null;
+        String tracerProperty = System.getProperty(TRACER_CLASS_SYSTEM_PROPERTY);
+        if(tracerProperty != null) {
+            try {
+                serviceImpl = Class.forName(tracerProperty);
+            }
+            catch(ClassNotFoundException e) {
+                System.err.printf("Unable to create tracer of type %s due to exception %s\n", tracerProperty, e.getMessage());
+            }
+        } else {
+            List<Class<?>> serviceImpls = ServiceLoader.loadServices(Tracer.class);
+            serviceImpl = (serviceImpls.size() > 0 ? serviceImpls.get(0) : null);
+        }
+
+        if(serviceImpl != null) {
+            try {
+                return Tracer.class.cast(serviceImpl.newInstance());
+            } catch (IllegalAccessException e) {
+                System.err.printf("Unable to create tracer of type %s due to exception %s\n", serviceImpl.getName(), e.getMessage());
+            } catch (InstantiationException e) {
+                System.err.printf("Unable to create tracer of type %s due to exception %s\n", serviceImpl.getName(), e.getMessage());
+            } catch (ClassCastException e) {
+                System.err.printf("Unable to create tracer of type %s due to exception %s\n", serviceImpl.getName(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the tracer when first accessed, so every trace point sees the same constant.
+     */
+    private static final class Holder {
+
+        static final Tracer TRACER = create();
+    }
+}
@@ -0,0 +1,119 @@
+package com.gnipcentral.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.gnipcentral.client.resource.Activity;
+import com.gnipcentral.client.resource.Actor;
+import com.gnipcentral.client.resource.Results;
+
+/**
+ * Checks how an {@link ActivityPublisher} ends a subscription, against a connection that serves buckets from
+ * memory and an executor that runs the drain loop on the calling thread.
+ */
+public class ActivityPublisherTest extends TestCase {
+
+    private static final Executor CALLER_RUNS = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private ActivityPublisher publisher;
+
+    protected void setUp() throws Exception {
+        GnipConnection connection = new GnipConnection(new Config("user", "password")) {
+            private int next;
+
+            @Override
+            public Results getActivities() {
+                Results results = new Results();
+                for (int i = 0; i < 3; i++) {
+                    Activity activity = new Activity(new Actor("joe"), "post");
+                    activity.setAt(new DateTime());
+                    activity.setActivityID(String.valueOf(next++));
+                    results.add(activity);
+                }
+                return results;
+            }
+        };
+        publisher = new ActivityPublisher(connection, CALLER_RUNS, 0);
+    }
+
+    public void testSubscriberThrowingFromOnNextIsCancelledAndReleasesPublisher() {
+        final RuntimeException failure = new RuntimeException("subscriber failure");
+        RecordingSubscriber throwing = new RecordingSubscriber() {
+            @Override
+            public void onNext(Activity activity) {
+                super.onNext(activity);
+                throw failure;
+            }
+        };
+        publisher.subscribe(throwing);
+        throwing.subscription.request(10);
+
+        assertEquals(1, throwing.activities.size());
+        assertSame(failure, throwing.error);
+
+        RecordingSubscriber next = new RecordingSubscriber();
+        publisher.subscribe(next);
+        next.subscription.request(5);
+        assertNull(next.error);
+        assertEquals(5, next.activities.size());
+        next.subscription.cancel();
+    }
+
+    public void testSecondSubscriberIsRejectedUntilFirstCancels() {
+        RecordingSubscriber first = new RecordingSubscriber();
+        publisher.subscribe(first);
+        first.subscription.request(1);
+
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+
+        first.subscription.cancel();
+        RecordingSubscriber third = new RecordingSubscriber();
+        publisher.subscribe(third);
+        third.subscription.request(2);
+        assertNull(third.error);
+        assertEquals(2, third.activities.size());
+        third.subscription.cancel();
+    }
+
+    public void testInvalidRequestSignalsError() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static class RecordingSubscriber implements Subscriber<Activity> {
+
+        Subscription subscription;
+        final List<Activity> activities = new ArrayList<Activity>();
+        Throwable error;
+
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(Activity activity) {
+            activities.add(activity);
+        }
+
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        public void onComplete() {
+        }
+    }
+}
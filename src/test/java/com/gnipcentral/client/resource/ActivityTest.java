@@ -0,0 +1,58 @@
+package com.gnipcentral.client.resource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that {@link Activity#getAtMillis()}, which is computed from the fields of the parsed time, agrees with
+ * the calendar that {@link Activity#getAt()} is built from.
+ */
+public class ActivityTest extends TestCase {
+
+    private DatatypeFactory factory;
+
+    protected void setUp() throws Exception {
+        factory = DatatypeFactory.newInstance();
+    }
+
+    public void testAtMillisMatchesCalendar() {
+        assertAtMillis("2009-03-01T10:00:00Z");
+        assertAtMillis("2009-03-01T10:00:00.123Z");
+        assertAtMillis("2009-03-01T10:00:00.1234567+05:30");
+        assertAtMillis("2009-03-01T10:00:00.5-07:00");
+        assertAtMillis("1969-12-31T23:59:59.999Z");
+        assertAtMillis("2008-02-29T23:59:59-14:00");
+        assertAtMillis("2000-03-01T00:00:00+14:00");
+        assertAtMillis("1500-01-01T00:00:00Z");
+        assertAtMillis("0001-01-01T00:00:00Z");
+        assertAtMillis("2009-03-01T24:00:00Z");
+        assertAtMillis("2009-03-01T10:00:00");
+    }
+
+    public void testAtMillisMatchesCalendarForRandomTimes() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            XMLGregorianCalendar at = factory.newXMLGregorianCalendar(1 + random.nextInt(3000), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    DatatypeConstants.FIELD_UNDEFINED, random.nextInt(28 * 60 + 1) - 14 * 60);
+            at.setFractionalSecond(BigDecimal.valueOf(random.nextInt(10000000), 7));
+            assertAtMillis(at);
+        }
+    }
+
+    private void assertAtMillis(String lexical) {
+        assertAtMillis(factory.newXMLGregorianCalendar(lexical));
+    }
+
+    private static void assertAtMillis(XMLGregorianCalendar at) {
+        Activity activity = new Activity(new Actor("joe"), "post");
+        activity.setAtCalendar(at);
+        assertEquals(at.toXMLFormat(), at.toGregorianCalendar().getTimeInMillis(), activity.getAtMillis());
+    }
+}
@@ -0,0 +1,123 @@
+package com.gnipcentral.client.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that {@link BinaryCodec} round-trips exactly: an object decoded from its binary form must marshall to
+ * the same XML as the original, with the same time zone and fractional seconds on every activity's
+ * <code>at</code>, for objects that use every field of the model.
+ */
+public class BinaryCodecTest extends TestCase {
+
+    protected void setUp() throws Exception {
+        Translator.setUseJaxb(false);
+        // the full documents are not valid against the Gnip schema; see ResourceXmlCodecTest.fullResults
+        Translator.setValidate(false);
+    }
+
+    protected void tearDown() throws Exception {
+        Translator.setValidate(true);
+    }
+
+    public void testResultsRoundTrip() throws Exception {
+        Results results = resultsWithTimes();
+        assertSameResults(results, BinaryCodec.decodeResults(BinaryCodec.encode(results)));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryCodec.encode(results, output);
+        assertSameResults(results, BinaryCodec.decodeResults(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    public void testActivityRoundTrip() throws Exception {
+        for (Activity activity : resultsWithTimes().getActivities()) {
+            assertSameActivity(activity, BinaryCodec.decodeActivity(BinaryCodec.encode(activity)));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            BinaryCodec.encode(activity, output);
+            assertSameActivity(activity, BinaryCodec.decodeActivity(new ByteArrayInputStream(output.toByteArray())));
+        }
+    }
+
+    public void testEmptyResultsRoundTrip() throws Exception {
+        Results results = new Results();
+        assertSameResults(results, BinaryCodec.decodeResults(BinaryCodec.encode(results)));
+    }
+
+    public void testTruncatedDataIsRejected() throws Exception {
+        byte[] data = BinaryCodec.encode(resultsWithTimes());
+        byte[] truncated = new byte[data.length / 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        try {
+            BinaryCodec.decodeResults(truncated);
+            fail("Decoded truncated data");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static void assertSameResults(Results expected, Results actual) throws Exception {
+        assertEquals(expected.getPollResponseCode(), actual.getPollResponseCode());
+        assertEquals(expected.getPollResponseMessage(), actual.getPollResponseMessage());
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getUniqueCount(), actual.getUniqueCount());
+        assertEquals(expected.getDataCollectorId(), actual.getDataCollectorId());
+        assertEquals(expected.getPublisher(), actual.getPublisher());
+        assertEquals(expected.getEndPoint(), actual.getEndPoint());
+        assertEquals(expected.getRefreshUrl(), actual.getRefreshUrl());
+        assertEquals(expected.getActivities(), actual.getActivities());
+
+        List<Activity> expectedActivities = expected.getActivities();
+        List<Activity> actualActivities = actual.getActivities();
+        for (int i = 0; expectedActivities != null && i < expectedActivities.size(); i++) {
+            assertSameAt(expectedActivities.get(i), actualActivities.get(i));
+        }
+        // activities are compared without their payloads, which the marshalled form includes
+        assertEquals(Translator.marshall(expected), Translator.marshall(actual));
+    }
+
+    private static void assertSameActivity(Activity expected, Activity actual) throws Exception {
+        assertEquals(expected, actual);
+        assertSameAt(expected, actual);
+        assertEquals(Translator.marshall(expected, true), Translator.marshall(actual, true));
+    }
+
+    private static void assertSameAt(Activity expected, Activity actual) {
+        // XMLGregorianCalendar.equals compares instants, so compare the lexical forms, which keep the zone and scale
+        assertEquals(expected.getAtCalendar().toXMLFormat(), actual.getAtCalendar().toXMLFormat());
+    }
+
+    /**
+     * Build the full results with activity times that exercise every form of <code>at</code> the XML can carry: a
+     * non-UTC offset, a fraction finer than milliseconds, a fraction with trailing zeros, no fraction and no zone.
+     */
+    static Results resultsWithTimes() throws Exception {
+        DatatypeFactory factory = DatatypeFactory.newInstance();
+        Results results = ResourceXmlCodecTest.fullResults(true);
+        List<Activity> activities = results.getActivities();
+
+        Activity fine = new Activity(new Actor("joe"), "post");
+        fine.setAtCalendar(factory.newXMLGregorianCalendar(1969, 12, 31, 23, 59, 59, 0, 330));
+        fine.getAtCalendar().setFractionalSecond(new BigDecimal("0.1234567"));
+        activities.add(fine);
+
+        Activity zeros = new Activity(new Actor("joe"), "post");
+        zeros.setAtCalendar(factory.newXMLGregorianCalendar(2009, 3, 1, 10, 0, 0, 0, -300));
+        zeros.getAtCalendar().setFractionalSecond(new BigDecimal("0.50"));
+        activities.add(zeros);
+
+        Activity plain = new Activity(new Actor("joe"), "post");
+        plain.setAtCalendar(factory.newXMLGregorianCalendar(2009, 3, 1, 10, 0, 0,
+                DatatypeConstants.FIELD_UNDEFINED, DatatypeConstants.FIELD_UNDEFINED));
+        activities.add(plain);
+        return results;
+    }
+}
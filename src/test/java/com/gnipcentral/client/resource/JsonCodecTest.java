@@ -0,0 +1,175 @@
+package com.gnipcentral.client.resource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Checks that {@link JsonCodec} round-trips exactly: an object read from its JSON form must marshall to the same
+ * XML as the original, with the same time zone and fractional seconds on every activity's <code>at</code>, for
+ * objects that use every field of the model, and that strings are escaped as JSON requires.
+ */
+public class JsonCodecTest extends TestCase {
+
+    private JsonCodec codec;
+
+    protected void setUp() throws Exception {
+        codec = new JsonCodec();
+        Translator.setUseJaxb(false);
+        // the full documents are not valid against the Gnip schema; see ResourceXmlCodecTest.fullResults
+        Translator.setValidate(false);
+    }
+
+    protected void tearDown() throws Exception {
+        Translator.setValidate(true);
+    }
+
+    public void testResultsRoundTrip() throws Exception {
+        Results results = BinaryCodecTest.resultsWithTimes();
+        assertSameResults(results, codec.readResults(codec.toJson(results)));
+
+        StringWriter writer = new StringWriter();
+        codec.write(results, writer);
+        assertSameResults(results, codec.readResults(new StringReader(writer.toString())));
+    }
+
+    public void testActivityRoundTrip() throws Exception {
+        for (Activity activity : BinaryCodecTest.resultsWithTimes().getActivities()) {
+            assertSameActivity(activity, codec.readActivity(codec.toJson(activity)));
+
+            StringWriter writer = new StringWriter();
+            codec.write(activity, writer);
+            assertSameActivity(activity, codec.readActivity(writer.toString()));
+        }
+    }
+
+    public void testLinesRoundTrip() throws Exception {
+        Results results = BinaryCodecTest.resultsWithTimes();
+        StringWriter writer = new StringWriter();
+        codec.writeLines(results, writer);
+
+        StringReader reader = new StringReader(writer.toString());
+        for (Activity expected : results.getActivities()) {
+            assertSameActivity(expected, codec.readActivity(reader));
+        }
+        assertNull(codec.readActivity(reader));
+    }
+
+    public void testEmptyResultsRoundTrip() throws Exception {
+        Results results = new Results();
+        assertEquals("{}", codec.toJson(results));
+        assertSameResults(results, codec.readResults(codec.toJson(results)));
+    }
+
+    public void testNullListsAreOmittedAndReadAsNull() throws Exception {
+        Activity activity = new Activity(new DateTime(2009, 3, 1, 3, 0, 0, 0, DateTimeZone.UTC), "like");
+        String json = codec.toJson(activity);
+        assertEquals("{\"at\":\"2009-03-01T03:00:00.000Z\",\"action\":\"like\"}", json);
+
+        Activity read = codec.readActivity(json);
+        assertNull(read.getSources());
+        assertNull(read.getKeywords());
+        assertNull(read.getPlaces());
+        assertNull(read.getActors());
+        assertNull(read.getDestinationUrls());
+        assertNull(read.getTags());
+        assertNull(read.getTos());
+        assertNull(read.getRegardingUrls());
+        assertNull(read.getPayload());
+        assertSameActivity(activity, read);
+    }
+
+    public void testStringsAreEscaped() throws Exception {
+        Activity activity = new Activity(new DateTime(2009, 3, 1, 3, 0, 0, 0, DateTimeZone.UTC), "post");
+        activity.addKeyword("\"quoted\" back\\slash\ttab\r\nnewline");
+        activity.addKeyword("control\u0001 separators\u2028\u2029");
+        activity.addKeyword("caf\u00e9 \ud83d\ude00");
+        String json = codec.toJson(activity);
+
+        assertTrue(json, json.indexOf("\"\\\"quoted\\\" back\\\\slash\\ttab\\r\\nnewline\"") >= 0);
+        assertTrue(json, json.indexOf("\"control\\u0001 separators\\u2028\\u2029\"") >= 0);
+        // characters outside the basic multilingual plane are written as their surrogate pair, unescaped
+        assertTrue(json, json.indexOf("\"caf\u00e9 \ud83d\ude00\"") >= 0);
+        assertEquals(-1, json.indexOf('\n'));
+        assertSameActivity(activity, codec.readActivity(json));
+    }
+
+    public void testEscapedSurrogatePairIsRead() throws Exception {
+        Activity activity = codec.readActivity(
+                "{\"at\":\"2009-03-01T03:00:00Z\",\"action\":\"post\",\"keywords\":[\"\\ud83d\\ude00 \\u00e9\\/\"]}");
+        assertEquals("\ud83d\ude00 \u00e9/", activity.getKeywords().get(0));
+    }
+
+    public void testInfiniteElevationRoundTrip() throws Exception {
+        Activity activity = new Activity(new DateTime(2009, 3, 1, 3, 0, 0, 0, DateTimeZone.UTC), "post");
+        activity.addPlace(new Place(new double[] {0, 0}, Double.POSITIVE_INFINITY, null, null, null, null));
+        activity.addPlace(new Place(new double[] {40.0176, -105.2797}, Double.NEGATIVE_INFINITY, null, null, null, null));
+
+        List<Place> places = codec.readActivity(codec.toJson(activity)).getPlaces();
+        assertEquals(Double.POSITIVE_INFINITY, places.get(0).getElevation());
+        assertEquals(Double.NEGATIVE_INFINITY, places.get(1).getElevation());
+        assertEquals(activity.getPlaces().get(1).getPointList(), places.get(1).getPointList());
+    }
+
+    public void testActorMetaUrlIsDistinctFromValueMetaUrl() throws Exception {
+        Activity activity = new Activity(new DateTime(2009, 3, 1, 3, 0, 0, 0, DateTimeZone.UTC), "post");
+        Actor actor = new Actor("joe", "1001", "http://example.com/value/joe");
+        actor.setMetaUrl("http://example.com/actors/joe");
+        activity.addActor(actor);
+        String json = codec.toJson(activity);
+        assertTrue(json, json.indexOf("\"metaURL\":\"http://example.com/value/joe\"") >= 0);
+        assertTrue(json, json.indexOf("\"actorMetaUrl\":\"http://example.com/actors/joe\"") >= 0);
+
+        Actor read = codec.readActivity(json).getActors().get(0);
+        assertEquals("http://example.com/value/joe", read.getValueMetaUrl());
+        assertEquals("http://example.com/actors/joe", read.getMetaUrl());
+        assertEquals(actor, read);
+    }
+
+    public void testTruncatedJsonIsRejected() throws Exception {
+        String json = codec.toJson(BinaryCodecTest.resultsWithTimes());
+        try {
+            codec.readResults(json.substring(0, json.length() / 2));
+            fail("Read truncated JSON");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private static void assertSameResults(Results expected, Results actual) throws Exception {
+        assertEquals(expected.getPollResponseCode(), actual.getPollResponseCode());
+        assertEquals(expected.getPollResponseMessage(), actual.getPollResponseMessage());
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getUniqueCount(), actual.getUniqueCount());
+        assertEquals(expected.getDataCollectorId(), actual.getDataCollectorId());
+        assertEquals(expected.getPublisher(), actual.getPublisher());
+        assertEquals(expected.getEndPoint(), actual.getEndPoint());
+        assertEquals(expected.getRefreshUrl(), actual.getRefreshUrl());
+        assertEquals(expected.getActivities(), actual.getActivities());
+
+        List<Activity> expectedActivities = expected.getActivities();
+        List<Activity> actualActivities = actual.getActivities();
+        for (int i = 0; expectedActivities != null && i < expectedActivities.size(); i++) {
+            assertSameAt(expectedActivities.get(i), actualActivities.get(i));
+        }
+        // activities are compared without their payloads, which the marshalled form includes
+        assertEquals(Translator.marshall(expected), Translator.marshall(actual));
+    }
+
+    private static void assertSameActivity(Activity expected, Activity actual) throws Exception {
+        assertEquals(expected, actual);
+        assertSameAt(expected, actual);
+        assertEquals(Translator.marshall(expected, true), Translator.marshall(actual, true));
+    }
+
+    private static void assertSameAt(Activity expected, Activity actual) {
+        // XMLGregorianCalendar.equals compares instants, so compare the lexical forms, which keep the zone and scale
+        assertEquals(expected.getAtCalendar().toXMLFormat(), actual.getAtCalendar().toXMLFormat());
+    }
+}
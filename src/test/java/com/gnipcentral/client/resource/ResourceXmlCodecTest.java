@@ -0,0 +1,159 @@
+package com.gnipcentral.client.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Checks that {@link ResourceXmlWriter} and {@link ResourceXmlReader} stay equivalent to the JAXB binding of the
+ * model classes: the writer must produce the same bytes as the JAXB marshaller and the reader the same objects as
+ * the JAXB unmarshaller, for documents that use every field of the model.  A model change that is not made to
+ * the codecs as well fails here.
+ */
+public class ResourceXmlCodecTest extends TestCase {
+
+    private JAXBContext context;
+
+    protected void setUp() throws Exception {
+        // a context without the Gnip schema, so the reference is the binding alone
+        context = JAXBContext.newInstance(Results.class, Rules.class);
+        Translator.setUseJaxb(false);
+        // the full documents are not valid against the Gnip schema; see fullResults
+        Translator.setValidate(false);
+    }
+
+    protected void tearDown() throws Exception {
+        Translator.setUseJaxb(false);
+        Translator.setValidate(true);
+    }
+
+    public void testWriterMatchesJaxbForResults() throws Exception {
+        Results results = fullResults(true);
+        assertEquals(jaxbMarshall(results, false), Translator.marshall(results));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Translator.marshall(results, output);
+        assertEquals(jaxbMarshall(results, false), new String(output.toByteArray(), "UTF-8"));
+    }
+
+    public void testWriterMatchesJaxbForActivityFragment() throws Exception {
+        Activity activity = fullResults(true).getActivities().get(0);
+        assertEquals(jaxbMarshall(activity, true), Translator.marshall(activity, true));
+    }
+
+    public void testWriterMatchesJaxbForRules() throws Exception {
+        Rules rules = fullRules();
+        assertEquals(jaxbMarshall(rules, false), Translator.marshall(rules));
+        Rule rule = rules.getRules().iterator().next();
+        assertEquals(jaxbMarshall(rule, true), Translator.marshall(rule, true));
+    }
+
+    public void testReaderMatchesJaxbForResults() throws Exception {
+        assertParsedAsJaxb(jaxbMarshall(fullResults(true), false), null);
+    }
+
+    public void testLazyReaderMatchesJaxbForResults() throws Exception {
+        ParseOptions options = new ParseOptions();
+        options.setLazyPayload(true);
+        assertParsedAsJaxb(jaxbMarshall(fullResults(true), false), options);
+    }
+
+    public void testValidatingReaderMatchesJaxbForResults() throws Exception {
+        Translator.setValidate(true);
+        assertParsedAsJaxb(jaxbMarshall(fullResults(false), false), null);
+    }
+
+    public void testReaderMatchesJaxbForRules() throws Exception {
+        String xml = jaxbMarshall(fullRules(), false);
+        Rules expected = (Rules) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        Rules actual = Translator.parseRules(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        assertEquals(expected.getRules(), actual.getRules());
+    }
+
+    private void assertParsedAsJaxb(String xml, ParseOptions options) throws Exception {
+        Results expected = (Results) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        Results actual = Translator.parseResults(new ByteArrayInputStream(xml.getBytes("UTF-8")), options);
+
+        assertEquals(expected.getPollResponseCode(), actual.getPollResponseCode());
+        assertEquals(expected.getPollResponseMessage(), actual.getPollResponseMessage());
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getUniqueCount(), actual.getUniqueCount());
+        assertEquals(expected.getDataCollectorId(), actual.getDataCollectorId());
+        assertEquals(expected.getPublisher(), actual.getPublisher());
+        assertEquals(expected.getEndPoint(), actual.getEndPoint());
+        assertEquals(expected.getRefreshUrl(), actual.getRefreshUrl());
+        assertEquals(expected.getActivities(), actual.getActivities());
+        // activities are compared without their payloads, which the marshalled form includes
+        assertEquals(jaxbMarshall(expected, false), jaxbMarshall(actual, false));
+    }
+
+    private String jaxbMarshall(Object object, boolean fragment) throws JAXBException {
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+        StringWriter writer = new StringWriter();
+        marshaller.marshal(object, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Build results that use every field of the model, with text that needs escaping and normalizing.
+     * @param full whether to include the actor meta URLs and header fields, which make the document invalid
+     * against the Gnip schema: the schema has no actor meta URL, and the model writes the header fields as elements
+     * after the activities, which the schema does not allow
+     */
+    static Results fullResults(boolean full) {
+        Activity activity = new Activity(new DateTime(2009, 3, 1, 10, 0, 0, 123, DateTimeZone.UTC), "post");
+        activity.setActivityID("12345");
+        activity.setUrl("http://example.com/status/1?a=1&b=<2>");
+        activity.addSource("web");
+        activity.addSource("sms");
+        activity.addKeyword("caf\u00e9");
+        activity.addKeyword("tab\tand\nnewline \"quoted\" 'apos' \ud83d\ude00");
+        activity.addPlace(new Place(new double[] {40.0176, -105.2797}, 1624.5, 3, "city", "Boulder", "near"));
+        activity.addPlace(new Place(new double[] {0, 0}, Double.POSITIVE_INFINITY, null, null, null, null));
+        activity.addActor(new Actor("joe", "1001", full ? "http://example.com/actors/joe" : null));
+        activity.addActor(new Actor("J\u00fcrgen & <friends>"));
+        activity.addDestinationUrl(new GnipUrl("http://example.com/destination", "http://example.com/meta?x=1&y=2"));
+        activity.addDestinationUrl(new GnipUrl("http://example.com/other"));
+        activity.addTag(new GnipValue("gnip", "http://example.com/tags/gnip"));
+        activity.addTag(new GnipValue("java"));
+        activity.addTo(new GnipValue("jane", "http://example.com/to/jane"));
+        activity.addRegardingUrl(new GnipUrl("http://example.com/regarding", "http://example.com/meta/regarding"));
+        activity.setPayload(new Payload("A title & more", "A body\twith\r\nwhitespace",
+                Arrays.asList(new MediaUrl("http://example.com/image.png", "640", "480", "10", "image/png", "image"),
+                        new MediaUrl("http://example.com/video")),
+                "{\"raw\":\"data <&>\"}", false));
+
+        Activity minimal = new Activity(new DateTime(2009, 3, 1, 3, 0, 0, 0, DateTimeZone.forOffsetHours(-7)), "like");
+
+        Results results = new Results(activity, minimal);
+        if (full) {
+            results.setPollResponseCode("200");
+            results.setPollResponseMessage("OK & <fine>");
+            results.setCount("2");
+            results.setUniqueCount("2");
+            results.setDataCollectorId("collector-1");
+            results.setPublisher("twitter");
+            results.setEndPoint("notification");
+            results.setRefreshUrl("https://api.gnip.com/publishers/twitter/notification/200903011001.xml?a=1&b=\"2\"");
+        }
+        return results;
+    }
+
+    private static Rules fullRules() {
+        Rules rules = new Rules();
+        for (RuleType type : RuleType.values()) {
+            rules.add(new Rule(type, type.name().toLowerCase() + " & <value>"));
+        }
+        return rules;
+    }
+}
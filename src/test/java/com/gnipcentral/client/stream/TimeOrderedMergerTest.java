@@ -0,0 +1,143 @@
+package com.gnipcentral.client.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.gnipcentral.client.resource.Activity;
+
+/**
+ * Checks that a {@link TimeOrderedMerger} releases the activities of several sources in time order as the
+ * watermark advances, and counts, passes on or drops activities that arrive after the watermark has passed them.
+ */
+public class TimeOrderedMergerTest extends TestCase {
+
+    private static final long BASE = new DateTime(2009, 3, 1, 10, 0, 0, 0, DateTimeZone.UTC).getMillis();
+
+    private final List<String> released = new ArrayList<String>();
+    private TimeOrderedMerger merger;
+
+    protected void setUp() throws Exception {
+        merger = new TimeOrderedMerger(new ActivityHandler() {
+            public void onActivity(Activity activity) {
+                released.add(activity.getActivityID());
+            }
+        }, 2, 1000);
+    }
+
+    public void testInterleavedSourcesAreMergedInOrder() {
+        merger.offer(0, activity("a1", 0));
+        merger.offer(1, activity("b1", 500));
+        merger.offer(0, activity("a2", 2000));
+        // within the lateness tolerance of its source, so still merged in order
+        merger.offer(1, activity("b0", 100));
+        merger.offer(1, activity("b2", 3000));
+        assertEquals(list("a1", "b0", "b1"), released);
+        assertEquals(BASE + 1000, merger.getWatermark());
+        assertEquals(2, merger.getBufferedCount());
+
+        merger.offer(0, activity("a3", 4500));
+        assertEquals(list("a1", "b0", "b1", "a2"), released);
+
+        merger.flush();
+        assertEquals(list("a1", "b0", "b1", "a2", "b2", "a3"), released);
+        assertEquals(6, merger.getEmittedCount());
+        assertEquals(0, merger.getLateCount());
+    }
+
+    public void testLateActivityIsPassedOn() {
+        offerReleasingFirstThree();
+        merger.offer(1, activity("late", 200));
+        assertEquals(list("a1", "b1", "a2", "late"), released);
+        assertEquals(1, merger.getLateCount(1));
+        assertEquals(0, merger.getLateCount(0));
+        assertEquals(4, merger.getEmittedCount());
+    }
+
+    public void testLateActivityIsDropped() {
+        merger.setDropLate(true);
+        offerReleasingFirstThree();
+        merger.offer(1, activity("late", 200));
+        assertEquals(list("a1", "b1", "a2"), released);
+        assertEquals(1, merger.getLateCount(1));
+        assertEquals(1, merger.getLateCount());
+        assertEquals(3, merger.getEmittedCount());
+    }
+
+    public void testClosingSourcesAdvancesWatermark() {
+        assertEquals(Long.MIN_VALUE, merger.getWatermark());
+        merger.offer(0, activity("a1", 0));
+        merger.offer(0, activity("a2", 5000));
+        assertEquals(Long.MIN_VALUE, merger.getWatermark());
+        assertTrue(released.isEmpty());
+
+        // the idle source no longer holds back the stream
+        merger.close(1);
+        assertEquals(BASE + 4000, merger.getWatermark());
+        assertEquals(list("a1"), released);
+
+        merger.close(0);
+        assertEquals(Long.MAX_VALUE, merger.getWatermark());
+        assertEquals(list("a1", "a2"), released);
+        assertEquals(0, merger.getBufferedCount());
+    }
+
+    public void testClosedOrUnknownSourceIsRejected() {
+        merger.close(0);
+        try {
+            merger.close(0);
+            fail("Closed a source twice");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            merger.offer(0, activity("a1", 0));
+            fail("Offered to a closed source");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            merger.close(2);
+            fail("Closed an unknown source");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            merger.advanceWatermark(-1, BASE);
+            fail("Advanced an unknown source");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Offer activities from both sources until the watermark has released the activities at 0, 500 and 2000
+     * milliseconds, leaving those at 3000 and 4500 buffered.
+     */
+    private void offerReleasingFirstThree() {
+        merger.offer(0, activity("a1", 0));
+        merger.offer(1, activity("b1", 500));
+        merger.offer(0, activity("a2", 2000));
+        merger.offer(1, activity("b2", 3000));
+        merger.offer(0, activity("a3", 4500));
+        assertEquals(list("a1", "b1", "a2"), released);
+    }
+
+    private static Activity activity(String id, long offsetMillis) {
+        Activity activity = new Activity(new DateTime(BASE + offsetMillis, DateTimeZone.UTC), "post");
+        activity.setActivityID(id);
+        return activity;
+    }
+
+    private static List<String> list(String... ids) {
+        List<String> list = new ArrayList<String>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,110 @@
+package com.gnipcentral.client.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that adapters overriding any subset of the {@link Logger} methods, in the current or the original
+ * level-less style, log without recursing into themselves, and that an {@link AsyncLogger} survives its target.
+ */
+public class LoggerTest extends TestCase {
+
+    public void testAdapterOverridingOnlyWriteIsDisabled() {
+        final List<Object> written = new ArrayList<Object>();
+        Logger logger = new Logger() {
+            @Override
+            protected void write(Level level, Object message, Object[] args) {
+                written.add(message);
+            }
+        };
+        assertFalse(logger.isLogEnabled());
+        assertFalse(logger.isEnabled(Logger.Level.ERROR));
+        logger.log(Logger.Level.ERROR, "message %s", "arg");
+        logger.log("message");
+        assertTrue(written.isEmpty());
+    }
+
+    public void testAdapterOverridingOnlyIsEnabledDropsMessages() {
+        Logger logger = new Logger() {
+            @Override
+            public boolean isEnabled(Level level) {
+                return true;
+            }
+        };
+        logger.log(Logger.Level.ERROR, "message %s", "arg");
+        logger.log("message");
+    }
+
+    public void testLevelAdapter() {
+        final List<Object> written = new ArrayList<Object>();
+        Logger logger = new Logger() {
+            @Override
+            public boolean isEnabled(Level level) {
+                return level.compareTo(Level.WARN) >= 0;
+            }
+
+            @Override
+            protected void write(Level level, Object message, Object[] args) {
+                written.add(level + " " + String.format(message.toString(), args));
+            }
+        };
+        logger.log(Logger.Level.DEBUG, "debug %s", "arg");
+        logger.log(Logger.Level.WARN, "warn %s", "arg");
+        logger.log("info");
+        assertEquals(1, written.size());
+        assertEquals("WARN warn arg", written.get(0));
+    }
+
+    public void testLevelLessAdapter() {
+        final List<Object> written = new ArrayList<Object>();
+        Logger logger = new Logger() {
+            @Override
+            public boolean isLogEnabled() {
+                return true;
+            }
+
+            @Override
+            public void log(Object message, Object... args) {
+                written.add(String.format(message.toString(), args));
+            }
+        };
+        assertTrue(logger.isEnabled(Logger.Level.TRACE));
+        logger.log(Logger.Level.TRACE, "trace %s", "arg");
+        logger.log("info %s", "arg");
+        assertEquals(2, written.size());
+        assertEquals("trace arg", written.get(0));
+        assertEquals("info arg", written.get(1));
+    }
+
+    public void testAsyncLoggerSurvivesErrorFromTarget() throws Exception {
+        final List<Object> written = new ArrayList<Object>();
+        Logger target = new Logger() {
+            @Override
+            public boolean isEnabled(Level level) {
+                return true;
+            }
+
+            @Override
+            protected void write(Level level, Object message, Object[] args) {
+                if ("fail".equals(message)) {
+                    throw new AssertionError("target failure");
+                }
+                synchronized (written) {
+                    written.add(message);
+                }
+            }
+        };
+        AsyncLogger logger = new AsyncLogger(target);
+        logger.log(Logger.Level.ERROR, "fail");
+        logger.log(Logger.Level.ERROR, "after");
+        assertTrue(logger.close(5, TimeUnit.SECONDS));
+        synchronized (written) {
+            assertEquals(1, written.size());
+            assertEquals("after", written.get(0));
+        }
+        assertEquals(0, logger.getDroppedCount());
+    }
+}